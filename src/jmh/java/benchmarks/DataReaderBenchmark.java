@@ -0,0 +1,101 @@
+package benchmarks;
+
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvException;
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import utils.CsvUtils;
+import utils.ExcelUtils;
+
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the data-provider readers on generated files of growing size.
+ * Every file has a header row and {@code rows} data rows of five string columns,
+ * the same shape as the files in {@code testData}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataReaderBenchmark {
+
+    private static final int COLUMNS = 5;
+    private static final String SHEET = "Sheet1";
+
+    @Param({"10", "1000", "10000"})
+    private int rows;
+
+    private Path tempDir;
+    private ExcelUtils excelUtils;
+    private String csvFile;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        tempDir = Files.createTempDirectory("data-reader-benchmark");
+
+        Path excelFile = tempDir.resolve("data.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream outputStream = new FileOutputStream(excelFile.toFile())) {
+            Sheet sheet = workbook.createSheet(SHEET);
+            for (int rowIndex = 0; rowIndex <= rows; rowIndex++) {
+                Row row = sheet.createRow(rowIndex);
+                for (int cellIndex = 0; cellIndex < COLUMNS; cellIndex++) {
+                    row.createCell(cellIndex).setCellValue(cellValue(rowIndex, cellIndex));
+                }
+            }
+            workbook.write(outputStream);
+        }
+        excelUtils = new ExcelUtils(excelFile.toString());
+
+        Path csv = tempDir.resolve("data.csv");
+        try (CSVWriter writer = new CSVWriter(new FileWriter(csv.toFile()))) {
+            for (int rowIndex = 0; rowIndex <= rows; rowIndex++) {
+                String[] line = new String[COLUMNS];
+                for (int cellIndex = 0; cellIndex < COLUMNS; cellIndex++) {
+                    line[cellIndex] = cellValue(rowIndex, cellIndex);
+                }
+                writer.writeNext(line);
+            }
+        }
+        csvFile = csv.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    @Benchmark
+    public String[][] excelGetAllDataInSheet() throws IOException {
+        return excelUtils.getAllDataInSheet(SHEET);
+    }
+
+    /**
+     * Reads one cell from the middle of the sheet. {@code getCellData} opens the whole workbook
+     * for every call, so this shows the per-cell cost of that.
+     */
+    @Benchmark
+    public String excelGetCellData() throws IOException {
+        return excelUtils.getCellData(SHEET, rows / 2 + 1, COLUMNS / 2);
+    }
+
+    @Benchmark
+    public String[][] csvReadAllData() throws IOException, CsvException {
+        return CsvUtils.readAllData(csvFile);
+    }
+
+    private static String cellValue(int rowIndex, int cellIndex) {
+        return rowIndex == 0 ? "column" + cellIndex : "value-" + rowIndex + "-" + cellIndex;
+    }
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.PageFactory;
+import pages.LoginPage;
+import storefront.LocalStorefrontServer;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks page-object construction for each class in {@code pages}, against a local headless
+ * Chrome and the embedded storefront, whose pages serve as static HTML fixtures.
+ * <ul>
+ *     <li>{@code initElements}: {@link PageFactory#initElements(WebDriver, Object)} alone, on an existing
+ *     page object. This only creates the element proxies and does not talk to the browser.</li>
+ *     <li>{@code construct}: the full constructor, including the wait for the page's readiness contract
+ *     on an already loaded page.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageObjectBenchmark {
+
+    private static final String EMAIL = "benchmark@example.com";
+    private static final String PASSWORD = "benchmark";
+
+    @Param({"HomePage", "LoginPage", "RegistrationPage", "SearchResultsPage", "ProductPage", "MyAccountPage",
+            "NavbarComponent"})
+    private String page;
+
+    private LocalStorefrontServer storefront;
+    private WebDriver driver;
+    private Constructor<?> constructor;
+    private Object pageObject;
+
+    @Setup(Level.Trial)
+    public void openPage() throws IOException, ReflectiveOperationException {
+        storefront = new LocalStorefrontServer(0, "/demo/");
+        storefront.addAccount(EMAIL, PASSWORD);
+        storefront.start();
+
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        driver = new ChromeDriver(options);
+
+        String baseUrl = storefront.getBaseUrl() + "index.php?route=";
+        switch (page) {
+            case "LoginPage":
+                driver.get(baseUrl + "account/login");
+                break;
+            case "RegistrationPage":
+                driver.get(baseUrl + "account/register");
+                break;
+            case "SearchResultsPage":
+                driver.get(baseUrl + "product/search&search=mac");
+                break;
+            case "ProductPage":
+                driver.get(baseUrl + "product/product&product_id=43");
+                break;
+            case "MyAccountPage":
+                driver.get(baseUrl + "account/login");
+                new LoginPage(driver).performLoginAction(EMAIL, PASSWORD);
+                break;
+            default:
+                driver.get(storefront.getBaseUrl());
+        }
+
+        constructor = Class.forName("pages." + page).getConstructor(WebDriver.class);
+        pageObject = constructor.newInstance(driver);
+    }
+
+    @TearDown(Level.Trial)
+    public void closePage() {
+        if (driver != null) {
+            driver.quit();
+        }
+        if (storefront != null) {
+            storefront.stop();
+        }
+    }
+
+    @Benchmark
+    public Object initElements() {
+        PageFactory.initElements(driver, pageObject);
+        return pageObject;
+    }
+
+    @Benchmark
+    public Object construct() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        return constructor.newInstance(driver);
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.Randomizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link Randomizer} generators with one thread per available processor,
+ * the contention seen when data-driven tests run in parallel.
+ * Run with {@code -t 1} for the uncontended baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RandomizerBenchmark {
+
+    @Benchmark
+    public String generateRandomUUIDEmail() {
+        return Randomizer.generateRandomUUIDEmail();
+    }
+
+    @Benchmark
+    public String generateRandomEmail() {
+        return Randomizer.generateRandomEmail();
+    }
+
+    @Benchmark
+    public String generateRandomAlphabeticStr() {
+        return Randomizer.generateRandomAlphabeticStr(10);
+    }
+
+    @Benchmark
+    public String generateRandomAlphaNumericStr() {
+        return Randomizer.generateRandomAlphaNumericStr(10);
+    }
+
+    @Benchmark
+    public String generateRandomNumberStr() {
+        return Randomizer.generateRandomNumberStr(10);
+    }
+}
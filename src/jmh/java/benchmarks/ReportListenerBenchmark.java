@@ -0,0 +1,140 @@
+package benchmarks;
+
+import listeners.ExtendReportListener;
+import org.openjdk.jmh.annotations.*;
+import org.testng.IClass;
+import org.testng.ISuite;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import tests.BaseTest;
+import utils.DataProviders;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-test work {@link ExtendReportListener} does for a passing and a skipped test,
+ * with and without test parameters. TestNG's result objects are replaced by minimal stubs,
+ * so no browser or TestNG run is needed. The report is not flushed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportListenerBenchmark {
+
+    private ExtendReportListener listener;
+    private ITestResult plainResult;
+    private ITestResult parameterizedResult;
+    private ITestResult skippedResult;
+
+    /**
+     * Starts a fresh report for every iteration, so the number of tests held by the report
+     * does not grow over the whole run.
+     */
+    @Setup(Level.Iteration)
+    public void startReport() {
+        listener = new ExtendReportListener();
+        listener.onStart(stub(ISuite.class, Map.of("getXmlSuite", new XmlSuite())));
+        listener.onStart(stub(ITestContext.class, Map.of("getCurrentXmlTest", new XmlTest())));
+
+        plainResult = testResult("testLoginWithValidCredentials", new Object[0], null);
+        parameterizedResult = testResult("testSearchWithDataProvider",
+                new Object[]{"iMac", "yes", "Search - iMac", "https://tutorialsninja.com/demo/", "N/A"}, null);
+        parameterizedResult.setAttribute(DataProviders.ROW_INDEX_ATTRIBUTE, 3);
+        skippedResult = testResult("testAddToCart", new Object[0], new IllegalStateException("Skipped"));
+    }
+
+    @Benchmark
+    public void passingTest() {
+        listener.onTestStart(plainResult);
+        listener.onTestSuccess(plainResult);
+    }
+
+    @Benchmark
+    public void passingDataDrivenTest() {
+        listener.onTestStart(parameterizedResult);
+        listener.onTestSuccess(parameterizedResult);
+    }
+
+    @Benchmark
+    public void skippedTest() {
+        listener.onTestStart(skippedResult);
+        listener.onTestSkipped(skippedResult);
+    }
+
+    private static ITestResult testResult(String methodName, Object[] parameters, Throwable throwable) {
+        ITestNGMethod method = stub(ITestNGMethod.class, Map.of("getMethodName", methodName));
+        IClass testClass = stub(IClass.class, Map.of("getName", "tests.BenchmarkTests", "getRealClass", BaseTest.class));
+        Map<String, Object> answers = new HashMap<>(Map.of(
+                "getName", methodName,
+                "getMethod", method,
+                "getTestClass", testClass,
+                "getParameters", parameters,
+                "getInstance", new BaseTest()));
+        if (throwable != null) {
+            answers.put("getThrowable", throwable);
+        }
+        return stub(ITestResult.class, answers);
+    }
+
+    /**
+     * Creates an implementation of the interface whose no-argument methods return the given answers,
+     * whose attributes are kept like a result's, and whose other methods return {@code null},
+     * {@code false} or 0.
+     */
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        Map<Object, Object> attributes = new HashMap<>();
+        Object instance = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName());
+            }
+            switch (method.getName()) {
+                case "setAttribute" -> {
+                    attributes.put(args[0], args[1]);
+                    return null;
+                }
+                case "getAttribute" -> {
+                    return attributes.get(args[0]);
+                }
+                case "removeAttribute" -> {
+                    return attributes.remove(args[0]);
+                }
+                default -> {
+                }
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            }
+            // Each type on its own: a conditional expression would promote every branch to double
+            if (returnType == long.class) {
+                return 0L;
+            }
+            if (returnType == double.class) {
+                return 0.0;
+            }
+            if (returnType == float.class) {
+                return 0f;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            return null;
+        });
+        return type.cast(instance);
+    }
+}
@@ -0,0 +1,217 @@
+package crawl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import pages.ProductPage;
+import pages.SearchResultsPage;
+import utils.ConfigFileReader;
+import utils.DriverFactory;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that every product listed by the storefront can be found and opened, by crawling the search
+ * listings with several browser sessions at once.
+ *
+ * <p>The crawl starts from one search listing per seed term and follows the pagination of each
+ * listing. Every product link found is queued once, keyed by its {@code product_id}, and opened by
+ * whichever session is free next; the product page must become ready and show the name of the link.
+ * Each worker thread borrows a session from the {@link DriverFactory} pool, so with
+ * {@code browser_isolation=context} the workers are isolated contexts of shared Chromium browsers
+ * ({@code contexts_per_browser} per browser), and otherwise browsers of their own. Throughput grows
+ * with the number of workers until the storefront or the machine is saturated.</p>
+ */
+public class CatalogCrawler {
+
+    private static final Logger logger = LogManager.getLogger(CatalogCrawler.class);
+    private static final Pattern PRODUCT_ID = Pattern.compile("[?&]product_id=(\\d+)");
+    private static final long POLL_MILLIS = 100;
+
+    private final String browser;
+    private final String os;
+    private final int workers;
+
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // Tasks that are queued or being visited; the crawl is over when it drops to zero
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param browser The browser name (e.g., "chrome", "firefox", "brave").
+     * @param os      The operating system (e.g., "linux", "windows").
+     * @param workers The number of sessions that crawl at the same time.
+     */
+    public CatalogCrawler(String browser, String os, int workers) {
+        this.browser = browser;
+        this.os = os;
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Returns the URL of the search listing for a term, with the given number of products per page.
+     *
+     * @param term  The search term.
+     * @param limit The number of products per listing page.
+     * @return The absolute URL on the active storefront.
+     */
+    public static String searchUrl(String term, int limit) {
+        return ConfigFileReader.getStorefrontBaseURL() + "index.php?route=product/search&search="
+                + URLEncoder.encode(term, StandardCharsets.UTF_8) + "&limit=" + limit;
+    }
+
+    /**
+     * Crawls the listings and the products they link to, waits until every page has been visited, and
+     * writes the report to {@code <report dir>/<timestamp>_CatalogCrawl.csv}.
+     *
+     * @param listingUrls The first page of each listing to start from.
+     * @return The report.
+     */
+    public CrawlReport crawl(List<String> listingUrls) {
+        CrawlReport report = new CrawlReport(workers);
+        listingUrls.forEach(url -> enqueue(new Task(url, null), url));
+        logger.info("Crawling {} listings with {} {} sessions", listingUrls.size(), workers, browser);
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int i = 0; i < workers; i++) {
+                executor.submit(() -> runWorker(report));
+            }
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - started));
+        report.setUnvisited(pending.get());
+        logger.info("Catalog crawl finished\n{}", report);
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        Path csvFile = ConfigFileReader.getReportDir().resolve(timestamp + "_CatalogCrawl.csv");
+        try {
+            report.writeCsv(csvFile);
+            logger.info("Crawl report written to {}", csvFile);
+        } catch (IOException e) {
+            logger.warn("Could not write the crawl report {}: {}", csvFile, e.getMessage());
+        }
+        return report;
+    }
+
+    private void runWorker(CrawlReport report) {
+        try {
+            DriverFactory.borrowDriver(browser, os);
+        } catch (RuntimeException e) {
+            report.recordFailure("session", e);
+            return;
+        }
+        try {
+            WebDriver driver = DriverFactory.getDriver();
+            // Page objects wait for their readiness contracts, and links that are absent must not wait
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+            driver.manage().timeouts().pageLoadTimeout(ConfigFileReader.getPageLoadTimeout());
+            while (pending.get() > 0) {
+                Task task = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    visit(driver, task, report);
+                } catch (RuntimeException e) {
+                    report.recordFailure(task.url(), e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            DriverFactory.returnDriver();
+        }
+    }
+
+    private void visit(WebDriver driver, Task task, CrawlReport report) {
+        long started = System.nanoTime();
+        driver.get(task.url());
+        if (task.isListing()) {
+            SearchResultsPage listing = new SearchResultsPage(driver);
+            Map<String, String> productLinks = listing.getProductLinks();
+            productLinks.forEach((url, name) -> enqueue(new Task(url, name), productKey(url)));
+            String nextPageUrl = listing.getNextPageUrl();
+            if (nextPageUrl != null) {
+                enqueue(new Task(nextPageUrl, null), nextPageUrl);
+            }
+            report.recordListing(System.nanoTime() - started, productLinks.size());
+            return;
+        }
+
+        ProductPage product;
+        try {
+            product = new ProductPage(driver);
+        } catch (TimeoutException e) {
+            report.recordFailure(task.url(), "product page did not become ready: missing product name header "
+                    + "or add to cart button");
+            return;
+        }
+        if (!isHeaderPresent(product)) {
+            report.recordFailure(task.url(), "product page is missing the product name header");
+            return;
+        }
+        String header = product.getProductNameHeaderText().trim();
+        if (!header.equalsIgnoreCase(task.productName())) {
+            report.recordFailure(task.url(), String.format("product page shows '%s' instead of '%s'",
+                    header, task.productName()));
+            return;
+        }
+        report.recordProduct(System.nanoTime() - started);
+    }
+
+    private static boolean isHeaderPresent(ProductPage product) {
+        try {
+            return product.isHeaderPresent();
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+
+    private void enqueue(Task task, String key) {
+        if (queued.add(key)) {
+            pending.incrementAndGet();
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Returns the key products are deduplicated by: links from different listings carry different
+     * parameters, e.g. {@code &search=}, but the same {@code product_id}.
+     */
+    private static String productKey(String url) {
+        Matcher matcher = PRODUCT_ID.matcher(url);
+        return matcher.find() ? "product:" + matcher.group(1) : url.replaceFirst("#.*", "");
+    }
+
+    /**
+     * A page to visit: a listing page, or a product page with the name its link showed.
+     */
+    private record Task(String url, String productName) {
+
+        private boolean isListing() {
+            return productName == null;
+        }
+    }
+}
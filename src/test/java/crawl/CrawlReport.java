@@ -0,0 +1,180 @@
+package crawl;
+
+import com.opencsv.CSVWriter;
+import load.LatencyHistogram;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a {@link CatalogCrawler} run: pages visited, pages per second, page latencies and
+ * every failed page.
+ */
+public class CrawlReport {
+
+    private final int workers;
+    private final LatencyHistogram listingLatencies = new LatencyHistogram();
+    private final LatencyHistogram productLatencies = new LatencyHistogram();
+    private final LongAdder productLinks = new LongAdder();
+    private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private Duration elapsed = Duration.ZERO;
+    private int unvisited;
+
+    /**
+     * A page that could not be visited or verified.
+     *
+     * @param url     The page URL, or {@code session} if a worker could not get a browser session.
+     * @param message What went wrong.
+     */
+    public record Failure(String url, String message) {
+
+        @Override
+        public String toString() {
+            return url + ": " + message;
+        }
+    }
+
+    CrawlReport(int workers) {
+        this.workers = workers;
+    }
+
+    void recordListing(long nanos, int links) {
+        listingLatencies.recordNanos(nanos);
+        productLinks.add(links);
+    }
+
+    void recordProduct(long nanos) {
+        productLatencies.recordNanos(nanos);
+    }
+
+    void recordFailure(String url, String message) {
+        failures.add(new Failure(url, message));
+    }
+
+    void recordFailure(String url, Exception error) {
+        String message = error.getMessage() == null ? "" : error.getMessage().lines().findFirst().orElse("");
+        recordFailure(url, error.getClass().getSimpleName() + ": " + message);
+    }
+
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    void setUnvisited(int unvisited) {
+        this.unvisited = unvisited;
+    }
+
+    public long getListingPages() {
+        return listingLatencies.getCount();
+    }
+
+    /**
+     * Returns the number of product pages that opened and showed the expected product.
+     *
+     * @return The verified products.
+     */
+    public long getVerifiedProducts() {
+        return productLatencies.getCount();
+    }
+
+    /**
+     * Returns the number of product links on all listing pages, including products listed more than once.
+     *
+     * @return The product links.
+     */
+    public long getProductLinks() {
+        return productLinks.sum();
+    }
+
+    public List<Failure> getFailures() {
+        return List.copyOf(failures);
+    }
+
+    /**
+     * Returns the number of queued pages that were never visited, because every worker stopped early.
+     *
+     * @return The unvisited pages.
+     */
+    public int getUnvisited() {
+        return unvisited;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the pages visited per second, listings and products together, including failed pages.
+     *
+     * @return The throughput in pages per second.
+     */
+    public double getPagesPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        long pages = getListingPages() + getVerifiedProducts() + failures.size();
+        return seconds == 0 ? 0 : pages / seconds;
+    }
+
+    /**
+     * Writes one row per page type, and one row per failed page, to a CSV file.
+     *
+     * @param csvFile The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeCsv(Path csvFile) throws IOException {
+        Files.createDirectories(csvFile.getParent());
+        double seconds = elapsed.toNanos() / 1e9;
+        try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile.toFile(), StandardCharsets.UTF_8))) {
+            writer.writeNext(new String[]{"workers", "page", "count", "pages_per_s", "mean_ms", "p50_ms", "p90_ms",
+                    "max_ms", "url", "error"});
+            writeLatencies(writer, "listing", listingLatencies, seconds);
+            writeLatencies(writer, "product", productLatencies, seconds);
+            for (Failure failure : failures) {
+                writer.writeNext(new String[]{String.valueOf(workers), "failed", "1", "", "", "", "", "",
+                        failure.url(), failure.message()});
+            }
+        }
+    }
+
+    /**
+     * Returns a summary with throughput, latencies and the failed pages.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "Crawl with %d workers: %d listing pages, %d product links, %d products verified, %d failures, "
+                        + "%d unvisited, %.1f s, %.2f pages/s%n", workers, getListingPages(), getProductLinks(),
+                getVerifiedProducts(), failures.size(), unvisited, elapsed.toMillis() / 1000.0, getPagesPerSecond()));
+        summary.append(String.format(Locale.ROOT, "%-10s %9s %9s %9s %9s%n", "page", "count", "p50 ms", "p90 ms",
+                "max ms"));
+        appendLatencies(summary, "listing", listingLatencies);
+        appendLatencies(summary, "product", productLatencies);
+        failures.forEach(failure -> summary.append("FAILED ").append(failure).append(System.lineSeparator()));
+        return summary.toString();
+    }
+
+    private void writeLatencies(CSVWriter writer, String page, LatencyHistogram latencies, double seconds) {
+        writer.writeNext(new String[]{String.valueOf(workers), page, String.valueOf(latencies.getCount()),
+                format(seconds == 0 ? 0 : latencies.getCount() / seconds), format(latencies.getMeanMillis()),
+                format(latencies.getPercentileMillis(50)), format(latencies.getPercentileMillis(90)),
+                format(latencies.getMaxMillis()), "", ""});
+    }
+
+    private static void appendLatencies(StringBuilder summary, String page, LatencyHistogram latencies) {
+        summary.append(String.format(Locale.ROOT, "%-10s %9d %9.1f %9.1f %9.1f%n", page, latencies.getCount(),
+                latencies.getPercentileMillis(50), latencies.getPercentileMillis(90), latencies.getMaxMillis()));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,143 @@
+package listeners;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import utils.ChunkedReport;
+import utils.ConfigFileReader;
+import utils.DataProviders;
+import utils.DataRowResults;
+import utils.FailureBundle;
+import utils.NetworkConditions;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a {@link ChunkedReport} per suite to {@code reports/<timestamp>_<suite>_report/}: a record
+ * per test with its status, timing, thread, network profile, data row, failure and links to its
+ * screenshot and failure bundle, streamed to disk as tests finish. The data-provider parameters are
+ * left out, as they may hold credentials. Register it after {@link ExtendReportListener}, which
+ * captures the failure artifacts. Disabled with {@code chunked_report=false}.
+ */
+public class ChunkedReportListener implements ITestListener, ISuiteListener {
+
+    private static final Logger logger = LogManager.getLogger(ChunkedReportListener.class);
+    private static final int MAX_STACK_TRACE_LENGTH = 8000;
+
+    private final Map<ISuite, ChunkedReport> reports = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!ConfigFileReader.isChunkedReportEnabled()) {
+            return;
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        Path directory = ConfigFileReader.getReportDir()
+                .resolve(timestamp + "_" + suite.getName().replaceAll("[^\\w.-]", "_") + "_report");
+        try {
+            reports.put(suite, new ChunkedReport(directory, suite.getName(), ConfigFileReader.getReportChunkSize()));
+        } catch (IOException e) {
+            logger.error("Could not create the chunked report in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        add(result, "passed");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        add(result, "failed");
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        add(result, "failed");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        add(result, "skipped");
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        ChunkedReport report = reports.remove(suite);
+        if (report == null) {
+            return;
+        }
+        try {
+            report.finish();
+            logger.info("Chunked report written to {}", report.getDirectory().resolve("index.html"));
+        } catch (IOException e) {
+            logger.error("Could not finish the chunked report in {}: {}", report.getDirectory(), e.getMessage());
+        }
+    }
+
+    private void add(ITestResult result, String status) {
+        ChunkedReport report = reports.get(result.getTestContext().getSuite());
+        if (report == null) {
+            return;
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        String className = result.getTestClass().getName();
+        String method = result.getMethod().getMethodName();
+        boolean dataRow = result.getParameters().length > 0;
+        int row = DataProviders.getRowIndex(result);
+        record.put("name", className.substring(className.lastIndexOf('.') + 1) + "." + method
+                + (dataRow ? " [row " + row + "]" : ""));
+        record.put("className", className);
+        record.put("method", method);
+        record.put("status", status);
+        record.put("start", result.getStartMillis());
+        record.put("durationMillis", result.getEndMillis() - result.getStartMillis());
+        record.put("thread", Thread.currentThread().getName());
+        if (result.getAttribute(NetworkConditions.PROFILE_ATTRIBUTE) instanceof String profile
+                && !profile.equals(NetworkConditions.NONE)) {
+            record.put("networkProfile", profile);
+        }
+        if (dataRow) {
+            record.put("row", row);
+        }
+        Throwable failure = result.getThrowable();
+        if (failure != null) {
+            record.put("message", String.valueOf(failure.getMessage()));
+            StringWriter stackTrace = new StringWriter();
+            failure.printStackTrace(new PrintWriter(stackTrace));
+            record.put("stackTrace", abbreviate(stackTrace.toString(), MAX_STACK_TRACE_LENGTH));
+        }
+
+        Map<String, String> links = new LinkedHashMap<>();
+        if (result.getAttribute(DataRowResults.SCREENSHOT_ATTRIBUTE) instanceof Path screenshot) {
+            links.put("screenshot", report.linkTo(screenshot));
+        }
+        if (result.getAttribute(FailureBundle.ARCHIVE_ATTRIBUTE) instanceof Path archive) {
+            links.put("failure bundle", report.linkTo(archive));
+        }
+        if (!links.isEmpty()) {
+            record.put("links", links);
+        }
+
+        try {
+            report.add(record);
+        } catch (IOException e) {
+            logger.error("Could not write to the chunked report in {}: {}", report.getDirectory(), e.getMessage());
+        }
+    }
+
+    private static String abbreviate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength) + "…";
+    }
+}
@@ -0,0 +1,115 @@
+package listeners;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+import utils.ConfigFileReader;
+import utils.DataProviders;
+import utils.DataRowResults;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the outcome of every data-provider row next to its inputs: for each data-driven test
+ * method, a copy of its data file with the status, duration, actual message and screenshot of each
+ * row, as {@code reports/<timestamp>_<test>_<method>_results.xlsx} (or {@code .csv}).
+ *
+ * <p>Outcomes are collected from the finished results when each {@code <test>} ends, so parallel
+ * rows never contend, and the files are written in one pass when the suite finishes. Tests set
+ * the actual message with {@code BaseTest.recordActualMessage}; failures without one get their
+ * failure message. Disabled with {@code data_row_results=false}.</p>
+ */
+public class DataRowResultsListener implements ITestListener, ISuiteListener {
+
+    private static final Logger logger = LogManager.getLogger(DataRowResultsListener.class);
+
+    private final Map<String, DataRowResults> results = new ConcurrentHashMap<>();
+
+    @Override
+    public void onFinish(ITestContext context) {
+        if (!ConfigFileReader.isDataRowResultsEnabled()) {
+            return;
+        }
+        List<ITestResult> rows = new ArrayList<>(context.getPassedTests().getAllResults());
+        rows.addAll(context.getFailedTests().getAllResults());
+        rows.addAll(context.getFailedButWithinSuccessPercentageTests().getAllResults());
+        rows.addAll(context.getSkippedTests().getAllResults());
+        // Retried rows: the last attempt wins
+        rows.sort(Comparator.comparingLong(ITestResult::getEndMillis));
+
+        for (ITestResult result : rows) {
+            String dataFile = getDataFile(result);
+            if (dataFile == null || result.getParameters().length == 0) {
+                continue;
+            }
+            String key = context.getName() + "_" + result.getMethod().getMethodName();
+            results.computeIfAbsent(key, name -> new DataRowResults(Path.of(dataFile)))
+                    .record(DataProviders.getRowIndex(result), toOutcome(result));
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        results.forEach((key, rowResults) -> {
+            String fileName = rowResults.getDataFile().getFileName().toString();
+            String extension = fileName.substring(fileName.lastIndexOf('.'));
+            Path resultsFile = ConfigFileReader.getReportDir()
+                    .resolve(timestamp + "_" + key.replaceAll("[^\\w.-]", "_") + "_results" + extension);
+            try {
+                rowResults.write(resultsFile);
+                logger.info("Results of {} rows of {} written to {}", rowResults.size(), fileName, resultsFile);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not write the row results of {}: {}", fileName, e.toString());
+            }
+        });
+        results.clear();
+    }
+
+    /**
+     * Returns the data file of the test's data provider, if it reads one from {@link DataProviders}.
+     */
+    private static String getDataFile(ITestResult result) {
+        Method method = result.getMethod().getConstructorOrMethod().getMethod();
+        Test test = method == null ? null : method.getAnnotation(Test.class);
+        if (test == null || test.dataProviderClass() != DataProviders.class) {
+            return null;
+        }
+        return DataProviders.getDataFile(test.dataProvider());
+    }
+
+    private static DataRowResults.Outcome toOutcome(ITestResult result) {
+        String actualMessage = "";
+        if (result.getAttribute(DataRowResults.ACTUAL_MESSAGE_ATTRIBUTE) instanceof String message) {
+            actualMessage = message;
+        } else if (result.getThrowable() != null && result.getThrowable().getMessage() != null) {
+            actualMessage = result.getThrowable().getMessage().lines().findFirst().orElse("");
+        }
+        Path screenshot = result.getAttribute(DataRowResults.SCREENSHOT_ATTRIBUTE) instanceof Path path ? path : null;
+        return new DataRowResults.Outcome(statusName(result.getStatus()),
+                result.getEndMillis() - result.getStartMillis(), actualMessage, screenshot);
+    }
+
+    private static String statusName(int status) {
+        return switch (status) {
+            case ITestResult.SUCCESS -> "passed";
+            case ITestResult.FAILURE, ITestResult.SUCCESS_PERCENTAGE_FAILURE -> "failed";
+            case ITestResult.SKIP -> "skipped";
+            default -> "status " + status;
+        };
+    }
+}
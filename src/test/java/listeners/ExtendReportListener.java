@@ -4,15 +4,28 @@ import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 import tests.BaseTest;
+import utils.ConfigFileReader;
+import utils.DataProviders;
+import utils.DataRowResults;
+import utils.DriverFactory;
+import utils.FailureBundle;
+import utils.Randomizer;
 import utils.ScreenshotUtils;
+import utils.SuiteMatrix;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -23,44 +36,71 @@ import java.util.List;
  * This listener logs test execution details, captures screenshots on failure, and provides rich reporting
  * for automation test suites.
  */
-public class ExtendReportListener implements ITestListener {
+public class ExtendReportListener implements ITestListener, ISuiteListener {
 
-    private ExtentReports extentReports;
-    private ExtentTest extentTest;
+    // Each test's report entry is kept on its result, so parallel data-provider rows log to their own entry
+    private static final String EXTENT_TEST_ATTRIBUTE = "extentTest";
+
+    private volatile ExtentReports extentReports;
 
     /**
      * Initializes the ExtentReports instance and configures the report file.
-     * This method is called before any test in the suite starts.
+     * This method is called once before any {@code <test>} of the suite starts, so the {@code <test>}s
+     * of an expanded matrix, which may run in parallel, share one report.
      *
-     * @param testContext The TestNG ITestContext instance containing information about the test suite.
+     * @param suite The TestNG ISuite instance of the suite that is about to run.
      */
     @Override
-    public void onStart(ITestContext testContext) {
+    public void onStart(ISuite suite) {
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss");
         String timestamp = LocalDateTime.now().format(dateFormatter);
         String reportFilename = timestamp + "_ExtentReport.html";
-        String reportFileAbsolutePath = String.format("%s/reports/%s",
-                System.getProperty("user.dir"),
+        String reportFileAbsolutePath = String.format("%s/%s",
+                ConfigFileReader.getReportDir().toAbsolutePath(),
                 reportFilename
         );
 
-        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportFileAbsolutePath);
-        sparkReporter.config().setDocumentTitle("OpenCart Automation Report");
-        sparkReporter.config().setReportName("Open Cart Functional Testing");
-        sparkReporter.config().setTheme(Theme.DARK);
-
         extentReports = new ExtentReports();
-        extentReports.attachReporter(sparkReporter);
+        // Large runs use the chunked report of ChunkedReportListener instead of the single-page HTML
+        if (ConfigFileReader.isExtentHtmlReportEnabled()) {
+            ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportFileAbsolutePath);
+            sparkReporter.config().setDocumentTitle("OpenCart Automation Report");
+            sparkReporter.config().setReportName("Open Cart Functional Testing");
+            sparkReporter.config().setTheme(Theme.DARK);
+            extentReports.attachReporter(sparkReporter);
+        }
+        // JSON archive, so reports of several runs (e.g. shards) can be merged
+        Path reportJson = ConfigFileReader.getReportJson();
+        if (reportJson != null) {
+            extentReports.attachReporter(new JsonFormatter(reportJson.toString()));
+        }
         extentReports.setSystemInfo("Application", "OpenCart");
         extentReports.setSystemInfo("Username", System.getProperty("user.name"));
+        extentReports.setSystemInfo("Random Seed", String.valueOf(Randomizer.getRunSeed()));
 
+        String effectiveMatrix = suite.getXmlSuite().getParameter(SuiteMatrix.EFFECTIVE_MATRIX_PARAMETER);
+        if (effectiveMatrix != null) {
+            extentReports.setSystemInfo("Matrix", effectiveMatrix);
+        }
+    }
+
+    /**
+     * Records the groups a {@code <test>} of the suite includes or excludes.
+     * This method is called before each {@code <test>} starts.
+     *
+     * @param testContext The TestNG ITestContext instance containing information about the {@code <test>}.
+     */
+    @Override
+    public void onStart(ITestContext testContext) {
+        String testName = testContext.getCurrentXmlTest().getName();
+        String suffix = testName == null || testName.isEmpty() ? "" : " (" + testName + ")";
         List<String> includedGroups = testContext.getCurrentXmlTest().getIncludedGroups();
         if (includedGroups != null && !includedGroups.isEmpty()) {
-            extentReports.setSystemInfo("Included Groups", includedGroups.toString());
+            extentReports.setSystemInfo("Included Groups" + suffix, includedGroups.toString());
         }
         List<String> excludedGroups = testContext.getCurrentXmlTest().getExcludedGroups();
         if (excludedGroups != null && !excludedGroups.isEmpty()) {
-            extentReports.setSystemInfo("Excluded Groups", excludedGroups.toString());
+            extentReports.setSystemInfo("Excluded Groups" + suffix, excludedGroups.toString());
         }
     }
 
@@ -77,7 +117,11 @@ public class ExtendReportListener implements ITestListener {
                 testResult.getTestClass().getName(),
                 testResult.getMethod().getMethodName()
                 );
-        extentTest = extentReports.createTest(testName);
+        if (testResult.getParameters().length > 0) {
+            testName += String.format(" [row %d]", DataProviders.getRowIndex(testResult));
+        }
+        ExtentTest extentTest = extentReports.createTest(testName);
+        testResult.setAttribute(EXTENT_TEST_ATTRIBUTE, extentTest);
         Logger logger = getLogger(testResult);
 
         // Log test start information
@@ -117,6 +161,7 @@ public class ExtendReportListener implements ITestListener {
      */
     @Override
     public void onTestSkipped(ITestResult testResult) {
+        ExtentTest extentTest = getExtentTest(testResult);
         extentTest.log(Status.SKIP, "Test skipped");
         extentTest.log(Status.INFO, testResult.getThrowable());
     }
@@ -129,28 +174,72 @@ public class ExtendReportListener implements ITestListener {
      */
     @Override
     public void onTestSuccess(ITestResult testResult) {
+        ExtentTest extentTest = getExtentTest(testResult);
+        logBudgetViolations(extentTest, testResult);
         extentTest.log(Status.PASS, "Test passed");
     }
 
     /**
      * Called when a test method fails.
-     * Logs the failure status, exception details, and captures a screenshot of the failure.
-     * The screenshot is saved to the file system and attached to the ExtentReport.
+     * Logs the failure status and exception details, and captures a failure bundle: screenshot, page source,
+     * URL, console logs, network requests and cookies. The screenshot is attached to the ExtentReport and
+     * the bundle archive is linked from it.
      *
      * @param testResult The TestNG ITestResult instance containing information about the test method.
      */
     @Override
     public void onTestFailure(ITestResult testResult) {
+        ExtentTest extentTest = getExtentTest(testResult);
+        logBudgetViolations(extentTest, testResult);
         extentTest.log(Status.FAIL, "Test failed");
         extentTest.fail(testResult.getThrowable());
 
-        // Take screenShot
         Logger logger = getLogger(testResult);
         WebDriver driver = getWebDriver(testResult);
 
         String methodName = testResult.getName();
         String exceptionMessage = testResult.getThrowable().getMessage();
         logger.info("{} test method failed. Exception message: {}", methodName, exceptionMessage);
+        if (driver == null) {
+            logger.warn("No WebDriver session for {}; skipping failure capture", methodName);
+            return;
+        }
+        if (!ConfigFileReader.isFailureBundleEnabled()) {
+            captureScreenshot(extentTest, testResult, logger, driver, methodName);
+            return;
+        }
+
+        logger.info("Capturing failure bundle");
+        FailureBundle.Capture capture = FailureBundle.capture(driver, methodName);
+        if (capture.screenshot() != null) {
+            extentTest.addScreenCaptureFromPath(capture.screenshot().toString());
+            testResult.setAttribute(DataRowResults.SCREENSHOT_ATTRIBUTE, capture.screenshot());
+        }
+        testResult.setAttribute(FailureBundle.ARCHIVE_ATTRIBUTE, capture.archive());
+        Path reportDir = ConfigFileReader.getReportDir().toAbsolutePath();
+        String archiveLink = reportDir.relativize(capture.archive().toAbsolutePath()).toString().replace('\\', '/');
+        extentTest.info(String.format("Failure bundle: <a href='%s'>%s</a> (captured in %d ms)",
+                archiveLink, capture.archive().getFileName(), capture.captureMillis()));
+        if (!capture.missing().isEmpty()) {
+            extentTest.warning("Not captured: " + String.join("; ", capture.missing()));
+        }
+        logger.info("Failure bundle will be written to: {}", capture.archive());
+    }
+
+    /**
+     * Logs the performance budgets the test exceeded, as recorded by {@link PerformanceBudgetListener}.
+     */
+    private void logBudgetViolations(ExtentTest extentTest, ITestResult testResult) {
+        if (testResult.getAttribute(PerformanceBudgetListener.VIOLATIONS_ATTRIBUTE) instanceof List<?> violations) {
+            violations.forEach(violation -> extentTest.warning("Performance budget: " + violation));
+        }
+    }
+
+    /**
+     * Captures a screenshot of the failure and attaches it to the ExtentReport.
+     */
+    private void captureScreenshot(ExtentTest extentTest, ITestResult testResult, Logger logger, WebDriver driver,
+                                   String methodName) {
         logger.info("Taking screenshot");
         String screenshotName = String.format("%s/screenshots/%s_failed_%s.png",
                 System.getProperty("user.dir"),
@@ -161,6 +250,7 @@ public class ExtendReportListener implements ITestListener {
         try {
             ScreenshotUtils.captureFullViewPortScreenshot(driver, screenshotName);
             extentTest.addScreenCaptureFromPath(screenshotName);
+            testResult.setAttribute(DataRowResults.SCREENSHOT_ATTRIBUTE, Path.of(screenshotName));
             logger.info("Screenshot saved at: {}", screenshotName);
         } catch (IOException e) {
             logger.error("Failed to capture screenshot: {}", e.getMessage());
@@ -168,42 +258,61 @@ public class ExtendReportListener implements ITestListener {
     }
 
     /**
-     * Called after all tests in the suite have finished.
+     * Called after all {@code <test>}s of the suite have finished.
      * Flushes the ExtentReports to ensure all test information is written to the report file.
      *
-     * @param testContext The TestNG ITestContext instance containing information about the test suite.
+     * @param suite The TestNG ISuite instance of the suite that has finished.
      */
     @Override
-    public void onFinish(ITestContext testContext) {
+    public void onFinish(ISuite suite) {
+        FailureBundle.awaitPendingWrites(Duration.ofSeconds(30));
         if (extentReports != null) {
             extentReports.flush();
         }
     }
 
+    /**
+     * Returns the report entry created for the test in {@link #onTestStart}. Tests skipped before they
+     * started, e.g. because a configuration method failed, get an entry here.
+     *
+     * @param testResult The TestNG result object of the test.
+     * @return The report entry of the test.
+     */
+    private ExtentTest getExtentTest(ITestResult testResult) {
+        if (testResult.getAttribute(EXTENT_TEST_ATTRIBUTE) instanceof ExtentTest extentTest) {
+            return extentTest;
+        }
+        ExtentTest extentTest = extentReports.createTest(String.format("%s.%s",
+                testResult.getTestClass().getName(), testResult.getMethod().getMethodName()));
+        testResult.setAttribute(EXTENT_TEST_ATTRIBUTE, extentTest);
+        return extentTest;
+    }
+
     /**
      * Retrieves the logger instance from the test class.
-     * Assumes the test class extends BaseTest.
+     * Falls back to a logger named after the test class if the test class does not extend BaseTest.
      *
      * @param testResult The TestNG result object containing the test instance.
      * @return The logger instance from the test class.
-     * @throws ClassCastException If the test instance is not a subclass of BaseTest.
      */
     private Logger getLogger(ITestResult testResult) {
-        BaseTest currentInstance = (BaseTest) testResult.getInstance();
-        Logger logger = currentInstance.getLogger();
-        return logger;
+        if (testResult.getInstance() instanceof BaseTest currentInstance && currentInstance.getLogger() != null) {
+            return currentInstance.getLogger();
+        }
+        return LogManager.getLogger(testResult.getTestClass().getRealClass());
     }
 
     /**
      * Retrieves the WebDriver instance from the test class.
-     * Assumes the test class extends BaseTest.
+     * Falls back to the current thread's driver if the test class does not extend BaseTest.
      *
      * @param testResult The TestNG result object containing the test instance.
-     * @return The WebDriver instance from the test class.
-     * @throws ClassCastException If the test instance is not a subclass of BaseTest.
+     * @return The WebDriver instance from the test class, or {@code null} if there is none.
      */
     private WebDriver getWebDriver(ITestResult testResult) {
-        BaseTest currentInstance = (BaseTest) testResult.getInstance();
-        return currentInstance.getDriver();
+        if (testResult.getInstance() instanceof BaseTest currentInstance) {
+            return currentInstance.getDriver();
+        }
+        return DriverFactory.getDriver();
     }
 }
@@ -0,0 +1,87 @@
+package listeners;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import utils.DriverFactory;
+import utils.PageTimings;
+import utils.PerformanceBudgets;
+import utils.PerformanceHistory;
+
+import java.util.List;
+
+/**
+ * A TestNG listener that checks the page timings of every test against the {@link PerformanceBudgets}.
+ *
+ * <p>After each test method, the remaining metrics of the page the test ended on are recorded and
+ * the pages the test visited are checked against their budgets. Violations of {@code fail} budgets
+ * turn a passed test into a failed one; all violations are attached to the test result under
+ * {@link #VIOLATIONS_ATTRIBUTE}, for the report. At the end of the suite, the whole run is checked
+ * and appended to the {@link PerformanceHistory}.</p>
+ */
+public class PerformanceBudgetListener implements IInvokedMethodListener, ISuiteListener {
+
+    /**
+     * Test result attribute holding the budget violations of the test, as a list of descriptions.
+     */
+    public static final String VIOLATIONS_ATTRIBUTE = "performanceBudgetViolations";
+
+    private static final Logger logger = LogManager.getLogger(PerformanceBudgetListener.class);
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            PageTimings.startTest();
+        }
+    }
+
+    /**
+     * Checks the pages visited by a test method against their budgets.
+     *
+     * @param method     The invoked method.
+     * @param testResult The result of the method, which is changed to a failure for violated {@code fail} budgets.
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        WebDriver driver = DriverFactory.getDriver();
+        if (driver != null) {
+            PageTimings.recordLeavingPage(driver);
+        }
+
+        List<PerformanceBudgets.Violation> violations = PerformanceBudgets.evaluate(PageTimings.getTestStatistics());
+        if (violations.isEmpty()) {
+            return;
+        }
+        testResult.setAttribute(VIOLATIONS_ATTRIBUTE, violations.stream().map(Object::toString).toList());
+        violations.forEach(violation -> logger.warn("{}: {}", testResult.getName(), violation));
+
+        List<String> failures = violations.stream()
+                .filter(violation -> violation.budget().level() == PerformanceBudgets.Level.FAIL)
+                .map(Object::toString)
+                .toList();
+        if (!failures.isEmpty() && testResult.getStatus() == ITestResult.SUCCESS) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError("Performance budget exceeded: " + String.join("; ", failures)));
+        }
+    }
+
+    /**
+     * Checks the whole run against the budgets and appends it to the performance history.
+     *
+     * @param suite The finished suite.
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        PerformanceBudgets.evaluate(PageTimings.getStatistics())
+                .forEach(violation -> logger.warn("Suite '{}': {}", suite.getName(), violation));
+        PerformanceHistory.append(PageTimings.getStatistics());
+    }
+}
@@ -0,0 +1,152 @@
+package listeners;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.testng.IClassListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestClass;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import utils.ConfigFileReader;
+import utils.DataProviders;
+import utils.RunProgress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the live progress of the suite over HTTP on the loopback interface, when
+ * {@code progress_endpoint=true}:
+ * <ul>
+ *     <li>{@code /progress}: JSON with the test counts, running and queued tests, open sessions per
+ *     browser, tests per minute, average duration per test class and an ETA.</li>
+ *     <li>{@code /metrics}: the same numbers in the Prometheus text format.</li>
+ * </ul>
+ *
+ * <p>The listener only updates the lock-free counters of {@link RunProgress}; the numbers are derived
+ * on the server's own thread when a client asks for them. Tests per minute is measured over the last
+ * minute of requests, so the ETA follows the current pace rather than the average of the run.</p>
+ */
+public class ProgressListener implements ISuiteListener, IClassListener, ITestListener {
+
+    private static final Logger logger = LogManager.getLogger(ProgressListener.class);
+    private static final long RATE_WINDOW_NANOS = 60_000_000_000L;
+    private static final long MIN_RATE_WINDOW_NANOS = 10_000_000_000L;
+    private static final Json JSON = new Json();
+
+    private final Map<ITestClass, Long> classStartNanos = new ConcurrentHashMap<>();
+    // (time, completed tests) samples of the last minute, only used on the server thread
+    private final Deque<long[]> samples = new ArrayDeque<>();
+    private HttpServer server;
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!ConfigFileReader.isProgressEndpointEnabled()) {
+            return;
+        }
+        RunProgress.suiteStarted(suite.getAllMethods().stream().mapToLong(ITestNGMethod::getInvocationCount).sum());
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    ConfigFileReader.getProgressPort()), 0);
+        } catch (IOException e) {
+            logger.error("Could not start the progress endpoint on port {}: {}",
+                    ConfigFileReader.getProgressPort(), e.getMessage());
+            return;
+        }
+        server.createContext("/progress", exchange -> respond(exchange, "application/json",
+                JSON.toJson(snapshot().toMap())));
+        server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4",
+                snapshot().toPrometheus()));
+        server.start();
+        logger.info("Run progress at http://{}:{}/progress and /metrics",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    @Override
+    public void onBeforeClass(ITestClass testClass) {
+        if (server != null) {
+            classStartNanos.put(testClass, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onAfterClass(ITestClass testClass) {
+        Long startNanos = classStartNanos.remove(testClass);
+        if (startNanos != null) {
+            RunProgress.classFinished(testClass.getRealClass().getSimpleName(), System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        RunProgress.testStarted(result.getParameters().length > 0 && DataProviders.getRowIndex(result) > 0);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        RunProgress.testFinished("passed");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        RunProgress.testFinished("failed");
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        RunProgress.testFinished("failed");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        RunProgress.testFinished("skipped");
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Takes a snapshot with the completion rate over the last minute of requests, or since the suite
+     * started if the earliest request of that minute was less than 10 s ago.
+     */
+    private synchronized RunProgress.Snapshot snapshot() {
+        long now = System.nanoTime();
+        long completed = RunProgress.completedTests();
+        while (!samples.isEmpty() && now - samples.peekFirst()[0] > RATE_WINDOW_NANOS) {
+            samples.removeFirst();
+        }
+        double testsPerMinute = -1;
+        if (!samples.isEmpty() && now - samples.peekFirst()[0] >= MIN_RATE_WINDOW_NANOS) {
+            long[] oldest = samples.peekFirst();
+            testsPerMinute = (completed - oldest[1]) * 60e9 / (now - oldest[0]);
+        }
+        samples.addLast(new long[]{now, completed});
+        return RunProgress.snapshot(testsPerMinute);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
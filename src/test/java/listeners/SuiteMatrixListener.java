@@ -0,0 +1,41 @@
+package listeners;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+import utils.ExecutionCapacity;
+import utils.SuiteMatrix;
+
+import java.util.List;
+
+/**
+ * A TestNG listener that builds the tests of a suite from its matrix parameters at launch.
+ *
+ * <p>Suites that declare {@code matrix.browsers} get their {@code <test>} blocks generated by
+ * {@link SuiteMatrix}, with the parallel mode and thread count sized to the capacity reported by
+ * {@link ExecutionCapacity}. Other suites are left unchanged. See {@code testng-matrix.xml}.</p>
+ */
+public class SuiteMatrixListener implements IAlterSuiteListener {
+
+    private static final Logger logger = LogManager.getLogger(SuiteMatrixListener.class);
+
+    /**
+     * Expands the matrix of every suite that declares one.
+     *
+     * @param suites The suites about to run.
+     */
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        for (XmlSuite suite : suites) {
+            if (suite.getParameter("matrix.browsers") == null && System.getProperty("matrix.browsers") == null) {
+                continue;
+            }
+
+            SuiteMatrix matrix = SuiteMatrix.fromParameters(suite.getParameters());
+            int capacity = ExecutionCapacity.getSessionCapacity(matrix.getBrowsers());
+            matrix.applyTo(suite, capacity);
+            logger.info("Suite '{}': {}", suite.getName(), suite.getParameter(SuiteMatrix.EFFECTIVE_MATRIX_PARAMETER));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package listeners;
+
+import org.testng.IClassListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestClass;
+import org.testng.ITestResult;
+import utils.DataProviders;
+import utils.Tracer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the TestNG lifecycle in the {@link Tracer} timeline: a track per suite and per test class,
+ * and a span per configuration and test method on the thread that runs it. Writes the timeline when
+ * the suite finishes. Does nothing unless {@code trace_timeline=true}.
+ */
+public class TraceListener implements ISuiteListener, IClassListener, IInvokedMethodListener {
+
+    private static final String SPAN_ATTRIBUTE = "traceSpan";
+
+    private final Map<Object, Tracer.Span> spans = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (Tracer.isEnabled()) {
+            // Each suite gets a timeline of its own, also when several suites run in one JVM
+            Tracer.reset();
+            spans.put(suite, Tracer.beginTrack("suite " + suite.getName(), "suite"));
+        }
+    }
+
+    @Override
+    public void onBeforeClass(ITestClass testClass) {
+        if (Tracer.isEnabled()) {
+            spans.put(testClass, Tracer.beginTrack(testClass.getRealClass().getSimpleName(), "class"));
+        }
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (Tracer.isEnabled()) {
+            Tracer.Span span = Tracer.begin(testResult.getMethod().getMethodName(),
+                    method.isTestMethod() ? "test" : "configuration");
+            // Only the data-provider row, as parameters may hold credentials
+            if (testResult.getParameters().length > 0) {
+                span.arg("row", DataProviders.getRowIndex(testResult));
+            }
+            testResult.setAttribute(SPAN_ATTRIBUTE, span);
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (Tracer.isEnabled() && testResult.removeAttribute(SPAN_ATTRIBUTE) instanceof Tracer.Span span) {
+            Tracer.endPageAction();
+            span.arg("status", statusName(testResult.getStatus())).end();
+        }
+    }
+
+    @Override
+    public void onAfterClass(ITestClass testClass) {
+        Tracer.Span span = spans.remove(testClass);
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        Tracer.Span span = spans.remove(suite);
+        if (span != null) {
+            span.end();
+            Tracer.write(suite.getName());
+        }
+    }
+
+    private static String statusName(int status) {
+        return switch (status) {
+            case ITestResult.SUCCESS -> "passed";
+            case ITestResult.FAILURE -> "failed";
+            case ITestResult.SKIP -> "skipped";
+            default -> "status " + status;
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * <p>Values are recorded in microseconds. Below 128 µs every value has its own bucket; above, each
+ * power of two is split into 64 buckets, so every recorded value is reported with a relative error
+ * below 1.6% up to about 76 hours. Recording only updates atomic counters, so thousands of virtual users
+ * can record into the same histogram without locking.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + SUB_BUCKET_BITS)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT + 2) * SUB_BUCKET_HALF);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(0, nanos / 1000), MAX_VALUE);
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : totalMicros.sum() / 1000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Returns a percentile of the recorded latencies, as the highest value of the bucket it falls into.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The percentile in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(index), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    static int indexOf(long micros) {
+        if (micros < 2 * SUB_BUCKET_HALF) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+        return (exponent << (SUB_BUCKET_BITS - 1)) + (int) (micros >>> exponent);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+        int exponent = (index >>> (SUB_BUCKET_BITS - 1)) - 1;
+        long lowest = (long) (index - (exponent << (SUB_BUCKET_BITS - 1))) << exponent;
+        return lowest + (1L << exponent) - 1;
+    }
+}
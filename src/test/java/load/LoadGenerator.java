@@ -0,0 +1,127 @@
+package load;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs a {@link Scenario} as HTTP-level load, with one virtual thread per virtual user.
+ *
+ * <p>Blocking HTTP calls on virtual threads keep the scenarios as plain sequential code while a single
+ * JVM drives thousands of concurrent users: a waiting user only holds a small heap-allocated stack, not
+ * an OS thread. All users share one {@link HttpClient} and its connection pool.</p>
+ *
+ * <p>Users are started evenly over the ramp-up and go through the scenario repeatedly until the run
+ * duration is over, with a think time between steps and an optional pacing interval between
+ * iterations. A failed step ends the user's current iteration. Latencies of successful steps and
+ * errors are reported per step in a {@link LoadReport}; think time is not included in latencies.</p>
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+
+    /**
+     * @param baseUrl The storefront base URL, e.g. {@code http://127.0.0.1:8085/demo/}.
+     */
+    public LoadGenerator(String baseUrl) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+    }
+
+    /**
+     * Runs the scenario with the given profile and waits until every user has stopped.
+     *
+     * @param scenario The scenario each user runs.
+     * @param profile  The load profile.
+     * @return The results per step.
+     */
+    public LoadReport run(Scenario scenario, LoadProfile profile) {
+        LoadReport report = new LoadReport(scenario, profile);
+        logger.info("Starting load scenario '{}' against {}: {}", scenario.getName(), baseUri, profile);
+
+        List<Scenario.NamedStep> steps = scenario.getSteps();
+        long started = System.nanoTime();
+        long deadline = started + profile.getDuration().toNanos();
+        // Resources are closed in reverse order: the users finish before the client is closed
+        try (HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(REQUEST_TIMEOUT)
+                     .followRedirects(HttpClient.Redirect.NEVER)
+                     .build();
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int id = 0; id < profile.getUsers(); id++) {
+                long startAt = started + profile.getRampUp().toNanos() * id / profile.getUsers();
+                VirtualUser user = new VirtualUser(id, client, baseUri, REQUEST_TIMEOUT);
+                users.submit(() -> runUser(user, steps, profile, report, startAt, deadline));
+            }
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - started));
+        logger.info("Load scenario finished\n{}", report);
+        return report;
+    }
+
+    private void runUser(VirtualUser user, List<Scenario.NamedStep> steps, LoadProfile profile, LoadReport report,
+                         long startAt, long deadline) {
+        try {
+            sleepUntil(startAt, deadline);
+            while (System.nanoTime() < deadline) {
+                long iterationStart = System.nanoTime();
+                runIteration(user, steps, profile, report, deadline);
+                sleepUntil(iterationStart + profile.getPacing().toNanos(), deadline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the steps of one iteration until the first failure. An iteration cut short by the end of
+     * the run is not counted.
+     */
+    private void runIteration(VirtualUser user, List<Scenario.NamedStep> steps, LoadProfile profile, LoadReport report,
+                              long deadline) throws InterruptedException {
+        boolean first = true;
+        for (Scenario.NamedStep step : steps) {
+            if (!first) {
+                sleepUntil(System.nanoTime() + jitter(profile.getThinkTime().toNanos()), deadline);
+            }
+            first = false;
+            if (System.nanoTime() >= deadline) {
+                return;
+            }
+
+            long stepStart = System.nanoTime();
+            try {
+                step.action().run(user);
+                report.recordSuccess(step.name(), System.nanoTime() - stepStart);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                report.recordError(step.name(), e);
+                report.recordIteration(false);
+                return;
+            }
+        }
+        report.recordIteration(true);
+    }
+
+    private static long jitter(long nanos) {
+        return nanos <= 0 ? 0 : nanos / 2 + ThreadLocalRandom.current().nextLong(nanos + 1);
+    }
+
+    private static void sleepUntil(long time, long deadline) throws InterruptedException {
+        long remaining = Math.min(time, deadline) - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(Duration.ofNanos(remaining));
+        }
+    }
+}
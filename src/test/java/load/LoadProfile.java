@@ -0,0 +1,127 @@
+package load;
+
+import utils.ConfigFileReader;
+
+import java.time.Duration;
+
+/**
+ * How a {@link LoadGenerator} applies load: the number of virtual users, how they are started and how
+ * fast each of them goes through its scenario.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     LoadProfile profile = new LoadProfile()
+ *             .users(1000)
+ *             .rampUp(Duration.ofSeconds(30))
+ *             .thinkTime(Duration.ofMillis(500))
+ *             .duration(Duration.ofMinutes(5));
+ * </pre>
+ */
+public class LoadProfile {
+
+    private int users = 1;
+    private Duration rampUp = Duration.ZERO;
+    private Duration thinkTime = Duration.ZERO;
+    private Duration pacing = Duration.ZERO;
+    private Duration duration = Duration.ofSeconds(10);
+
+    /**
+     * Returns the profile configured by the {@code load_*} settings.
+     *
+     * @return The configured profile.
+     */
+    public static LoadProfile fromConfig() {
+        return new LoadProfile()
+                .users(ConfigFileReader.getLoadUsers())
+                .rampUp(ConfigFileReader.getLoadRampUp())
+                .thinkTime(ConfigFileReader.getLoadThinkTime())
+                .pacing(ConfigFileReader.getLoadPacing())
+                .duration(ConfigFileReader.getLoadDuration());
+    }
+
+    /**
+     * Sets the number of concurrent virtual users.
+     *
+     * @param users The number of users, at least 1.
+     * @return This profile, for chaining.
+     */
+    public LoadProfile users(int users) {
+        if (users < 1) {
+            throw new IllegalArgumentException("A load profile needs at least one user");
+        }
+        this.users = users;
+        return this;
+    }
+
+    /**
+     * Sets the time over which the users are started, evenly spaced.
+     *
+     * @param rampUp The ramp-up time; zero starts all users at once.
+     * @return This profile, for chaining.
+     */
+    public LoadProfile rampUp(Duration rampUp) {
+        this.rampUp = rampUp;
+        return this;
+    }
+
+    /**
+     * Sets the average pause between two steps of a user. The actual pause varies randomly
+     * between half and one and a half times this value, so users do not move in lockstep.
+     *
+     * @param thinkTime The average think time.
+     * @return This profile, for chaining.
+     */
+    public LoadProfile thinkTime(Duration thinkTime) {
+        this.thinkTime = thinkTime;
+        return this;
+    }
+
+    /**
+     * Sets the minimum time between the starts of two iterations of a user, which caps each user's
+     * iteration rate independently of how fast the system responds.
+     *
+     * @param pacing The pacing interval; zero starts the next iteration right away.
+     * @return This profile, for chaining.
+     */
+    public LoadProfile pacing(Duration pacing) {
+        this.pacing = pacing;
+        return this;
+    }
+
+    /**
+     * Sets the total run time, including the ramp-up.
+     *
+     * @param duration The run time.
+     * @return This profile, for chaining.
+     */
+    public LoadProfile duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public Duration getRampUp() {
+        return rampUp;
+    }
+
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+
+    public Duration getPacing() {
+        return pacing;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d users, ramp-up %d s, think time %d ms, pacing %d ms, duration %d s",
+                users, rampUp.toSeconds(), thinkTime.toMillis(), pacing.toMillis(), duration.toSeconds());
+    }
+}
@@ -0,0 +1,176 @@
+package load;
+
+import com.opencsv.CSVWriter;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a load run: throughput, latency percentiles and errors per scenario step.
+ */
+public class LoadReport {
+
+    private static final int MAX_ERROR_SAMPLES = 5;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String scenario;
+    private final LoadProfile profile;
+    private final Map<String, StepStats> steps = new LinkedHashMap<>();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder failedIterations = new LongAdder();
+    private Duration elapsed = Duration.ZERO;
+
+    LoadReport(Scenario scenario, LoadProfile profile) {
+        this.scenario = scenario.getName();
+        this.profile = profile;
+        scenario.getStepNames().forEach(name -> steps.put(name, new StepStats()));
+    }
+
+    void recordSuccess(String step, long nanos) {
+        steps.get(step).latencies.recordNanos(nanos);
+    }
+
+    void recordError(String step, Exception error) {
+        StepStats stats = steps.get(step);
+        stats.errors.increment();
+        if (stats.errorSampleCount.getAndIncrement() < MAX_ERROR_SAMPLES) {
+            stats.errorSamples.add(error.toString());
+        }
+    }
+
+    void recordIteration(boolean successful) {
+        iterations.increment();
+        if (!successful) {
+            failedIterations.increment();
+        }
+    }
+
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    public long getFailedIterations() {
+        return failedIterations.sum();
+    }
+
+    public List<String> getStepNames() {
+        return new ArrayList<>(steps.keySet());
+    }
+
+    public LatencyHistogram getLatencies(String step) {
+        return steps.get(step).latencies;
+    }
+
+    public long getErrors(String step) {
+        return steps.get(step).errors.sum();
+    }
+
+    /**
+     * Returns the first few errors of a step, for diagnosis.
+     *
+     * @param step The step name.
+     * @return Up to five error descriptions.
+     */
+    public List<String> getErrorSamples(String step) {
+        return List.copyOf(steps.get(step).errorSamples);
+    }
+
+    /**
+     * Returns the successful executions of a step per second over the whole run, including the ramp-up.
+     *
+     * @param step The step name.
+     * @return The throughput in steps per second.
+     */
+    public double getThroughput(String step) {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0 : getLatencies(step).getCount() / seconds;
+    }
+
+    /**
+     * Returns the share of failed executions over all steps.
+     *
+     * @return The error ratio, from 0 to 1.
+     */
+    public double getErrorRatio() {
+        long errors = 0;
+        long total = 0;
+        for (String step : steps.keySet()) {
+            errors += getErrors(step);
+            total += getErrors(step) + getLatencies(step).getCount();
+        }
+        return total == 0 ? 0 : (double) errors / total;
+    }
+
+    /**
+     * Writes one row per step to a CSV file.
+     *
+     * @param csvFile The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeCsv(Path csvFile) throws IOException {
+        Files.createDirectories(csvFile.getParent());
+        try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile.toFile(), StandardCharsets.UTF_8))) {
+            writer.writeNext(new String[]{"scenario", "step", "count", "errors", "throughput_per_s",
+                    "mean_ms", "p50_ms", "p90_ms", "p99_ms", "p99_9_ms", "max_ms"});
+            for (String step : steps.keySet()) {
+                LatencyHistogram latencies = getLatencies(step);
+                List<String> row = new ArrayList<>(List.of(scenario, step, String.valueOf(latencies.getCount()),
+                        String.valueOf(getErrors(step)), format(getThroughput(step)), format(latencies.getMeanMillis())));
+                for (double percentile : PERCENTILES) {
+                    row.add(format(latencies.getPercentileMillis(percentile)));
+                }
+                row.add(format(latencies.getMaxMillis()));
+                writer.writeNext(row.toArray(new String[0]));
+            }
+        }
+    }
+
+    /**
+     * Returns a summary table with one line per step.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "Scenario '%s' (%s): %d iterations, %d failed, %.1f s%n", scenario, profile,
+                getIterations(), getFailedIterations(), elapsed.toMillis() / 1000.0));
+        summary.append(String.format(Locale.ROOT, "%-20s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (String step : steps.keySet()) {
+            LatencyHistogram latencies = getLatencies(step);
+            summary.append(String.format(Locale.ROOT, "%-20s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    step, latencies.getCount(), getErrors(step), getThroughput(step),
+                    latencies.getPercentileMillis(50), latencies.getPercentileMillis(90),
+                    latencies.getPercentileMillis(99), latencies.getPercentileMillis(99.9), latencies.getMaxMillis()));
+        }
+        return summary.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static class StepStats {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicInteger errorSampleCount = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String> errorSamples = new ConcurrentLinkedQueue<>();
+    }
+}
@@ -0,0 +1,77 @@
+package load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A user flow as a sequence of named HTTP-level steps, run repeatedly by every virtual user of a
+ * {@link LoadGenerator}. Latencies and errors are reported per step name.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     Scenario search = new Scenario("search")
+ *             .step("home", user -&gt; user.get("common/home").expectStatus(200))
+ *             .step("search", user -&gt; user.get("product/search", Map.of("search", "imac")).expectContains("iMac"));
+ * </pre>
+ */
+public class Scenario {
+
+    /**
+     * One step of a scenario. A step that throws fails the current iteration; the virtual user
+     * then starts the next iteration.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void run(VirtualUser user) throws IOException, InterruptedException;
+    }
+
+    /**
+     * A step with the name it is reported under.
+     *
+     * @param name   The step name.
+     * @param action The step.
+     */
+    public record NamedStep(String name, Step action) {
+    }
+
+    private final String name;
+    private final List<NamedStep> steps = new ArrayList<>();
+
+    public Scenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds a step to the end of the scenario.
+     *
+     * @param stepName The name the step's latencies are reported under.
+     * @param action   The step.
+     * @return This scenario, for chaining.
+     */
+    public Scenario step(String stepName, Step action) {
+        steps.add(new NamedStep(stepName, action));
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<NamedStep> getSteps() {
+        return List.copyOf(steps);
+    }
+
+    /**
+     * Returns the distinct step names, in the order they first appear.
+     *
+     * @return The step names.
+     */
+    public Set<String> getStepNames() {
+        Set<String> names = new LinkedHashSet<>();
+        steps.forEach(step -> names.add(step.name()));
+        return names;
+    }
+}
@@ -0,0 +1,172 @@
+package load;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * One simulated shopper: a cookie jar on top of the generator's shared {@link HttpClient}.
+ *
+ * <p>All users share one client and its connection pool, because a client per user would cost a
+ * selector thread each. Cookies are therefore kept per user here, and redirects are followed here
+ * so that cookies set on a redirect, such as the session after a login, are sent on with it.</p>
+ */
+public class VirtualUser {
+
+    private static final int MAX_REDIRECTS = 5;
+
+    private final int id;
+    private final HttpClient client;
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private final Map<String, String> variables = new HashMap<>();
+
+    VirtualUser(int id, HttpClient client, URI baseUri, Duration requestTimeout) {
+        this.id = id;
+        this.client = client;
+        this.baseUri = baseUri;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Keeps a value for later steps of this user, e.g. a product id found by a search step.
+     */
+    public void setVariable(String name, String value) {
+        variables.put(name, value);
+    }
+
+    public String getVariable(String name) {
+        return variables.get(name);
+    }
+
+    /**
+     * Requests a storefront route, e.g. {@code product/search}.
+     *
+     * @param route The OpenCart route.
+     * @return The response, after following redirects.
+     * @throws IOException If the request fails.
+     */
+    public Response get(String route) throws IOException, InterruptedException {
+        return get(route, Map.of());
+    }
+
+    /**
+     * Requests a storefront route with additional query parameters.
+     *
+     * @param route       The OpenCart route.
+     * @param queryParams The query parameters besides the route.
+     * @return The response, after following redirects.
+     * @throws IOException If the request fails.
+     */
+    public Response get(String route, Map<String, String> queryParams) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder().GET(), routeUri(route, queryParams));
+    }
+
+    /**
+     * Submits a form to a storefront route, like a browser form post or the storefront's XHR calls.
+     *
+     * @param route The OpenCart route.
+     * @param form  The form fields.
+     * @return The response, after following redirects.
+     * @throws IOException If the request fails.
+     */
+    public Response post(String route, Map<String, String> form) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(form)));
+        return send(builder, routeUri(route, Map.of()));
+    }
+
+    private Response send(HttpRequest.Builder builder, URI uri) throws IOException, InterruptedException {
+        for (int redirect = 0; redirect <= MAX_REDIRECTS; redirect++) {
+            builder.uri(uri).timeout(requestTimeout);
+            if (!cookies.isEmpty()) {
+                builder.setHeader("Cookie", cookies.entrySet().stream()
+                        .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+                        .collect(Collectors.joining("; ")));
+            }
+            HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            storeCookies(response);
+
+            Optional<String> location = response.headers().firstValue("Location");
+            if (response.statusCode() / 100 != 3 || location.isEmpty()) {
+                return new Response(response.statusCode(), response.body(), uri);
+            }
+            uri = uri.resolve(location.get());
+            builder = HttpRequest.newBuilder().GET();
+        }
+        throw new IOException("Too many redirects for " + uri);
+    }
+
+    private void storeCookies(HttpResponse<?> response) {
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                if (cookie.getMaxAge() == 0) {
+                    cookies.remove(cookie.getName());
+                } else {
+                    cookies.put(cookie.getName(), cookie.getValue());
+                }
+            }
+        }
+    }
+
+    private URI routeUri(String route, Map<String, String> queryParams) {
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("route", route);
+        query.putAll(queryParams);
+        return baseUri.resolve("index.php?" + encode(query));
+    }
+
+    private static String encode(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * A response, with checks that fail the current step.
+     *
+     * @param status The HTTP status code.
+     * @param body   The response body.
+     * @param uri    The URI that returned the response, after redirects.
+     */
+    public record Response(int status, String body, URI uri) {
+
+        /**
+         * @throws IllegalStateException If the response has a different status code.
+         */
+        public Response expectStatus(int expected) {
+            if (status != expected) {
+                throw new IllegalStateException("Expected HTTP " + expected + " but got " + status + " for " + uri);
+            }
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException If the response body does not contain the text.
+         */
+        public Response expectContains(String text) {
+            if (body == null || !body.contains(text)) {
+                throw new IllegalStateException("Response of " + uri + " does not contain '" + text + "'");
+            }
+            return this;
+        }
+    }
+}
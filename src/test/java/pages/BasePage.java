@@ -1,7 +1,12 @@
 package pages;
 
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import utils.PageTimings;
+import utils.VisualCheckpoint;
+import utils.WaitUtils;
 
 /**
  * A base class for all page objects in the UI automation framework.
@@ -10,24 +15,33 @@ import org.openqa.selenium.support.PageFactory;
  * {@link WebDriver} instance for all child page classes.</p>
  * <p>All page classes in the framework should extend this class to ensure consistent
  * initialization and access to the WebDriver instance.</p>
+ * <p>Page objects are created right after a navigation or a page-changing click. Because sessions use
+ * the {@code eager} page-load strategy, the constructor waits for the page's
+ * {@link #getReadinessContract() readiness contract} instead of the full page load, and records the
+ * time-to-ready in {@link PageTimings}.</p>
  */
 public class BasePage {
 
+    private static final ExpectedCondition<Boolean> DOCUMENT_INTERACTIVE = driver ->
+            !"loading".equals(((JavascriptExecutor) driver).executeScript("return document.readyState"));
+
     private WebDriver driver;
     private NavbarComponent navbar;
 
     /**
-     * Constructs a new BasePage and initializes its web elements.
+     * Constructs a new BasePage, initializes its web elements and waits until the page is ready.
      * <p>This constructor uses {@link PageFactory#initElements(WebDriver, Object)}
      * to initialize all web elements annotated with {@link FindBy} or {@link FindBys}
      * in child classes.</p>
      * @param driver The {@link WebDriver} instance used to control the browser.
      * @throws IllegalArgumentException If the provided {@code driver} is null.
+     * @throws org.openqa.selenium.TimeoutException If the readiness contract is not met in time.
      */
     public BasePage(WebDriver driver) {
         this.driver = driver;
         PageFactory.initElements(driver, this);
         navbar = new NavbarComponent(driver);
+        awaitReady();
     }
 
     /**
@@ -41,4 +55,41 @@ public class BasePage {
     public NavbarComponent getNavbar() {
         return navbar;
     }
+
+    /**
+     * Declares the minimal set of elements and conditions that mean this page is usable.
+     * <p>Called from the {@link BasePage} constructor, before the child class constructor body runs,
+     * so implementations must only use static locators and never instance fields.</p>
+     * @return The readiness contract. The default contract only requires the DOM to be parsed.
+     */
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract();
+    }
+
+    /**
+     * Declares the visual checkpoint of this page: which part to capture and which dynamic regions to ignore.
+     * @return The visual checkpoint. The default checkpoint captures the viewport and is named after the page class.
+     */
+    protected VisualCheckpoint getVisualCheckpoint() {
+        return new VisualCheckpoint(getClass().getSimpleName());
+    }
+
+    /**
+     * Compares the page with its visual baseline. Does nothing unless visual checkpoints are enabled.
+     * @return The result of the checkpoint.
+     */
+    public VisualCheckpoint.Result checkVisualBaseline() {
+        return getVisualCheckpoint().check(driver);
+    }
+
+    /**
+     * Waits until the DOM is parsed and the page's readiness contract is met.
+     */
+    private void awaitReady() {
+        WaitUtils.waitFor(driver, DOCUMENT_INTERACTIVE);
+        for (ExpectedCondition<?> condition : getReadinessContract().getConditions()) {
+            WaitUtils.waitFor(driver, condition);
+        }
+        PageTimings.recordReady(driver, getClass().getSimpleName());
+    }
 }
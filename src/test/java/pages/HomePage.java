@@ -1,11 +1,15 @@
 package pages;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
+import utils.WaitUtils;
 
 public class HomePage extends BasePage {
 
+    private static final By SEARCH_INPUT = By.xpath("//input[@placeholder='Search']");
+
     @FindBy(xpath = "//input[@placeholder='Search']")
     private WebElement txtInputSearch;
     @FindBy(xpath = "//i[@class='fa fa-search']")
@@ -15,12 +19,17 @@ public class HomePage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(SEARCH_INPUT);
+    }
+
     public void typeSearchInput(String searchInput) {
         txtInputSearch.clear();
         txtInputSearch.sendKeys(searchInput);
     }
 
     public void clickSearch() {
-        buttonSearch.click();
+        WaitUtils.clickAndAwaitPageChange(getDriver(), buttonSearch);
     }
 }
@@ -4,11 +4,14 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
+import utils.WaitUtils;
 
 import java.util.List;
 
 public class LoginPage extends BasePage{
 
+    private static final By EMAIL_INPUT = By.id("input-email");
+    private static final By LOGIN_BUTTON = By.xpath("//input[@value='Login']");
 
     @FindBy(xpath = "//input[@id='input-email']")
     private WebElement txtInputEmail;
@@ -25,6 +28,11 @@ public class LoginPage extends BasePage{
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(EMAIL_INPUT).clickable(LOGIN_BUTTON);
+    }
+
     public void typeEmail(String email) {
         txtInputEmail.clear();
         txtInputEmail.sendKeys(email);
@@ -36,11 +44,11 @@ public class LoginPage extends BasePage{
     }
 
     public void clickForgotPasswordLink() {
-        linkForgotPassword.click();
+        WaitUtils.clickAndAwaitPageChange(getDriver(), linkForgotPassword);
     }
 
     public void clickSubmitButton() {
-        buttonSubmit.click();
+        WaitUtils.clickAndAwaitPageChange(getDriver(), buttonSubmit);
     }
 
     public boolean existsErrorMessage() {
@@ -4,11 +4,14 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
+import utils.WaitUtils;
 
 import java.util.List;
 
 public class MyAccountPage extends BasePage {
 
+    private static final By ACCOUNT_HEADER = By.xpath("//h2[normalize-space()='My Account']");
+
     @FindBy(xpath = "//h2[normalize-space()='My Account']")
     private WebElement headerAccountSection;
     @FindBy(xpath = "//a[@class='list-group-item'][normalize-space()='Logout']")
@@ -19,6 +22,11 @@ public class MyAccountPage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(ACCOUNT_HEADER);
+    }
+
     public boolean existsAccountHeader() {
         List<WebElement> accountHeader =  getDriver().findElements(By.xpath("//h2[normalize-space()='My Account']"));
         return !accountHeader.isEmpty();
@@ -33,6 +41,6 @@ public class MyAccountPage extends BasePage {
     }
 
     public void clickLogout() {
-        logOutOption.click();
+        WaitUtils.clickAndAwaitPageChange(getDriver(), logOutOption);
     }
 }
@@ -4,6 +4,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.PageFactory;
+import utils.WaitUtils;
 
 /**
  * Represents the navbar component that appears across multiple pages.
@@ -29,10 +30,10 @@ public class NavbarComponent {
     }
 
     public void clickRegister() {
-        registerLink.click();
+        WaitUtils.clickAndAwaitPageChange(driver, registerLink);
     }
 
     public void clickLogIn() {
-        loginLink.click();
+        WaitUtils.clickAndAwaitPageChange(driver, loginLink);
     }
 }
@@ -1,11 +1,20 @@
 package pages;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
+import utils.VisualCheckpoint;
+import utils.WaitUtils;
 
 public class ProductPage extends BasePage {
 
+    private static final By HEADER_PRODUCT_NAME = By.xpath("//div[@id='content']//h1");
+    private static final By BUTTON_ADD_TO_CART = By.id("button-cart");
+    private static final By CART_TOTAL = By.id("cart-total");
+    private static final By ALERTS = By.cssSelector(".alert-dismissible");
+    private static final String ADD_TO_CART_REQUEST = "route=checkout/cart/add";
+
     @FindBy(xpath = "//div[@id='content']//h1")
     WebElement headerProductName;
     @FindBy(id = "input-quantity")
@@ -19,6 +28,16 @@ public class ProductPage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(HEADER_PRODUCT_NAME).clickable(BUTTON_ADD_TO_CART);
+    }
+
+    @Override
+    protected VisualCheckpoint getVisualCheckpoint() {
+        return super.getVisualCheckpoint().ignore(CART_TOTAL).ignore(ALERTS);
+    }
+
     public boolean isHeaderPresent() {
         return headerProductName.isDisplayed();
     }
@@ -33,7 +52,7 @@ public class ProductPage extends BasePage {
     }
 
     public void clickAddToCartButton() {
-        buttonAddToCart.click();
+        WaitUtils.clickAndAwaitRequest(getDriver(), buttonAddToCart, ADD_TO_CART_REQUEST);
     }
 
     public boolean isSuccessMessagePresent() {
@@ -0,0 +1,79 @@
+package pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The minimal set of conditions that make a page "usable" for its page object.
+ *
+ * <p>Sessions run with the {@code eager} (or {@code none}) page-load strategy, so navigations return
+ * before images and other subresources have loaded. Instead of waiting for the full load, each page
+ * object declares a readiness contract that {@link BasePage} waits for when the page object is created.</p>
+ *
+ * <p>Example usage in a page object:</p>
+ * <pre>
+ *     {@code @Override}
+ *     protected ReadinessContract getReadinessContract() {
+ *         return new ReadinessContract()
+ *                 .visible(By.id("input-email"))
+ *                 .clickable(By.xpath("//input[@value='Login']"));
+ *     }
+ * </pre>
+ */
+public class ReadinessContract {
+
+    private final List<ExpectedCondition<?>> conditions = new ArrayList<>();
+
+    /**
+     * Requires the element located by {@code locator} to be present and visible.
+     *
+     * @param locator The element locator.
+     * @return This contract, for chaining.
+     */
+    public ReadinessContract visible(By locator) {
+        conditions.add(ExpectedConditions.visibilityOfElementLocated(locator));
+        return this;
+    }
+
+    /**
+     * Requires the element located by {@code locator} to be present in the DOM, visible or not.
+     *
+     * @param locator The element locator.
+     * @return This contract, for chaining.
+     */
+    public ReadinessContract present(By locator) {
+        conditions.add(ExpectedConditions.presenceOfElementLocated(locator));
+        return this;
+    }
+
+    /**
+     * Requires the element located by {@code locator} to be visible and enabled.
+     *
+     * @param locator The element locator.
+     * @return This contract, for chaining.
+     */
+    public ReadinessContract clickable(By locator) {
+        conditions.add(ExpectedConditions.elementToBeClickable(locator));
+        return this;
+    }
+
+    /**
+     * Adds a custom condition to the contract.
+     *
+     * @param condition The condition that must be truthy for the page to be ready.
+     * @return This contract, for chaining.
+     */
+    public ReadinessContract condition(ExpectedCondition<?> condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    public List<ExpectedCondition<?>> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+}
@@ -3,14 +3,15 @@ package pages;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import utils.WaitUtils;
 
-import java.time.Duration;
 import java.util.List;
 
 public class RegistrationPage extends BasePage {
 
     private static final String PAGE_URL = "https://tutorialsninja.com/demo/index.php?route=account/register";
+    private static final By FIRST_NAME_INPUT = By.id("input-firstname");
+    private static final By CONTINUE_BUTTON = By.xpath("//input[@value='Continue']");
 
     @FindBy(xpath = "//input[@id='input-firstname']")
     private WebElement txtFirstName;
@@ -39,6 +40,11 @@ public class RegistrationPage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(FIRST_NAME_INPUT).clickable(CONTINUE_BUTTON);
+    }
+
     public void typeFirstName(String firstName) {
         txtFirstName.clear();
         txtFirstName.sendKeys(firstName);
@@ -84,8 +90,8 @@ public class RegistrationPage extends BasePage {
 
     public void clickContinue() {
         //buttonContinue.sendKeys(Keys.ENTER);
-        WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(10));
-        wait.until(ExpectedConditions.elementToBeClickable(buttonContinue)).click();
+        WaitUtils.clickAndAwaitPageChange(getDriver(),
+                WaitUtils.waitFor(getDriver(), ExpectedConditions.elementToBeClickable(buttonContinue)));
     }
 
     public boolean isSuccessMessageDisplayed() {
@@ -99,8 +105,7 @@ public class RegistrationPage extends BasePage {
 
     public String getConfirmationMessage() {
         try {
-            WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(10));
-            return wait.until(ExpectedConditions.visibilityOf(successMessage)).getText();
+            return WaitUtils.waitFor(getDriver(), ExpectedConditions.visibilityOf(successMessage)).getText();
         } catch (TimeoutException e) {
             throw new RuntimeException("Confirmation message not displayed within the expected time: " + e.getMessage());
         } catch (NoSuchElementException e) {
@@ -4,21 +4,27 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import utils.WaitUtils;
 
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SearchResultsPage extends BasePage {
 
+    private static final By SEARCH_TITLE_HEADER = By.xpath("//div[@id='content']//h1");
+    private static final By CART_TOTAL = By.id("cart-total");
+    private static final String ADD_TO_CART_REQUEST = "route=checkout/cart/add";
+
     @FindBy(xpath = "//div[@id='content']//h1")
     WebElement searchTitleHeader;
     @FindBy(xpath = "//div[@class='product-thumb']")
     List<WebElement> productThumbs;
     @FindBy(xpath = "//div[@class='product-thumb']//div[@class='caption']//h4//a")
     List<WebElement> productLinks;
+    @FindBy(xpath = "//ul[@class='pagination']//a[text()='>']")
+    List<WebElement> nextPageLinks;
     @FindBy(xpath = "//div[@id='content']//p[2]")
     List<WebElement> noResultsMessage;
     @FindBy(id = "cart-total")
@@ -31,6 +37,11 @@ public class SearchResultsPage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected ReadinessContract getReadinessContract() {
+        return new ReadinessContract().visible(SEARCH_TITLE_HEADER).present(CART_TOTAL);
+    }
+
     /**
      * Gets the text of the search results page header.
      * @return The text of the search results page header.
@@ -52,6 +63,26 @@ public class SearchResultsPage extends BasePage {
         return productNames;
     }
 
+    /**
+     * Gets the product links of the page.
+     * @return The absolute link URLs mapped to the displayed product names, in page order.
+     */
+    public Map<String, String> getProductLinks() {
+        Map<String, String> links = new LinkedHashMap<>();
+        for (WebElement link : productLinks) {
+            links.put(link.getDomProperty("href"), link.getText().trim());
+        }
+        return links;
+    }
+
+    /**
+     * Gets the URL of the next results page, from the "&gt;" link of the pagination.
+     * @return The absolute URL, or null if this is the last page.
+     */
+    public String getNextPageUrl() {
+        return nextPageLinks.isEmpty() ? null : nextPageLinks.get(0).getDomProperty("href");
+    }
+
     /**
      * Gets the count of products displayed in the search results.
      * @return The number of products in the search results.
@@ -85,7 +116,7 @@ public class SearchResultsPage extends BasePage {
     public void clickProductLink(String productName) {
         for (WebElement element : productLinks) {
             if (element.getText().equalsIgnoreCase(productName)) {
-                element.click();
+                WaitUtils.clickAndAwaitPageChange(getDriver(), element);
                 return;
             }
         }
@@ -105,15 +136,11 @@ public class SearchResultsPage extends BasePage {
             WebElement productLink = productThumb.findElement(By.xpath(".//div[@class='caption']//h4//a"));
 
             if (productLink.getText().equalsIgnoreCase(productName)) {
-                String cartButtonText = getCartButtonText();
-
                 // Find and click the "Add to Cart" button within the same product container
                 WebElement addToCartButton = productThumb.findElement(By.xpath(".//button[contains(@onclick, 'cart.add')]"));
-                addToCartButton.click();
 
-                // Wait for the cart button text to update
-                WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(10));
-                wait.until(ExpectedConditions.not(ExpectedConditions.textToBePresentInElement(cartButton, cartButtonText)));
+                // Wait for the cart request to complete and the cart button to update
+                WaitUtils.clickAndAwaitRequest(getDriver(), addToCartButton, ADD_TO_CART_REQUEST);
                 return;
             }
         }
@@ -0,0 +1,149 @@
+package shard;
+
+import listeners.SuiteMatrixListener;
+import org.openqa.selenium.json.Json;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One unit of work handed to a {@link ShardWorker}: a single test class of one {@code <test>} of a suite,
+ * with that test's parameters, groups and listeners.
+ *
+ * <p>Classes are the smallest unit, because the methods of a class share one WebDriver session.</p>
+ *
+ * @param id                      Unique shard id, also used as its output directory name.
+ * @param attempt                 The attempt number, starting at 1; incremented when a shard is retried after
+ *                                a crash.
+ * @param suiteName               The name of the original suite.
+ * @param testName                The name of the original {@code <test>}.
+ * @param className               The test class to run.
+ * @param methods                 The methods to run, or an empty list for all methods of the class.
+ * @param excludedMethods         The methods not to run.
+ * @param parameters              The suite and test parameters, e.g. {@code browser} and {@code os}.
+ * @param includedGroups          The groups to include, or an empty list for all groups.
+ * @param excludedGroups          The groups to exclude.
+ * @param listeners               The listener class names declared by the suite.
+ * @param parallel                The parallel mode of the suite, e.g. {@code tests}.
+ * @param threadCount             The thread count of the suite.
+ * @param dataProviderThreadCount The thread count of the suite for parallel data providers.
+ */
+public record Shard(String id, int attempt, String suiteName, String testName, String className,
+                    List<String> methods, List<String> excludedMethods, Map<String, String> parameters,
+                    List<String> includedGroups, List<String> excludedGroups, List<String> listeners,
+                    String parallel, int threadCount, int dataProviderThreadCount) {
+
+    private static final Json JSON = new Json();
+    private static final String XML_REPORTER = "org.testng.reporters.XMLReporter";
+    // Suites are expanded before they are split, so shards must not expand them again
+    private static final String MATRIX_LISTENER = SuiteMatrixListener.class.getName();
+
+    /**
+     * Splits every {@code <test>} of the suite into one shard per class. A suite with a matrix must be
+     * expanded by {@link SuiteMatrixListener} first.
+     *
+     * @param suite The parsed suite.
+     * @return The shards, in suite order.
+     */
+    public static List<Shard> split(XmlSuite suite) {
+        List<Shard> shards = new ArrayList<>();
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                String simpleName = xmlClass.getName().substring(xmlClass.getName().lastIndexOf('.') + 1);
+                String id = String.format("%03d-%s-%s", shards.size() + 1, test.getName(), simpleName)
+                        .replaceAll("[^A-Za-z0-9._-]", "_");
+                List<String> methods = xmlClass.getIncludedMethods().stream().map(XmlInclude::getName).toList();
+                List<String> listeners = suite.getListeners().stream()
+                        .filter(listener -> !listener.equals(MATRIX_LISTENER))
+                        .toList();
+                shards.add(new Shard(id, 1, suite.getName(), test.getName(), xmlClass.getName(), methods,
+                        List.copyOf(xmlClass.getExcludedMethods()), new LinkedHashMap<>(test.getAllParameters()),
+                        List.copyOf(test.getIncludedGroups()), List.copyOf(test.getExcludedGroups()), listeners,
+                        suite.getParallel().toString(), suite.getThreadCount(), suite.getDataProviderThreadCount()));
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Returns a copy of this shard for its next attempt.
+     *
+     * @return The retried shard.
+     */
+    public Shard nextAttempt() {
+        return new Shard(id, attempt + 1, suiteName, testName, className, methods, excludedMethods, parameters,
+                includedGroups, excludedGroups, listeners, parallel, threadCount, dataProviderThreadCount);
+    }
+
+    /**
+     * Builds a suite that runs only this shard. TestNG's XML reporter is always added,
+     * because the coordinator merges the {@code testng-results.xml} files of all shards.
+     *
+     * @return The suite.
+     */
+    public XmlSuite toXmlSuite() {
+        XmlSuite suite = new XmlSuite();
+        suite.setName(suiteName);
+        List<String> suiteListeners = new ArrayList<>(listeners);
+        if (!suiteListeners.contains(XML_REPORTER)) {
+            suiteListeners.add(XML_REPORTER);
+        }
+        suite.setListeners(suiteListeners);
+        suite.setParallel(XmlSuite.ParallelMode.getValidParallel(parallel));
+        suite.setThreadCount(threadCount);
+        suite.setDataProviderThreadCount(dataProviderThreadCount);
+
+        XmlTest test = new XmlTest(suite);
+        test.setName(testName);
+        test.setParameters(new LinkedHashMap<>(parameters));
+        includedGroups.forEach(test::addIncludedGroup);
+        excludedGroups.forEach(test::addExcludedGroup);
+
+        XmlClass xmlClass = new XmlClass(className);
+        List<XmlInclude> includes = new ArrayList<>();
+        for (String method : methods) {
+            includes.add(new XmlInclude(method));
+        }
+        xmlClass.setIncludedMethods(includes);
+        xmlClass.setExcludedMethods(new ArrayList<>(excludedMethods));
+        test.setXmlClasses(List.of(xmlClass));
+        return suite;
+    }
+
+    public String toJson() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("attempt", attempt);
+        fields.put("suiteName", suiteName);
+        fields.put("testName", testName);
+        fields.put("className", className);
+        fields.put("methods", methods);
+        fields.put("excludedMethods", excludedMethods);
+        fields.put("parameters", parameters);
+        fields.put("includedGroups", includedGroups);
+        fields.put("excludedGroups", excludedGroups);
+        fields.put("listeners", listeners);
+        fields.put("parallel", parallel);
+        fields.put("threadCount", threadCount);
+        fields.put("dataProviderThreadCount", dataProviderThreadCount);
+        return JSON.toJson(fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Shard fromJson(String json) {
+        Map<String, Object> fields = JSON.toType(json, Json.MAP_TYPE);
+        return new Shard((String) fields.get("id"), ((Number) fields.get("attempt")).intValue(),
+                (String) fields.get("suiteName"), (String) fields.get("testName"), (String) fields.get("className"),
+                (List<String>) fields.get("methods"), (List<String>) fields.get("excludedMethods"),
+                (Map<String, String>) fields.get("parameters"), (List<String>) fields.get("includedGroups"),
+                (List<String>) fields.get("excludedGroups"), (List<String>) fields.get("listeners"),
+                (String) fields.get("parallel"), ((Number) fields.get("threadCount")).intValue(),
+                ((Number) fields.get("dataProviderThreadCount")).intValue());
+    }
+}
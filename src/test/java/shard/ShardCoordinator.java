@@ -0,0 +1,348 @@
+package shard;
+
+import listeners.SuiteMatrixListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.internal.Parser;
+import utils.ConfigFileReader;
+import utils.ExecutionCapacity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a TestNG suite across several worker JVMs and merges their results.
+ *
+ * <p>The suite is split into {@link Shard shards}, one per test class per {@code <test>}. The coordinator
+ * listens on a socket and starts {@code N} {@link ShardWorker} JVMs that connect to it. Workers pull
+ * the next shard whenever they are idle, so fast workers take over the work that slow ones have not
+ * started yet. When a worker dies or a shard exceeds {@code shard_timeout_minutes}, the worker is
+ * killed together with its browsers, the shard is retried once on another worker and a replacement
+ * worker is started.</p>
+ *
+ * <p>Workers only need the coordinator's host and port, so they could also be started on other
+ * machines. At the end {@link ShardResultsMerger} merges the results into the output directory.</p>
+ *
+ * <p>Usage: {@code ShardCoordinator [suite file] [workers] [output dir]}; the defaults are
+ * {@code testng.xml}, the local session capacity and {@code target/shards}.</p>
+ */
+public class ShardCoordinator {
+
+    static final String HELLO = "HELLO ";
+    static final String NEXT = "NEXT";
+    static final String SHARD = "SHARD ";
+    static final String RESULT = "RESULT ";
+    static final String DONE = "DONE";
+
+    private static final Logger logger = LogManager.getLogger(ShardCoordinator.class);
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long POLL_MILLIS = 500;
+
+    private final Path outputDir;
+    private final int workerCount;
+    private final int maxRestarts;
+    private final Duration shardTimeout;
+
+    private final BlockingDeque<Shard> pending = new LinkedBlockingDeque<>();
+    private final Map<String, ShardResult> results = new ConcurrentHashMap<>();
+    private final Map<Integer, Worker> workers = new ConcurrentHashMap<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final AtomicInteger nextWorkerId = new AtomicInteger(1);
+    private final AtomicInteger restarts = new AtomicInteger();
+    private ServerSocket serverSocket;
+
+    public ShardCoordinator(Path outputDir, int workerCount) {
+        this.outputDir = outputDir;
+        this.workerCount = workerCount;
+        this.maxRestarts = workerCount * 2;
+        this.shardTimeout = ConfigFileReader.getShardTimeout();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String suiteFile = args.length > 0 ? args[0] : "testng.xml";
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : ExecutionCapacity.getLocalCapacity();
+        Path outputDir = Paths.get(args.length > 2 ? args[2] : "target/shards");
+
+        boolean successful = new ShardCoordinator(outputDir, workers).run(suiteFile);
+        System.exit(successful ? 0 : 1);
+    }
+
+    /**
+     * Runs every shard of the suite and merges the results.
+     *
+     * @param suiteFile The TestNG suite XML file.
+     * @return {@code true} if every shard completed without failed tests.
+     * @throws IOException If the suite cannot be parsed or the coordinator socket cannot be opened.
+     */
+    public boolean run(String suiteFile) throws IOException {
+        List<XmlSuite> suites = new ArrayList<>(new Parser(suiteFile).parseToList());
+        // The parser does not run IAlterSuiteListeners, so matrix suites are expanded here before splitting
+        new SuiteMatrixListener().alter(suites);
+        List<Shard> shards = new ArrayList<>();
+        for (XmlSuite suite : suites) {
+            shards.addAll(Shard.split(suite));
+        }
+        pending.addAll(shards);
+        remaining.set(shards.size());
+        Files.createDirectories(outputDir.resolve("workers"));
+        logger.info("Running {} shards of {} on {} workers", shards.size(), suiteFile, workerCount);
+
+        // Resources close in reverse order: the socket first, so the accept loop ends before the executor waits
+        try (ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+             ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            connections.submit(() -> acceptWorkers(connections));
+            for (int i = 0; i < Math.min(workerCount, shards.size()); i++) {
+                startWorker();
+            }
+            awaitShards();
+            workers.values().forEach(Worker::stop);
+            connections.shutdownNow();
+        }
+
+        List<ShardResult> orderedResults = shards.stream().map(shard -> results.get(shard.id())).toList();
+        ShardResultsMerger.merge(orderedResults, outputDir);
+        long failedShards = orderedResults.stream().filter(result -> !result.isSuccessful()).count();
+        logger.info("{} of {} shards successful; {} worker restarts; results in {}",
+                shards.size() - failedShards, shards.size(), restarts.get(), outputDir.toAbsolutePath());
+        return failedShards == 0;
+    }
+
+    /**
+     * Waits until every shard has a result, or marks the remaining shards as not run
+     * if all workers are gone and no more may be started.
+     */
+    private void awaitShards() {
+        while (remaining.get() > 0) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (workers.isEmpty() && !startReplacementWorker()) {
+                Shard shard;
+                while ((shard = pending.poll()) != null) {
+                    complete(ShardResult.notRun(shard));
+                }
+                return;
+            }
+        }
+    }
+
+    private void acceptWorkers(ExecutorService connections) {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> serveWorker(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("Failed to accept worker connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands out shards to one connected worker until no work is left or the worker is lost.
+     */
+    private void serveWorker(Socket socket) {
+        Worker worker = null;
+        Shard current = null;
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            int workerId = Integer.parseInt(in.readUTF().substring(HELLO.length()));
+            worker = workers.get(workerId);
+            if (worker == null) {
+                logger.warn("Unknown worker {} connected; closing connection", workerId);
+                return;
+            }
+            worker.connected = true;
+
+            while (true) {
+                in.readUTF(); // NEXT
+                current = takeNextShard();
+                if (current == null) {
+                    out.writeUTF(DONE);
+                    out.flush();
+                    worker.finished = true;
+                    return;
+                }
+                out.writeUTF(SHARD + current.toJson());
+                out.flush();
+
+                socket.setSoTimeout((int) shardTimeout.toMillis());
+                ShardResult result = ShardResult.fromJson(in.readUTF().substring(RESULT.length()));
+                socket.setSoTimeout(0);
+                logger.info("Shard {} completed on worker {}: {} passed, {} failed, {} skipped",
+                        result.shardId(), workerId, result.passed(), result.failed(), result.skipped());
+                complete(result);
+                current = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (worker != null && !worker.finished) {
+                workerLost(worker, current, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the next pending shard, waiting while other workers may still return shards for a retry.
+     *
+     * @return The next shard, or {@code null} once every shard has a result.
+     */
+    private Shard takeNextShard() {
+        while (remaining.get() > 0) {
+            try {
+                Shard shard = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (shard != null) {
+                    return shard;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void complete(ShardResult result) {
+        results.put(result.shardId(), result);
+        remaining.decrementAndGet();
+    }
+
+    /**
+     * Kills a crashed or hung worker, re-queues or fails its shard and starts a replacement worker.
+     */
+    private void workerLost(Worker worker, Shard shard, String reason) {
+        worker.kill();
+        workers.remove(worker.id);
+        if (shard != null) {
+            if (shard.attempt() < MAX_ATTEMPTS) {
+                logger.warn("Worker {} lost while running shard {} ({}); retrying the shard", worker.id, shard.id(), reason);
+                pending.addFirst(shard.nextAttempt());
+            } else {
+                logger.error("Worker {} lost while running shard {} ({}); giving up after {} attempts",
+                        worker.id, shard.id(), reason, shard.attempt());
+                complete(ShardResult.crashed(shard, worker.id, reason));
+            }
+        } else {
+            logger.warn("Worker {} lost ({})", worker.id, reason);
+        }
+        if (remaining.get() > 0) {
+            startReplacementWorker();
+        }
+    }
+
+    private synchronized boolean startReplacementWorker() {
+        if (restarts.get() >= maxRestarts || pending.isEmpty()) {
+            return false;
+        }
+        restarts.incrementAndGet();
+        try {
+            startWorker();
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to start replacement worker: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts a worker JVM with the coordinator's classpath and {@code -D} options. Each worker gets
+     * its own {@code storefront_port}, so local storefronts of parallel workers do not collide.
+     */
+    private void startWorker() throws IOException {
+        int id = nextWorkerId.getAndIncrement();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.startsWith("-D") && !argument.startsWith("-Dstorefront_port="))
+                .forEach(command::add);
+        command.add("-Dstorefront_port=" + (ConfigFileReader.getStorefrontPort() + id));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(serverSocket.getInetAddress().getHostAddress());
+        command.add(String.valueOf(serverSocket.getLocalPort()));
+        command.add(String.valueOf(id));
+        command.add(outputDir.toAbsolutePath().toString());
+
+        File log = outputDir.resolve("workers").resolve("worker-" + id + ".log").toFile();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        Worker worker = new Worker(id, process);
+        workers.put(id, worker);
+        logger.info("Started worker {} (pid {}), log: {}", id, process.pid(), log);
+
+        process.onExit().thenRun(() -> {
+            // A worker that exits before connecting never reaches serveWorker
+            if (!worker.connected && workers.remove(id) != null) {
+                logger.warn("Worker {} exited with code {} before connecting", id, process.exitValue());
+                if (remaining.get() > 0) {
+                    startReplacementWorker();
+                }
+            }
+        });
+    }
+
+    private static class Worker {
+        private final int id;
+        private final Process process;
+        private volatile boolean connected;
+        private volatile boolean finished;
+
+        private Worker(int id, Process process) {
+            this.id = id;
+            this.process = process;
+        }
+
+        /**
+         * Gives a worker that has been told it is done a few seconds to exit, then kills it.
+         */
+        private void stop() {
+            try {
+                if (process.waitFor(10, TimeUnit.SECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            kill();
+        }
+
+        /**
+         * Kills the worker and the browsers and drivers it started.
+         */
+        private void kill() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package shard;
+
+import org.openqa.selenium.json.Json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of one shard.
+ *
+ * @param shardId        The shard id.
+ * @param attempt        The attempt that produced this result.
+ * @param workerId       The worker that ran the attempt, or -1 if the shard never ran.
+ * @param status         {@code completed}, {@code crashed} (the worker died or timed out on every attempt)
+ *                       or {@code not-run} (no worker was left to run it).
+ * @param passed         The number of passed test methods.
+ * @param failed         The number of failed test methods.
+ * @param skipped        The number of skipped test methods.
+ * @param durationMillis The wall-clock time of the attempt.
+ * @param outputDir      The directory with the attempt's TestNG and Extent output, or {@code null}.
+ * @param message        The reason for a crash, or {@code null}.
+ */
+public record ShardResult(String shardId, int attempt, int workerId, String status, int passed, int failed,
+                          int skipped, long durationMillis, String outputDir, String message) {
+
+    public static final String COMPLETED = "completed";
+    public static final String CRASHED = "crashed";
+    public static final String NOT_RUN = "not-run";
+
+    private static final Json JSON = new Json();
+
+    public static ShardResult crashed(Shard shard, int workerId, String message) {
+        return new ShardResult(shard.id(), shard.attempt(), workerId, CRASHED, 0, 0, 0, 0, null, message);
+    }
+
+    public static ShardResult notRun(Shard shard) {
+        return new ShardResult(shard.id(), shard.attempt(), -1, NOT_RUN, 0, 0, 0, 0, null, "No worker left to run the shard");
+    }
+
+    /**
+     * Returns whether the shard ran to completion without failed tests.
+     *
+     * @return {@code true} if the shard passed.
+     */
+    public boolean isSuccessful() {
+        return COMPLETED.equals(status) && failed == 0;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("shardId", shardId);
+        fields.put("attempt", attempt);
+        fields.put("workerId", workerId);
+        fields.put("status", status);
+        fields.put("passed", passed);
+        fields.put("failed", failed);
+        fields.put("skipped", skipped);
+        fields.put("durationMillis", durationMillis);
+        fields.put("outputDir", outputDir);
+        fields.put("message", message);
+        return fields;
+    }
+
+    public String toJson() {
+        return JSON.toJson(toMap());
+    }
+
+    public static ShardResult fromJson(String json) {
+        Map<String, Object> fields = JSON.toType(json, Json.MAP_TYPE);
+        return new ShardResult((String) fields.get("shardId"), ((Number) fields.get("attempt")).intValue(),
+                ((Number) fields.get("workerId")).intValue(), (String) fields.get("status"),
+                ((Number) fields.get("passed")).intValue(), ((Number) fields.get("failed")).intValue(),
+                ((Number) fields.get("skipped")).intValue(), ((Number) fields.get("durationMillis")).longValue(),
+                (String) fields.get("outputDir"), (String) fields.get("message"));
+    }
+}
@@ -0,0 +1,117 @@
+package shard;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the output of all shards into the coordinator's output directory:
+ * <ul>
+ *     <li>{@code testng-results.xml}: the {@code <suite>} elements of every shard under one root,
+ *     with the summed totals;</li>
+ *     <li>{@code results.json}: one entry per shard with its status, counts, worker, attempt and duration;</li>
+ *     <li>{@code ExtentReport.html}: one Extent report built from the shards' JSON archives.</li>
+ * </ul>
+ */
+public class ShardResultsMerger {
+
+    private static final Logger logger = LogManager.getLogger(ShardResultsMerger.class);
+    private static final String[] COUNT_ATTRIBUTES = {"total", "passed", "failed", "skipped", "ignored"};
+
+    /**
+     * Merges the output of the given shard results.
+     *
+     * @param results   The final result of every shard.
+     * @param outputDir The coordinator's output directory.
+     * @throws RuntimeException If the merged files cannot be written.
+     */
+    public static void merge(List<ShardResult> results, Path outputDir) {
+        try {
+            Files.writeString(outputDir.resolve("results.json"),
+                    new Json().toJson(Map.of("shards", results.stream().map(ShardResult::toMap).toList())),
+                    StandardCharsets.UTF_8);
+            mergeTestNgResults(results, outputDir.resolve("testng-results.xml"));
+            mergeExtentReports(results, outputDir.resolve("ExtentReport.html"));
+        } catch (IOException | ParserConfigurationException | SAXException | TransformerException e) {
+            throw new RuntimeException("Failed to merge shard results into " + outputDir, e);
+        }
+    }
+
+    private static void mergeTestNgResults(List<ShardResult> results, Path mergedFile)
+            throws IOException, ParserConfigurationException, SAXException, TransformerException {
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document merged = builder.newDocument();
+        Element root = merged.createElement("testng-results");
+        merged.appendChild(root);
+        long[] counts = new long[COUNT_ATTRIBUTES.length];
+
+        for (ShardResult result : results) {
+            Path shardFile = result.outputDir() == null ? null : Path.of(result.outputDir(), "testng-results.xml");
+            if (shardFile == null || !Files.exists(shardFile)) {
+                continue;
+            }
+            Element shardRoot = builder.parse(shardFile.toFile()).getDocumentElement();
+            for (int i = 0; i < COUNT_ATTRIBUTES.length; i++) {
+                String value = shardRoot.getAttribute(COUNT_ATTRIBUTES[i]);
+                counts[i] += value.isEmpty() ? 0 : Long.parseLong(value);
+            }
+            for (Node child = shardRoot.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element element && element.getTagName().equals("suite")) {
+                    root.appendChild(merged.importNode(element, true));
+                }
+            }
+        }
+        for (int i = 0; i < COUNT_ATTRIBUTES.length; i++) {
+            root.setAttribute(COUNT_ATTRIBUTES[i], String.valueOf(counts[i]));
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(merged), new StreamResult(mergedFile.toFile()));
+        logger.info("Merged TestNG results written to {}", mergedFile);
+    }
+
+    private static void mergeExtentReports(List<ShardResult> results, Path mergedReport) throws IOException {
+        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(mergedReport.toString());
+        sparkReporter.config().setDocumentTitle("OpenCart Automation Report");
+        sparkReporter.config().setReportName("Open Cart Functional Testing");
+        sparkReporter.config().setTheme(Theme.DARK);
+
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(sparkReporter);
+        extentReports.setSystemInfo("Shards", String.valueOf(results.size()));
+        for (ShardResult result : results) {
+            Path archive = result.outputDir() == null ? null : Path.of(result.outputDir(), "extent.json");
+            if (archive != null && Files.exists(archive)) {
+                extentReports.createDomainFromJsonArchive(archive.toString());
+            } else if (!result.status().equals(ShardResult.COMPLETED)) {
+                extentReports.createTest(result.shardId()).fail("Shard " + result.status() + ": " + result.message());
+            }
+        }
+        extentReports.flush();
+        logger.info("Merged Extent report written to {}", mergedReport);
+    }
+}
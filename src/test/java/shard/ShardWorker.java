@@ -0,0 +1,97 @@
+package shard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * A worker JVM started by {@link ShardCoordinator}. It connects to the coordinator, then repeatedly
+ * asks for the next shard, runs it with TestNG and reports the result, until the coordinator has
+ * no work left.
+ *
+ * <p>Each shard runs as its own TestNG suite, writing {@code testng-results.xml} and an Extent JSON
+ * archive to {@code <output>/shards/<shard id>/attempt-<n>}.</p>
+ *
+ * <p>Usage: {@code ShardWorker <coordinator host> <coordinator port> <worker id> <output dir>}</p>
+ */
+public class ShardWorker {
+
+    private static final Logger logger = LogManager.getLogger(ShardWorker.class);
+
+    public static void main(String[] args) throws IOException {
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int workerId = Integer.parseInt(args[2]);
+        Path outputDir = Paths.get(args[3]);
+
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            send(out, ShardCoordinator.HELLO + workerId);
+            while (true) {
+                send(out, ShardCoordinator.NEXT);
+                String message = in.readUTF();
+                if (message.equals(ShardCoordinator.DONE)) {
+                    break;
+                }
+                Shard shard = Shard.fromJson(message.substring(ShardCoordinator.SHARD.length()));
+                ShardResult result = runShard(shard, workerId, outputDir);
+                send(out, ShardCoordinator.RESULT + result.toJson());
+            }
+        }
+        logger.info("Worker {} finished", workerId);
+        // TestNG and WebDriver can leave non-daemon threads behind
+        System.exit(0);
+    }
+
+    /**
+     * Runs one shard in this JVM.
+     *
+     * @param shard     The shard to run.
+     * @param workerId  The id of this worker.
+     * @param outputDir The coordinator's output directory.
+     * @return The result of the shard.
+     * @throws IOException If the shard's output directory cannot be created.
+     */
+    static ShardResult runShard(Shard shard, int workerId, Path outputDir) throws IOException {
+        Path shardDir = outputDir.resolve("shards").resolve(shard.id()).resolve("attempt-" + shard.attempt());
+        Files.createDirectories(shardDir);
+        logger.info("Worker {} running shard {} (attempt {})", workerId, shard.id(), shard.attempt());
+
+        // Read by ExtendReportListener through ConfigFileReader
+        System.setProperty("report_dir", shardDir.toString());
+        System.setProperty("report_json", shardDir.resolve("extent.json").toString());
+
+        TestNG testng = new TestNG();
+        testng.setUseDefaultListeners(false);
+        testng.setXmlSuites(List.of(shard.toXmlSuite()));
+        testng.setOutputDirectory(shardDir.toString());
+        TestListenerAdapter counts = new TestListenerAdapter();
+        testng.addListener(counts);
+
+        long started = System.nanoTime();
+        testng.run();
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+
+        return new ShardResult(shard.id(), shard.attempt(), workerId, ShardResult.COMPLETED,
+                counts.getPassedTests().size(), counts.getFailedTests().size(), counts.getSkippedTests().size(),
+                durationMillis, shardDir.toString(), null);
+    }
+
+    private static void send(DataOutputStream out, String message) throws IOException {
+        out.writeUTF(message);
+        out.flush();
+    }
+}
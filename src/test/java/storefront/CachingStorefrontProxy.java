@@ -0,0 +1,418 @@
+package storefront;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A record-and-replay caching reverse proxy in front of the live storefront.
+ *
+ * <p>The browser talks plain HTTP to the proxy on the loopback interface, and the proxy forwards
+ * requests to the live storefront over HTTPS. Absolute storefront URLs in text responses, redirects
+ * and cookies are rewritten so that the browser keeps talking to the proxy.</p>
+ *
+ * <ul>
+ *     <li>In {@link Mode#RECORD} mode every cacheable GET is fetched live and written to the store.</li>
+ *     <li>In {@link Mode#REPLAY} mode cacheable GETs are served from the store; misses are fetched
+ *     live and recorded.</li>
+ * </ul>
+ *
+ * <p>Only GETs of static assets (stylesheets, scripts, images, fonts) are cacheable. Documents always
+ * pass through live, because every storefront page carries the state of its session in the header
+ * (login links, cart total) and must never be served to another session. Responses are stored as a
+ * small properties file per normalized request key plus a body file named after the SHA-256 of its
+ * content, so identical bodies (e.g. the same image served under several URLs) are stored once.
+ * Concurrent misses for the same key are coalesced into one upstream request.</p>
+ */
+public class CachingStorefrontProxy {
+
+    public enum Mode { RECORD, REPLAY }
+
+    private static final Logger logger = LogManager.getLogger(CachingStorefrontProxy.class);
+    private static final Set<String> STATIC_ASSET_EXTENSIONS = Set.of(
+            "css", "js", "map", "png", "jpg", "jpeg", "gif", "svg", "webp", "ico", "woff", "woff2", "ttf", "eot");
+    private static final Set<String> VOLATILE_QUERY_PARAMETERS = Set.of("_", "utm_source", "utm_medium", "utm_campaign");
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of(
+            "host", "connection", "content-length", "expect", "upgrade", "accept-encoding",
+            "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Mode mode;
+    private final String upstreamOrigin;
+    private final Path entriesDir;
+    private final Path bodiesDir;
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder passThrough = new LongAdder();
+    private final LongAdder bodiesStored = new LongAdder();
+    private final LongAdder bodiesDeduplicated = new LongAdder();
+
+    /**
+     * Creates a proxy bound to the loopback interface. The proxy does not accept requests until
+     * {@link #start()} is called.
+     *
+     * @param port            The port to listen on, or {@code 0} to pick a free port.
+     * @param upstreamBaseUrl Any absolute URL of the live storefront; only its origin is used.
+     * @param mode            Whether to record or replay responses.
+     * @param cacheDir        The directory of the on-disk response store.
+     * @throws IOException If the port cannot be bound or the store cannot be created.
+     */
+    public CachingStorefrontProxy(int port, String upstreamBaseUrl, Mode mode, Path cacheDir) throws IOException {
+        URI upstream = URI.create(upstreamBaseUrl);
+        this.upstreamOrigin = upstream.getScheme() + "://" + upstream.getRawAuthority();
+        this.mode = mode;
+        this.entriesDir = Files.createDirectories(cacheDir.resolve("entries"));
+        this.bodiesDir = Files.createDirectories(cacheDir.resolve("bodies"));
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Storefront proxy started at {} in {} mode, forwarding to {}", getOrigin(), mode, upstreamOrigin);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("Storefront proxy stopped. {}", getStatistics());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the origin the browser should use instead of the live storefront's origin.
+     *
+     * @return The proxy origin, e.g. {@code http://127.0.0.1:8085}.
+     */
+    public String getOrigin() {
+        return String.format("http://%s:%d", server.getAddress().getAddress().getHostAddress(), getPort());
+    }
+
+    /**
+     * Returns a one-line summary of the proxy's request counters.
+     *
+     * @return The statistics, including the cache hit rate of cacheable requests.
+     */
+    public String getStatistics() {
+        long cacheable = hits.sum() + misses.sum();
+        double hitRate = cacheable == 0 ? 0 : 100.0 * hits.sum() / cacheable;
+        return String.format(Locale.ROOT,
+                "Requests: %d; cache hits: %d; cache misses: %d; hit rate: %.1f%%; live pass-through: %d; "
+                        + "bodies stored: %d; bodies deduplicated: %d",
+                requests.sum(), hits.sum(), misses.sum(), hitRate, passThrough.sum(),
+                bodiesStored.sum(), bodiesDeduplicated.sum());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            CachedResponse response;
+            if (isCacheable(exchange)) {
+                response = serveCacheable(exchange);
+            } else {
+                passThrough.increment();
+                response = fetchUpstream(exchange);
+            }
+            send(exchange, response);
+        } catch (Exception e) {
+            logger.error("Storefront proxy failed to handle {} {}: {}",
+                    exchange.getRequestMethod(), exchange.getRequestURI(), e.getMessage());
+            if (exchange.getResponseCode() != -1) {
+                // The headers are out already; the browser sees a truncated body
+                return;
+            }
+            byte[] body = "Bad Gateway".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(502, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isCacheable(HttpExchange exchange) {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            return false;
+        }
+        String path = exchange.getRequestURI().getPath();
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/')
+                && STATIC_ASSET_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private CachedResponse serveCacheable(HttpExchange exchange) throws Exception {
+        String key = normalizeKey(exchange.getRequestMethod(), exchange.getRequestURI());
+        if (mode == Mode.REPLAY) {
+            CachedResponse cached = load(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return awaitFetch(existing);
+        }
+
+        try {
+            CachedResponse response = fetchUpstream(exchange);
+            if (response.status() < 500) {
+                store(key, response);
+            }
+            future.complete(response);
+            return response;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private CachedResponse awaitFetch(CompletableFuture<CachedResponse> future) throws Exception {
+        try {
+            // Cookies of a coalesced response belong to the session that triggered the fetch
+            return future.get().withoutCookies();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Builds the cache key of a request: the method, the path and the query parameters sorted by name,
+     * with cache-busting and tracking parameters removed.
+     */
+    static String normalizeKey(String method, URI uri) {
+        List<String> parameters = new ArrayList<>();
+        String rawQuery = uri.getRawQuery();
+        if (rawQuery != null && !rawQuery.isEmpty()) {
+            for (String pair : rawQuery.split("&")) {
+                String name = URLDecoder.decode(pair.split("=", 2)[0], StandardCharsets.UTF_8);
+                if (!pair.isEmpty() && !VOLATILE_QUERY_PARAMETERS.contains(name)) {
+                    parameters.add(pair);
+                }
+            }
+        }
+        parameters.sort(null);
+        return method.toUpperCase(Locale.ROOT) + " " + uri.getRawPath() + (parameters.isEmpty() ? "" : "?" + String.join("&", parameters));
+    }
+
+    private CachedResponse fetchUpstream(HttpExchange exchange) throws IOException, InterruptedException {
+        URI target = URI.create(upstreamOrigin + exchange.getRequestURI().toString());
+        byte[] requestBody;
+        try (InputStream in = exchange.getRequestBody()) {
+            requestBody = in.readAllBytes();
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(30))
+                .method(exchange.getRequestMethod(), requestBody.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (SKIPPED_REQUEST_HEADERS.contains(name)) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                request.header(header.getKey(), name.equals("origin") || name.equals("referer") ? toUpstream(value) : value);
+            }
+        }
+
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return new CachedResponse(response.statusCode(),
+                response.headers().firstValue("Content-Type").orElse(null),
+                response.headers().firstValue("Location").orElse(null),
+                response.headers().allValues("Set-Cookie"),
+                response.body());
+    }
+
+    private void send(HttpExchange exchange, CachedResponse response) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        if (response.contentType() != null) {
+            headers.add("Content-Type", response.contentType());
+        }
+        if (response.location() != null) {
+            headers.add("Location", toProxy(response.location()));
+        }
+        for (String cookie : response.cookies()) {
+            headers.add("Set-Cookie", rewriteCookie(cookie));
+        }
+
+        byte[] body = response.body();
+        if (isText(response.contentType())) {
+            body = toProxy(new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        }
+        boolean hasBody = body.length > 0 && !"HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(response.status(), hasBody ? body.length : -1);
+        if (hasBody) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private String toProxy(String text) {
+        String escapedUpstream = upstreamOrigin.replace("/", "\\/");
+        return text.replace(upstreamOrigin, getOrigin()).replace(escapedUpstream, getOrigin().replace("/", "\\/"));
+    }
+
+    private String toUpstream(String text) {
+        return text.replace(getOrigin(), upstreamOrigin);
+    }
+
+    /**
+     * Makes an upstream cookie acceptable for the plain-HTTP loopback origin by dropping the
+     * attributes that tie it to the storefront's HTTPS domain.
+     */
+    private static String rewriteCookie(String cookie) {
+        StringBuilder rewritten = new StringBuilder();
+        for (String attribute : cookie.split(";")) {
+            String name = attribute.trim().split("=", 2)[0].toLowerCase(Locale.ROOT);
+            if (name.equals("domain") || name.equals("secure") || name.equals("samesite")) {
+                continue;
+            }
+            if (!rewritten.isEmpty()) {
+                rewritten.append(';');
+            }
+            rewritten.append(attribute);
+        }
+        return rewritten.toString();
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
+    }
+
+    private CachedResponse load(String key) throws IOException {
+        Path entryFile = entriesDir.resolve(sha256(key.getBytes(StandardCharsets.UTF_8)) + ".properties");
+        if (!Files.exists(entryFile)) {
+            return null;
+        }
+
+        Properties entry = new Properties();
+        try (Reader reader = Files.newBufferedReader(entryFile, StandardCharsets.UTF_8)) {
+            entry.load(reader);
+        }
+        Path bodyFile = bodiesDir.resolve(entry.getProperty("body"));
+        if (!Files.exists(bodyFile)) {
+            logger.warn("Body of cached entry '{}' is missing; fetching it again", key);
+            return null;
+        }
+        return new CachedResponse(Integer.parseInt(entry.getProperty("status")),
+                entry.getProperty("contentType"), entry.getProperty("location"), List.of(),
+                Files.readAllBytes(bodyFile));
+    }
+
+    private void store(String key, CachedResponse response) throws IOException {
+        String bodyHash = sha256(response.body());
+        Path bodyFile = bodiesDir.resolve(bodyHash);
+        if (Files.exists(bodyFile)) {
+            bodiesDeduplicated.increment();
+        } else {
+            writeAtomically(bodyFile, response.body());
+            bodiesStored.increment();
+        }
+
+        Properties entry = new Properties();
+        entry.setProperty("key", key);
+        entry.setProperty("status", String.valueOf(response.status()));
+        entry.setProperty("body", bodyHash);
+        if (response.contentType() != null) {
+            entry.setProperty("contentType", response.contentType());
+        }
+        if (response.location() != null) {
+            entry.setProperty("location", response.location());
+        }
+        Path tempFile = Files.createTempFile(entriesDir, "entry", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            entry.store(writer, null);
+        }
+        Files.move(tempFile, entriesDir.resolve(sha256(key.getBytes(StandardCharsets.UTF_8)) + ".properties"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), "body", ".tmp");
+        Files.write(tempFile, content);
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another session stored the same body concurrently
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedResponse(int status, String contentType, String location, List<String> cookies, byte[] body) {
+
+        CachedResponse withoutCookies() {
+            return new CachedResponse(status, contentType, location, List.of(), body);
+        }
+    }
+}
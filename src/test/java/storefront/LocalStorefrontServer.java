@@ -0,0 +1,422 @@
+package storefront;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import storefront.StorefrontCatalog.Product;
+import storefront.StorefrontPages.PageState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embedded HTTP stand-in for the OpenCart storefront used by the test suite.
+ *
+ * <p>The server serves the home, search, product, login, registration, account and cart pages
+ * with the DOM structure expected by the page objects in the {@code pages} package. It is backed
+ * by an in-memory {@link StorefrontCatalog} and an in-memory account store, so a suite pointed at
+ * it runs fully offline at loopback speed. Sessions that have been idle for 24 minutes expire, as
+ * with PHP's default {@code session.gc_maxlifetime}, so long load runs do not keep every virtual
+ * user's session.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     LocalStorefrontServer server = new LocalStorefrontServer(8085, "/demo/");
+ *     server.addAccount("user@example.com", "secret");
+ *     server.start();
+ *     // ... server.getBaseUrl() returns http://127.0.0.1:8085/demo/
+ *     server.stop();
+ * </pre>
+ */
+public class LocalStorefrontServer {
+
+    private static final String SESSION_COOKIE = "OCSESSID";
+    // Large enough for load runs that open connections for thousands of virtual users at once
+    private static final int BACKLOG = 1024;
+    private static final long SESSION_IDLE_NANOS = TimeUnit.MINUTES.toNanos(24);
+    private static final long SESSION_SWEEP_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final Logger logger = LogManager.getLogger(LocalStorefrontServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String contextPath;
+    private final StorefrontCatalog catalog = new StorefrontCatalog();
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSessionSweep = new AtomicLong(System.nanoTime());
+    private StorefrontPages pages;
+
+    /**
+     * Creates a server bound to the loopback interface. The server does not accept requests until
+     * {@link #start()} is called.
+     *
+     * @param port        The port to listen on, or {@code 0} to pick a free port.
+     * @param contextPath The path the storefront is served under, e.g. {@code /demo/}.
+     * @throws IOException If the port cannot be bound.
+     */
+    public LocalStorefrontServer(int port, String contextPath) throws IOException {
+        this.contextPath = contextPath.endsWith("/") ? contextPath : contextPath + "/";
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.createContext(this.contextPath, this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        pages = new StorefrontPages(getBaseUrl());
+        server.start();
+        logger.info("Local storefront started at {}", getBaseUrl());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("Local storefront at {} stopped", getBaseUrl());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the absolute base URL of the storefront, ending with a slash.
+     *
+     * @return The base URL, e.g. {@code http://127.0.0.1:8085/demo/}.
+     */
+    public String getBaseUrl() {
+        return String.format("http://%s:%d%s", server.getAddress().getAddress().getHostAddress(), getPort(),
+                contextPath);
+    }
+
+    public StorefrontCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Registers a customer account that can log in without going through the registration page.
+     *
+     * @param email    The login email.
+     * @param password The login password.
+     */
+    public void addAccount(String email, String password) {
+        accounts.put(email.toLowerCase(Locale.ROOT), new Account("Test", "Customer", email, "", password));
+    }
+
+    /**
+     * Entry point for every request. Dispatches on the {@code route} query parameter the same way
+     * OpenCart's {@code index.php} front controller does.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (!path.equals(contextPath) && !path.equals(contextPath + "index.php")) {
+                send(exchange, null, Response.notFound());
+                return;
+            }
+
+            Map<String, String> query = parseUrlEncoded(exchange.getRequestURI().getRawQuery());
+            boolean isPost = "POST".equalsIgnoreCase(exchange.getRequestMethod());
+            Map<String, String> form = isPost ? parseUrlEncoded(readBody(exchange)) : Map.of();
+            Session session = resolveSession(exchange);
+            String route = query.getOrDefault("route", "common/home");
+
+            Response response = switch (route) {
+                case "common/home" -> Response.html(pages.home(state(session, "")));
+                case "product/search" -> handleSearch(session, query.get("search"), query.get("page"),
+                        query.get("limit"));
+                case "product/product" -> handleProduct(session, query.get("product_id"));
+                case "account/login" -> isPost ? handleLogin(session, form) : Response.html(pages.login(state(session, ""), null));
+                case "account/register" -> isPost ? handleRegister(session, form)
+                        : Response.html(pages.register(state(session, ""), Map.of(), Map.of()));
+                case "account/success" -> Response.html(pages.registerSuccess(state(session, "")));
+                case "account/account" -> session.customerEmail == null
+                        ? Response.redirect(pages.url("account/login"))
+                        : Response.html(pages.account(state(session, "")));
+                case "account/logout" -> handleLogout(session);
+                case "checkout/cart/add" -> handleCartAdd(session, form);
+                case "checkout/cart" -> Response.html(pages.cart(state(session, ""), cartLines(session)));
+                default -> Response.notFound();
+            };
+            send(exchange, session, response);
+        } catch (Exception e) {
+            logger.error("Local storefront failed to handle {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            send(exchange, null, new Response(500, "text/plain; charset=UTF-8", "Internal Server Error", null));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response handleSearch(Session session, String term, String page, String limit) {
+        List<Product> results = catalog.search(term);
+        return Response.html(pages.searchResults(state(session, term == null ? "" : term), term, results,
+                parsePositive(page, 1), parsePositive(limit, StorefrontPages.DEFAULT_PRODUCT_LIMIT)));
+    }
+
+    private static int parsePositive(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private Response handleProduct(Session session, String productId) {
+        Product product = parseProductId(productId);
+        if (product == null) {
+            return new Response(404, "text/html; charset=UTF-8", pages.productNotFound(state(session, "")), null);
+        }
+        return Response.html(pages.product(state(session, ""), product));
+    }
+
+    private Response handleLogin(Session session, Map<String, String> form) {
+        String email = form.getOrDefault("email", "").trim();
+        Account account = accounts.get(email.toLowerCase(Locale.ROOT));
+        if (account == null || !account.password().equals(form.getOrDefault("password", ""))) {
+            return Response.html(pages.login(state(session, ""), "Warning: No match for E-Mail Address and/or Password."));
+        }
+        session.customerEmail = account.email();
+        return Response.redirect(pages.url("account/account"));
+    }
+
+    private Response handleRegister(Session session, Map<String, String> form) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        requireLength(form, errors, "firstname", "First Name must be between 1 and 32 characters!", 1, 32);
+        requireLength(form, errors, "lastname", "Last Name must be between 1 and 32 characters!", 1, 32);
+        String email = form.getOrDefault("email", "").trim();
+        if (!email.matches("[^@\\s]+@[^@\\s]+\\.[^@\\s]+")) {
+            errors.put("email", "E-Mail Address does not appear to be valid!");
+        } else if (accounts.containsKey(email.toLowerCase(Locale.ROOT))) {
+            errors.put("warning", "Warning: E-Mail Address is already registered!");
+        }
+        requireLength(form, errors, "telephone", "Telephone must be between 3 and 32 characters!", 3, 32);
+        requireLength(form, errors, "password", "Password must be between 4 and 20 characters!", 4, 20);
+        if (!form.getOrDefault("password", "").equals(form.getOrDefault("confirm", ""))) {
+            errors.put("confirm", "Password confirmation does not match password!");
+        }
+        if (!form.containsKey("agree")) {
+            errors.putIfAbsent("warning", "Warning: You must agree to the Privacy Policy!");
+        }
+
+        if (!errors.isEmpty()) {
+            return Response.html(pages.register(state(session, ""), form, errors));
+        }
+
+        Account account = new Account(form.get("firstname"), form.get("lastname"), email,
+                form.get("telephone"), form.get("password"));
+        if (accounts.putIfAbsent(email.toLowerCase(Locale.ROOT), account) != null) {
+            errors.put("warning", "Warning: E-Mail Address is already registered!");
+            return Response.html(pages.register(state(session, ""), form, errors));
+        }
+        session.customerEmail = account.email();
+        return Response.redirect(pages.url("account/success"));
+    }
+
+    private void requireLength(Map<String, String> form, Map<String, String> errors,
+                               String field, String message, int min, int max) {
+        int length = form.getOrDefault(field, "").trim().length();
+        if (length < min || length > max) {
+            errors.put(field, message);
+        }
+    }
+
+    private Response handleLogout(Session session) {
+        session.customerEmail = null;
+        session.cart.clear();
+        return Response.html(pages.logout(state(session, "")));
+    }
+
+    private Response handleCartAdd(Session session, Map<String, String> form) {
+        Product product = parseProductId(form.get("product_id"));
+        if (product == null) {
+            return Response.json("{\"error\":\"Product not found!\"}");
+        }
+
+        int quantity;
+        try {
+            quantity = Math.max(1, Integer.parseInt(form.getOrDefault("quantity", "1").trim()));
+        } catch (NumberFormatException e) {
+            quantity = 1;
+        }
+        session.cart.merge(product.id(), quantity, Integer::sum);
+
+        String success = String.format("Success: You have added <a href=\\\"%s\\\">%s</a> to your <a href=\\\"%s\\\">shopping cart</a>!",
+                jsonEscape(pages.productUrl(product)), jsonEscape(StorefrontPages.escape(product.name())),
+                jsonEscape(pages.url("checkout/cart")));
+        return Response.json("{\"success\":\"" + success + "\",\"total\":\"" + jsonEscape(cartTotal(session)) + "\"}");
+    }
+
+    private Product parseProductId(String productId) {
+        if (productId == null) {
+            return null;
+        }
+        try {
+            return catalog.findById(Integer.parseInt(productId.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String cartTotal(Session session) {
+        int items = 0;
+        long totalCents = 0;
+        for (Map.Entry<Integer, Integer> entry : session.cart.entrySet()) {
+            Product product = catalog.findById(entry.getKey());
+            items += entry.getValue();
+            totalCents += product.priceCents() * entry.getValue();
+        }
+        return items + " item(s) - " + StorefrontCatalog.formatPrice(totalCents);
+    }
+
+    private List<String> cartLines(Session session) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : session.cart.entrySet()) {
+            Product product = catalog.findById(entry.getKey());
+            lines.add(String.format("%s x %d - %s", product.name(), entry.getValue(),
+                    StorefrontCatalog.formatPrice(product.priceCents() * entry.getValue())));
+        }
+        return lines;
+    }
+
+    private PageState state(Session session, String searchTerm) {
+        return new PageState(session.customerEmail != null, cartTotal(session), searchTerm);
+    }
+
+    /**
+     * Looks up the session referenced by the request's session cookie, creating a new one when the
+     * cookie is missing, unknown or expired.
+     */
+    private Session resolveSession(HttpExchange exchange) {
+        long now = System.nanoTime();
+        List<String> cookieHeaders = exchange.getRequestHeaders().getOrDefault("Cookie", List.of());
+        for (String header : cookieHeaders) {
+            for (String cookie : header.split(";")) {
+                String[] pair = cookie.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].equals(SESSION_COOKIE)) {
+                    Session session = sessions.get(pair[1]);
+                    if (session != null && now - session.lastUsed < SESSION_IDLE_NANOS) {
+                        session.lastUsed = now;
+                        return session;
+                    }
+                }
+            }
+        }
+        evictIdleSessions(now);
+        Session session = new Session(UUID.randomUUID().toString().replace("-", ""), now);
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    /**
+     * Removes the expired sessions, at most once a minute.
+     */
+    private void evictIdleSessions(long now) {
+        long lastSweep = lastSessionSweep.get();
+        if (now - lastSweep >= SESSION_SWEEP_NANOS && lastSessionSweep.compareAndSet(lastSweep, now)) {
+            sessions.values().removeIf(session -> now - session.lastUsed >= SESSION_IDLE_NANOS);
+        }
+    }
+
+    private void send(HttpExchange exchange, Session session, Response response) throws IOException {
+        if (session != null) {
+            exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session.id + "; Path=/; HttpOnly");
+        }
+        if (response.location() != null) {
+            exchange.getResponseHeaders().add("Location", response.location());
+        }
+        exchange.getResponseHeaders().add("Cache-Control", "no-store");
+
+        byte[] body = response.body() == null ? new byte[0] : response.body().getBytes(StandardCharsets.UTF_8);
+        if (body.length > 0) {
+            exchange.getResponseHeaders().add("Content-Type", response.contentType());
+        }
+        exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parses an {@code application/x-www-form-urlencoded} string (a query string or a form body).
+     * Repeated keys keep their last value, which is all the storefront forms need.
+     */
+    static Map<String, String> parseUrlEncoded(String encoded) {
+        Map<String, String> values = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            String[] keyValue = pair.split("=", 2);
+            String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
+            String value = keyValue.length > 1 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "";
+            values.put(key, value);
+        }
+        return values;
+    }
+
+    private static String jsonEscape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private record Account(String firstName, String lastName, String email, String telephone, String password) {
+    }
+
+    private static class Session {
+        private final String id;
+        private final Map<Integer, Integer> cart = new ConcurrentHashMap<>();
+        private volatile String customerEmail;
+        private volatile long lastUsed;
+
+        private Session(String id, long created) {
+            this.id = id;
+            this.lastUsed = created;
+        }
+    }
+
+    private record Response(int status, String contentType, String body, String location) {
+
+        static Response html(String body) {
+            return new Response(200, "text/html; charset=UTF-8", body, null);
+        }
+
+        static Response json(String body) {
+            return new Response(200, "application/json; charset=UTF-8", body, null);
+        }
+
+        static Response redirect(String location) {
+            return new Response(302, null, null, location);
+        }
+
+        static Response notFound() {
+            return new Response(404, "text/plain; charset=UTF-8", "Not Found", null);
+        }
+    }
+}
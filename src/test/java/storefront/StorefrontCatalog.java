@@ -0,0 +1,117 @@
+package storefront;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory product catalog served by the {@link LocalStorefrontServer}.
+ *
+ * <p>The catalog mirrors the products of the OpenCart demo store, so the search terms and product
+ * names used by the test data resolve to the same results locally as they do against the real
+ * storefront.</p>
+ */
+public class StorefrontCatalog {
+
+    /**
+     * A single catalog product.
+     *
+     * @param id          The OpenCart product id used in {@code product_id} query parameters.
+     * @param name        The display name of the product.
+     * @param model       The product code shown on the product page.
+     * @param priceCents  The price in cents.
+     * @param description A short description shown in search results.
+     */
+    public record Product(int id, String name, String model, long priceCents, String description) {
+
+        public String getFormattedPrice() {
+            return formatPrice(priceCents);
+        }
+    }
+
+    private final Map<Integer, Product> products = new LinkedHashMap<>();
+
+    public StorefrontCatalog() {
+        add(28, "HTC Touch HD", "Product 1", 12200, "Windows Mobile 6.1 Professional Edition with a 3.8-inch touch screen.");
+        add(29, "Palm Treo Pro", "Product 2", 33799, "Redefine your workday with the Palm Treo Pro smartphone.");
+        add(30, "Canon EOS 5D", "Product 3", 9800, "Canon's press material for the EOS 5D states that it defines a new class.");
+        add(31, "Nikon D300", "Product 4", 9800, "Engineered with pro-level features and performance.");
+        add(32, "iPod Touch", "Product 5", 12200, "Revolutionary multi-touch interface.");
+        add(33, "Samsung SyncMaster 941BW", "Product 6", 24200, "Imagine the advantages of going big without slowing down.");
+        add(34, "iPod Shuffle", "Product 7", 12200, "Born to be worn.");
+        add(36, "iPod Nano", "Product 9", 12200, "Video in your pocket.");
+        add(40, "iPhone", "product 11", 12320, "iPhone is a revolutionary new mobile phone.");
+        add(41, "iMac", "Product 14", 12200, "Just when you thought iMac had everything, now there's even more.");
+        add(42, "Apple Cinema 30\"", "Product 15", 11000, "The 30-inch Apple Cinema HD Display delivers an amazing 2560 x 1600 pixel resolution.");
+        add(43, "MacBook", "Product 16", 60200, "Intel Core 2 Duo processor.");
+        add(44, "MacBook Air", "Product 17", 120200, "MacBook Air is ultrathin, ultraportable, and ultra unlike anything else.");
+        add(45, "MacBook Pro", "Product 18", 200000, "Latest Intel mobile architecture.");
+        add(46, "Sony VAIO", "Product 19", 120200, "Unprecedented power.");
+        add(47, "HP LP3065", "Product 21", 12200, "Stop your co-workers in their tracks with the stunning new 30-inch diagonal HP LP3065.");
+        add(48, "iPod Classic", "product 20", 12200, "More room to move.");
+        add(49, "Samsung Galaxy Tab 10.1", "SAM1", 24199, "Samsung Galaxy Tab 10.1 is the world's thinnest tablet.");
+    }
+
+    private void add(int id, String name, String model, long priceCents, String description) {
+        products.put(id, new Product(id, name, model, priceCents, description));
+    }
+
+    /**
+     * Returns the product with the given id.
+     *
+     * @param id The product id.
+     * @return The product, or {@code null} if the catalog has no product with that id.
+     */
+    public Product findById(int id) {
+        return products.get(id);
+    }
+
+    public Collection<Product> getAllProducts() {
+        return products.values();
+    }
+
+    /**
+     * Searches product names the way OpenCart does: the term is split on whitespace and a product
+     * matches when its name contains every word, ignoring case. An empty term matches nothing.
+     *
+     * @param term The search term typed by the user.
+     * @return The matching products sorted by name.
+     */
+    public List<Product> search(String term) {
+        List<Product> results = new ArrayList<>();
+        if (term == null || term.isBlank()) {
+            return results;
+        }
+
+        String[] words = term.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        for (Product product : products.values()) {
+            String name = product.name().toLowerCase(Locale.ROOT);
+            boolean matchesAll = true;
+            for (String word : words) {
+                if (!name.contains(word)) {
+                    matchesAll = false;
+                    break;
+                }
+            }
+            if (matchesAll) {
+                results.add(product);
+            }
+        }
+        results.sort(Comparator.comparing(Product::name, String.CASE_INSENSITIVE_ORDER));
+        return results;
+    }
+
+    /**
+     * Formats a price in cents the way the storefront displays it, e.g. {@code $1,202.00}.
+     *
+     * @param priceCents The price in cents.
+     * @return The formatted price.
+     */
+    public static String formatPrice(long priceCents) {
+        return String.format(Locale.US, "$%,.2f", priceCents / 100.0);
+    }
+}
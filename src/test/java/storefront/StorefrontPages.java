@@ -0,0 +1,457 @@
+package storefront;
+
+import storefront.StorefrontCatalog.Product;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the HTML pages served by the {@link LocalStorefrontServer}.
+ *
+ * <p>The markup reproduces the parts of the OpenCart theme that the locators in the {@code pages}
+ * package depend on (ids, class names, link texts and button values). Everything else is kept
+ * to the bare minimum so that pages render instantly and have no external subresources.</p>
+ */
+public class StorefrontPages {
+
+    /**
+     * The number of products per listing page when the request has no {@code limit}, as in OpenCart.
+     */
+    public static final int DEFAULT_PRODUCT_LIMIT = 15;
+
+    private static final String STYLE = """
+            <style>
+              body { font-family: sans-serif; margin: 0; }
+              .container { padding: 8px 16px; }
+              .dropdown { position: relative; display: inline-block; }
+              .dropdown-menu { display: none; position: absolute; right: 0; list-style: none; margin: 0;
+                               padding: 4px 0; background: #fff; border: 1px solid #ccc; z-index: 10; }
+              .open > .dropdown-menu { display: block; }
+              .dropdown-menu a { display: block; padding: 4px 16px; }
+              .fa { display: inline-block; min-width: 1em; min-height: 1em; }
+              .product-thumb { display: inline-block; width: 220px; vertical-align: top; margin: 8px; }
+              .alert { padding: 8px; margin: 8px 0; border: 1px solid; }
+              .text-danger { color: #a94442; }
+            </style>
+            """;
+
+    private static final String SCRIPT = """
+            <script>
+              var base = '{{base}}';
+              function search() {
+                var value = document.querySelector('#search input[name="search"]').value;
+                var url = base + 'index.php?route=product/search';
+                if (value) {
+                  url += '&search=' + encodeURIComponent(value);
+                }
+                location = url;
+              }
+              document.querySelector('#search button').addEventListener('click', search);
+              document.querySelector('#search input[name="search"]').addEventListener('keydown', function (e) {
+                if (e.keyCode == 13) {
+                  search();
+                }
+              });
+              document.querySelectorAll('.dropdown-toggle').forEach(function (toggle) {
+                toggle.addEventListener('click', function (e) {
+                  e.preventDefault();
+                  toggle.parentNode.classList.toggle('open');
+                });
+              });
+              var cart = {
+                add: function (productId, quantity) {
+                  var xhr = new XMLHttpRequest();
+                  xhr.open('POST', base + 'index.php?route=checkout/cart/add');
+                  xhr.setRequestHeader('Content-Type', 'application/x-www-form-urlencoded');
+                  xhr.onload = function () {
+                    var json = JSON.parse(xhr.responseText);
+                    document.querySelectorAll('.alert-dismissible').forEach(function (alert) { alert.remove(); });
+                    var alert = document.createElement('div');
+                    if (json.success) {
+                      alert.className = 'alert alert-success alert-dismissible';
+                      alert.innerHTML = '<i class="fa fa-check-circle"></i> ' + json.success
+                          + ' <button type="button" class="close" data-dismiss="alert">&times;</button>';
+                      setTimeout(function () {
+                        document.getElementById('cart-total').textContent = json.total;
+                      }, 100);
+                    } else {
+                      alert.className = 'alert alert-danger alert-dismissible';
+                      alert.innerHTML = '<i class="fa fa-exclamation-circle"></i> ' + json.error;
+                    }
+                    document.getElementById('alert-area').appendChild(alert);
+                  };
+                  xhr.send('product_id=' + encodeURIComponent(productId) + '&quantity=' + encodeURIComponent(quantity || 1));
+                }
+              };
+              var buttonCart = document.getElementById('button-cart');
+              if (buttonCart) {
+                buttonCart.addEventListener('click', function () {
+                  cart.add(document.querySelector('#product input[name="product_id"]').value,
+                      document.getElementById('input-quantity').value);
+                });
+              }
+            </script>
+            """;
+
+    private final String baseUrl;
+
+    /**
+     * @param baseUrl The absolute storefront base URL ending with a slash,
+     *                e.g. {@code http://127.0.0.1:8085/demo/}.
+     */
+    public StorefrontPages(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String url(String route) {
+        return baseUrl + "index.php?route=" + route;
+    }
+
+    public String productUrl(Product product) {
+        return url("product/product") + "&product_id=" + product.id();
+    }
+
+    public String home(PageState state) {
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <h2>Featured</h2>
+                </div>
+                """;
+        return layout("Your Store", state, "", content);
+    }
+
+    /**
+     * Renders one page of search results, with OpenCart's pagination links and result summary when
+     * the results do not fit on one page.
+     *
+     * @param state   The per-request values of the layout.
+     * @param term    The search term.
+     * @param results All matching products.
+     * @param page    The page number, starting at 1.
+     * @param limit   The number of products per page.
+     * @return The page.
+     */
+    public String searchResults(PageState state, String term, List<Product> results, int page, int limit) {
+        String title = term == null || term.isEmpty() ? "Search" : "Search - " + term;
+        StringBuilder content = new StringBuilder();
+        content.append("<div id=\"content\" class=\"col-sm-12\">")
+                .append("<h1>").append(escape(title)).append("</h1>")
+                .append("<p><label class=\"control-label\" for=\"input-search\">Search Criteria</label> ")
+                .append("<input type=\"text\" name=\"search\" value=\"").append(escape(term == null ? "" : term))
+                .append("\" id=\"input-search\" class=\"form-control\"/></p>")
+                .append("<h2>Products meeting the search criteria</h2>");
+
+        if (results.isEmpty()) {
+            content.append("<p>There is no product that matches the search criteria.</p>");
+        } else {
+            int pages = (results.size() + limit - 1) / limit;
+            int current = Math.min(page, pages);
+            int first = (current - 1) * limit;
+            int last = Math.min(first + limit, results.size());
+            content.append("<div class=\"row\">");
+            for (Product product : results.subList(first, last)) {
+                appendProductThumb(content, product);
+            }
+            content.append("</div>");
+            String pageUrl = url("product/search") + "&search=" + URLEncoder.encode(term, StandardCharsets.UTF_8)
+                    + (limit != DEFAULT_PRODUCT_LIMIT ? "&limit=" + limit : "") + "&page=";
+            content.append("<div class=\"row\"><div class=\"col-sm-6 text-left\">");
+            appendPagination(content, pageUrl, current, pages);
+            content.append("</div><div class=\"col-sm-6 text-right\">")
+                    .append(String.format("Showing %d to %d of %d (%d Pages)", first + 1, last, results.size(), pages))
+                    .append("</div></div>");
+        }
+        content.append("</div>");
+        return layout(title, state, term, content.toString());
+    }
+
+    private void appendPagination(StringBuilder content, String pageUrl, int current, int pages) {
+        if (pages <= 1) {
+            return;
+        }
+        content.append("<ul class=\"pagination\">");
+        if (current > 1) {
+            appendPageLink(content, pageUrl + 1, "|&lt;");
+            appendPageLink(content, pageUrl + (current - 1), "&lt;");
+        }
+        for (int page = 1; page <= pages; page++) {
+            if (page == current) {
+                content.append("<li class=\"active\"><span>").append(page).append("</span></li>");
+            } else {
+                appendPageLink(content, pageUrl + page, String.valueOf(page));
+            }
+        }
+        if (current < pages) {
+            appendPageLink(content, pageUrl + (current + 1), "&gt;");
+            appendPageLink(content, pageUrl + pages, "&gt;|");
+        }
+        content.append("</ul>");
+    }
+
+    private void appendPageLink(StringBuilder content, String url, String label) {
+        content.append("<li><a href=\"").append(escape(url)).append("\">").append(label).append("</a></li>");
+    }
+
+    private void appendProductThumb(StringBuilder content, Product product) {
+        String link = escape(productUrl(product));
+        content.append("<div class=\"product-layout product-grid col-lg-3\">")
+                .append("<div class=\"product-thumb\">")
+                .append("<div class=\"image\"><a href=\"").append(link).append("\">")
+                .append(escape(product.name())).append(" image</a></div>")
+                .append("<div>")
+                .append("<div class=\"caption\">")
+                .append("<h4><a href=\"").append(link).append("\">").append(escape(product.name())).append("</a></h4>")
+                .append("<p>").append(escape(product.description())).append("</p>")
+                .append("<p class=\"price\">").append(product.getFormattedPrice()).append("</p>")
+                .append("</div>")
+                .append("<div class=\"button-group\">")
+                .append("<button type=\"button\" onclick=\"cart.add('").append(product.id())
+                .append("', '1');\"><i class=\"fa fa-shopping-cart\"></i> <span>Add to Cart</span></button>")
+                .append("</div>")
+                .append("</div>")
+                .append("</div>")
+                .append("</div>");
+    }
+
+    public String product(PageState state, Product product) {
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <div class="row">
+                    <div class="col-sm-4">
+                      <h1>%s</h1>
+                      <ul class="list-unstyled"><li>Product Code: %s</li></ul>
+                      <ul class="list-unstyled"><li><h2>%s</h2></li></ul>
+                      <div id="product">
+                        <div class="form-group">
+                          <label class="control-label" for="input-quantity">Qty</label>
+                          <input type="text" name="quantity" value="1" size="2" id="input-quantity" class="form-control"/>
+                          <input type="hidden" name="product_id" value="%d"/>
+                          <button type="button" id="button-cart" class="btn btn-primary btn-lg btn-block">Add to Cart</button>
+                        </div>
+                      </div>
+                    </div>
+                  </div>
+                </div>
+                """.formatted(escape(product.name()), escape(product.model()), product.getFormattedPrice(), product.id());
+        return layout(product.name(), state, "", content);
+    }
+
+    public String productNotFound(PageState state) {
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <h1>Product not found!</h1>
+                  <p>The page you requested cannot be found.</p>
+                </div>
+                """;
+        return layout("Product not found!", state, "", content);
+    }
+
+    public String login(PageState state, String error) {
+        String alert = error == null ? "" : dangerAlert(error);
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <div class="row">
+                    <div class="col-sm-6">
+                      <div class="well">
+                        <h2>New Customer</h2>
+                        <a href="%s" class="btn btn-primary">Continue</a>
+                      </div>
+                    </div>
+                    <div class="col-sm-6">
+                      <div class="well">
+                        <h2>Returning Customer</h2>
+                        <form action="%s" method="post" enctype="application/x-www-form-urlencoded">
+                          <div class="form-group">
+                            <label class="control-label" for="input-email">E-Mail Address</label>
+                            <input type="text" name="email" value="" placeholder="E-Mail Address" id="input-email" class="form-control"/>
+                          </div>
+                          <div class="form-group">
+                            <label class="control-label" for="input-password">Password</label>
+                            <input type="password" name="password" value="" placeholder="Password" id="input-password" class="form-control"/>
+                            <a href="%s">Forgotten Password</a>
+                          </div>
+                          <input type="submit" value="Login" class="btn btn-primary"/>
+                        </form>
+                      </div>
+                    </div>
+                  </div>
+                </div>
+                """.formatted(escape(url("account/register")), escape(url("account/login")), escape(url("account/forgotten")));
+        return layout("Account Login", state, alert, content);
+    }
+
+    public String register(PageState state, Map<String, String> form, Map<String, String> errors) {
+        String alert = errors.containsKey("warning") ? dangerAlert(errors.get("warning")) : "";
+        StringBuilder content = new StringBuilder();
+        content.append("<div id=\"content\" class=\"col-sm-12\">")
+                .append("<h1>Register Account</h1>")
+                .append("<form action=\"").append(escape(url("account/register")))
+                .append("\" method=\"post\" enctype=\"application/x-www-form-urlencoded\">");
+        appendInput(content, "firstname", "First Name", "text", form, errors);
+        appendInput(content, "lastname", "Last Name", "text", form, errors);
+        appendInput(content, "email", "E-Mail", "email", form, errors);
+        appendInput(content, "telephone", "Telephone", "tel", form, errors);
+        appendInput(content, "password", "Password", "password", form, errors);
+        appendInput(content, "confirm", "Password Confirm", "password", form, errors);
+        content.append("<div class=\"form-group\"><label class=\"control-label\">Subscribe</label> ")
+                .append("<label class=\"radio-inline\"><input type=\"radio\" name=\"newsletter\" value=\"1\"/> Yes</label> ")
+                .append("<label class=\"radio-inline\"><input type=\"radio\" name=\"newsletter\" value=\"0\" checked=\"checked\"/> No</label>")
+                .append("</div>")
+                .append("<div class=\"buttons\"><div class=\"pull-right\">I have read and agree to the Privacy Policy ")
+                .append("<input type=\"checkbox\" name=\"agree\" value=\"1\"/> ")
+                .append("<input type=\"submit\" value=\"Continue\" class=\"btn btn-primary\"/>")
+                .append("</div></div>")
+                .append("</form>")
+                .append("</div>");
+        return layout("Register Account", state, alert, content.toString());
+    }
+
+    private void appendInput(StringBuilder content, String name, String label, String type,
+                             Map<String, String> form, Map<String, String> errors) {
+        String value = "password".equals(type) ? "" : form.getOrDefault(name, "");
+        content.append("<div class=\"form-group required\">")
+                .append("<label class=\"control-label\" for=\"input-").append(name).append("\">")
+                .append(label).append("</label>")
+                .append("<input type=\"").append(type).append("\" name=\"").append(name)
+                .append("\" value=\"").append(escape(value)).append("\" placeholder=\"").append(label)
+                .append("\" id=\"input-").append(name).append("\" class=\"form-control\"/>");
+        if (errors.containsKey(name)) {
+            content.append("<div class=\"text-danger\">").append(escape(errors.get(name))).append("</div>");
+        }
+        content.append("</div>");
+    }
+
+    public String registerSuccess(PageState state) {
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <h1>Your Account Has Been Created!</h1>
+                  <p>Congratulations! Your new account has been successfully created!</p>
+                  <div class="buttons"><a href="%s" class="btn btn-primary">Continue</a></div>
+                </div>
+                """.formatted(escape(url("account/account")));
+        return layout("Your Account Has Been Created!", state, "", content);
+    }
+
+    public String account(PageState state) {
+        String content = """
+                <div id="content" class="col-sm-9">
+                  <h2>My Account</h2>
+                  <ul class="list-unstyled">
+                    <li><a href="%1$s">Edit your account information</a></li>
+                    <li><a href="%1$s">Change your password</a></li>
+                  </ul>
+                </div>
+                <aside id="column-right" class="col-sm-3">
+                  <div class="list-group">
+                    <a href="%1$s" class="list-group-item">My Account</a>
+                    <a href="%2$s" class="list-group-item">Logout</a>
+                  </div>
+                </aside>
+                """.formatted(escape(url("account/account")), escape(url("account/logout")));
+        return layout("My Account", state, "", content);
+    }
+
+    public String logout(PageState state) {
+        String content = """
+                <div id="content" class="col-sm-12">
+                  <h1>Account Logout</h1>
+                  <p>You have been logged off your account. It is now safe to leave the computer.</p>
+                </div>
+                """;
+        return layout("Account Logout", state, "", content);
+    }
+
+    public String cart(PageState state, List<String> lines) {
+        StringBuilder content = new StringBuilder("<div id=\"content\" class=\"col-sm-12\"><h1>Shopping Cart</h1>");
+        if (lines.isEmpty()) {
+            content.append("<p>Your shopping cart is empty!</p>");
+        } else {
+            content.append("<ul class=\"list-unstyled\">");
+            for (String line : lines) {
+                content.append("<li>").append(escape(line)).append("</li>");
+            }
+            content.append("</ul>");
+        }
+        content.append("</div>");
+        return layout("Shopping Cart", state, "", content.toString());
+    }
+
+    private String dangerAlert(String message) {
+        return "<div class=\"alert alert-danger alert-dismissible\"><i class=\"fa fa-exclamation-circle\"></i> "
+                + escape(message) + "</div>";
+    }
+
+    private String layout(String title, PageState state, String alert, String content) {
+        String accountLinks = state.loggedIn()
+                ? "<li><a href=\"" + escape(url("account/account")) + "\">My Account</a></li>"
+                + "<li><a href=\"" + escape(url("account/logout")) + "\">Logout</a></li>"
+                : "<li><a href=\"" + escape(url("account/register")) + "\">Register</a></li>"
+                + "<li><a href=\"" + escape(url("account/login")) + "\">Login</a></li>";
+
+        return "<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"/>"
+                + "<title>" + escape(title) + "</title>"
+                + "<base href=\"" + escape(baseUrl) + "\"/>"
+                + STYLE
+                + "</head><body>"
+                + "<nav id=\"top\"><div class=\"container\"><div id=\"top-links\" class=\"nav pull-right\">"
+                + "<ul class=\"list-inline\"><li class=\"dropdown\">"
+                + "<a href=\"" + escape(url("account/account")) + "\" title=\"My Account\" class=\"dropdown-toggle\">"
+                + "<i class=\"fa fa-user\"></i> <span class=\"hidden-xs hidden-sm hidden-md\">My Account</span> "
+                + "<span class=\"caret\"></span></a>"
+                + "<ul class=\"dropdown-menu dropdown-menu-right\">" + accountLinks + "</ul>"
+                + "</li></ul></div></div></nav>"
+                + "<header><div class=\"container\"><div class=\"row\">"
+                + "<div id=\"logo\" class=\"col-sm-4\"><h1><a href=\"" + escape(url("common/home")) + "\">Qafox.com</a></h1></div>"
+                + "<div class=\"col-sm-5\"><div id=\"search\" class=\"input-group\">"
+                + "<input type=\"text\" name=\"search\" value=\"" + escape(state.searchTerm()) + "\" placeholder=\"Search\" class=\"form-control input-lg\"/>"
+                + "<span class=\"input-group-btn\"><button type=\"button\" class=\"btn btn-default btn-lg\">"
+                + "<i class=\"fa fa-search\"></i></button></span>"
+                + "</div></div>"
+                + "<div class=\"col-sm-3\"><div id=\"cart\" class=\"btn-group btn-block\">"
+                + "<button type=\"button\" class=\"btn btn-inverse btn-block btn-lg\">"
+                + "<i class=\"fa fa-shopping-cart\"></i> <span id=\"cart-total\">" + escape(state.cartTotal()) + "</span>"
+                + "</button></div></div>"
+                + "</div></div></header>"
+                + "<div class=\"container\"><div id=\"alert-area\">" + alert + "</div>"
+                + "<div class=\"row\">" + content + "</div></div>"
+                + SCRIPT.replace("{{base}}", baseUrl)
+                + "</body></html>";
+    }
+
+    /**
+     * Escapes the HTML special characters of a text value.
+     *
+     * @param value The raw text.
+     * @return The escaped text, or an empty string for {@code null}.
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Per-request values shared by every page layout.
+     *
+     * @param loggedIn   Whether the session belongs to a logged-in customer.
+     * @param cartTotal  The cart summary shown in the header, e.g. {@code 1 item(s) - $122.00}.
+     * @param searchTerm The value pre-filled in the header search box.
+     */
+    public record PageState(boolean loggedIn, String cartTotal, String searchTerm) {
+    }
+}
@@ -2,12 +2,36 @@ package tests;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 import org.openqa.selenium.WebDriver;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+import org.testng.Reporter;
 import org.testng.SkipException;
 import org.testng.annotations.*;
+import storefront.CachingStorefrontProxy;
+import storefront.LocalStorefrontServer;
+import utils.BrowserMemoryMonitor;
 import utils.ConfigFileReader;
+import utils.DataProviders;
+import utils.DataRowResults;
 import utils.DriverFactory;
+import utils.EmbeddedGrid;
+import utils.FailureBundle;
+import utils.NetworkConditions;
+import utils.PageTimings;
+import utils.Randomizer;
+import utils.TargetHealth;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 /**
  * A base test class for UI automation tests.
@@ -20,7 +44,19 @@ import java.time.Duration;
  * <p>Supports multiple browsers (e.g., Firefox, Brave) and loads test configuration
  * from a properties file.</p>
  */
-public class BaseTest {
+public class BaseTest implements IHookable {
+
+    private static final String ROW_CONTEXT_KEY = "row";
+    // Why the test method must be skipped, set by prepareDriver and acted on by run
+    private static final String SKIP_REASON_ATTRIBUTE = "skipReason";
+
+    private static LocalStorefrontServer localStorefront;
+    private static CachingStorefrontProxy storefrontProxy;
+    private static EmbeddedGrid embeddedGrid;
+    // Slots for parallel data-provider rows per test class, and the slot held by the current row's thread
+    private static final Map<Class<?>, Semaphore> rowPermits = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Semaphore> heldRowPermits = new ThreadLocal<>();
+    private static final Map<Method, Boolean> parallelRowMethods = new ConcurrentHashMap<>();
 
     private Logger logger;
     private String browser;
@@ -42,11 +78,104 @@ public class BaseTest {
         return os;
     }
 
+    /**
+     * Records the message the page showed for the current data-provider row, for the row results
+     * written by {@code DataRowResultsListener}.
+     *
+     * @param message The actual message.
+     */
+    public void recordActualMessage(String message) {
+        ITestResult result = Reporter.getCurrentTestResult();
+        if (result != null) {
+            result.setAttribute(DataRowResults.ACTUAL_MESSAGE_ATTRIBUTE, message);
+        }
+    }
+
+    /**
+     * Starts the storefront selected by {@code storefront_mode} once per suite.
+     * <ul>
+     *     <li>{@code local}: the embedded {@link LocalStorefrontServer}, seeded with the account from the
+     *     configuration file so the valid-login tests work against it.</li>
+     *     <li>{@code record}/{@code replay}: the {@link CachingStorefrontProxy} in front of the live storefront.</li>
+     * </ul>
+     * <p>Both listen on {@code storefront_port}, and all page URLs returned by {@link ConfigFileReader}
+     * point at them while they are running.</p>
+     * <p>For remote execution with {@code grid_mode=embedded}, an {@link EmbeddedGrid} is started.
+     * The storefront and, for remote execution, the Grid are then probed by the {@link TargetHealth}
+     * preflight check; if it fails, tests are skipped until a later probe passes.</p>
+     * @throws SkipException If the storefront cannot be started or the mode is invalid.
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void startStorefront() {
+        String mode = ConfigFileReader.getStorefrontMode();
+        int port = ConfigFileReader.getStorefrontPort();
+
+        try {
+            switch (mode) {
+                case "live":
+                    break;
+                case "local":
+                    String contextPath = URI.create(ConfigFileReader.getStorefrontBaseURL()).getPath();
+                    localStorefront = new LocalStorefrontServer(port, contextPath);
+                    localStorefront.addAccount(ConfigFileReader.getEmail(), ConfigFileReader.getPassword());
+                    localStorefront.start();
+                    break;
+                case "record":
+                case "replay":
+                    storefrontProxy = new CachingStorefrontProxy(port, ConfigFileReader.getLiveHomePageURL(),
+                            CachingStorefrontProxy.Mode.valueOf(mode.toUpperCase()),
+                            ConfigFileReader.getProxyCacheDir());
+                    storefrontProxy.start();
+                    break;
+                default:
+                    throw new SkipException("Skipping suite: invalid storefront mode: " + mode);
+            }
+        } catch (IOException e) {
+            throw new SkipException("Skipping suite: could not start the " + mode + " storefront. " + e.getMessage());
+        }
+
+        boolean remote = ConfigFileReader.getExecutionEnvironment().equalsIgnoreCase("remote");
+        if (remote && ConfigFileReader.isEmbeddedGrid()) {
+            try {
+                embeddedGrid = EmbeddedGrid.start();
+            } catch (IOException e) {
+                throw new SkipException("Skipping suite: could not start the embedded Grid. " + e.getMessage());
+            }
+        }
+
+        TargetHealth.preflight();
+    }
+
+    /**
+     * Stops the storefront stand-in or proxy and the embedded Grid, if they were started for this suite,
+     * releases shared browsers, exports the browser memory samples and logs the per-page
+     * time-to-ready summary.
+     */
+    @AfterSuite(alwaysRun = true)
+    public void stopStorefront() {
+        PageTimings.logSummary();
+        DriverFactory.shutdown();
+
+        if (localStorefront != null) {
+            localStorefront.stop();
+            localStorefront = null;
+        }
+        if (storefrontProxy != null) {
+            storefrontProxy.stop();
+            storefrontProxy = null;
+        }
+        if (embeddedGrid != null) {
+            embeddedGrid.stop();
+            embeddedGrid = null;
+        }
+    }
+
     /**
      * Sets up the test environment before the test class runs.
      * <p>This method initializes the logger, loads the configuration properties,
      * and sets up the WebDriver based on the specified browser and OS.
-     * It also configures the WebDriver with implicit waits and maximizes the browser window.</p>
+     * It also configures the WebDriver with implicit waits and maximizes the browser window.
+     * Infrastructure failures are recorded in the circuit breaker of {@link TargetHealth}.</p>
      * @param os      The operating system where the test is running.
      * @param browser The browser to use for the test (e.g., "firefox", "brave").
      * @throws SkipException If the properties file cannot be loaded or the browser name is invalid.
@@ -59,16 +188,176 @@ public class BaseTest {
         this.browser = browser;
         this.os = os;
 
-        // Initialize the driver using DriverFactory
-        DriverFactory.initializeDriver(browser, os);
+        // Skip without launching a browser while the storefront or Grid is down
+        TargetHealth.checkBeforeTest();
+
+        try {
+            // Initialize the driver using DriverFactory
+            DriverFactory.initializeDriver(browser, os);
+
+            // Configure the driver
+            getDriver().manage().deleteAllCookies();
+            configureDriver();
+            getDriver().get(ConfigFileReader.getHomePageURL());
+        } catch (RuntimeException e) {
+            TargetHealth.recordFailure(e);
+            throw e;
+        }
+    }
 
-        // Configure the driver
-        getDriver().manage().deleteAllCookies();
+    /**
+     * Skips the test method right away while the circuit breaker of {@link TargetHealth} is open.
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void checkTargetHealth() {
+        TargetHealth.checkBeforeTest();
+    }
+
+    /**
+     * Records the outcome of the test method in the circuit breaker of {@link TargetHealth}.
+     * @param result The result of the test method.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void recordTargetHealth(ITestResult result) {
+        if (result.getStatus() == ITestResult.FAILURE && result.getThrowable() != null) {
+            TargetHealth.recordFailure(result.getThrowable());
+        } else if (result.getStatus() == ITestResult.SUCCESS) {
+            TargetHealth.recordSuccess();
+        }
+    }
+
+    /**
+     * Seeds the random test data generator for the test method that is about to run,
+     * from the run seed and the test's class, method and parameters.
+     * @param method     The test method.
+     * @param parameters The test method's parameters, e.g. its data-provider row.
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void seedTestData(Method method, Object[] parameters) {
+        Randomizer.reseed(getClass().getName() + "." + method.getName() + Arrays.toString(parameters));
+    }
+
+    /**
+     * Prepares the session for the test method that is about to run.
+     * <p>Rows of a {@code parallel = true} data provider run on TestNG's data-provider threads, which have
+     * no session of their own. Each row borrows a reset session from the {@link DriverFactory} pool, or a
+     * context of a shared browser with {@code browser_isolation=context}, and starts on the home page.
+     * At most {@code parallel_rows_per_class} rows of a test class run at a time.
+     * Log lines of data-provider rows are tagged with the method and row.</p>
+     * <p>The session's memory is then sampled, and the session is replaced with a fresh one if it has crossed
+     * the configured memory, age or test-count limit, or if a timed-out failure capture is still using it
+     * (see {@link FailureBundle#isCaptureRunning}). The new session continues with the cookies and page
+     * of the old one.</p>
+     * <p>Finally, the session is put under the test's network profile (see {@link NetworkConditions}).
+     * If the browser cannot emulate it, the test method is skipped by {@link #run}.</p>
+     * @param method The test method.
+     * @param result The result of the test method that is about to run.
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void prepareDriver(Method method, ITestResult result) {
+        if (result.getParameters().length > 0) {
+            ThreadContext.put(ROW_CONTEXT_KEY, method.getName() + "#" + DataProviders.getRowIndex(result));
+        }
+        if (runsRowsInParallel(method)) {
+            borrowRowDriver();
+        }
+
+        String reason = FailureBundle.isCaptureRunning(DriverFactory.getSessionDriver())
+                ? "a timed-out failure capture is still using the session"
+                : BrowserMemoryMonitor.checkBeforeTest(DriverFactory.getSessionDriver());
+        if (reason != null) {
+            logger.info("Recycling WebDriver: {}", reason);
+            DriverFactory.recycleDriver(browser, os);
+            configureDriver();
+            BrowserMemoryMonitor.checkBeforeTest(DriverFactory.getSessionDriver());
+        }
+
+        NetworkConditions.Profile profile = NetworkConditions.forTest(getClass(), method);
+        result.setAttribute(NetworkConditions.PROFILE_ATTRIBUTE, profile.name());
+        if (!NetworkConditions.apply(DriverFactory.getSessionDriver(), browser, profile)) {
+            result.setAttribute(SKIP_REASON_ATTRIBUTE, "Network profile '" + profile.name()
+                    + "' needs a Chromium-based browser, not " + browser);
+        }
+    }
+
+    /**
+     * Runs the test method, or skips it if {@link #prepareDriver} found that it cannot run in this session.
+     * <p>A {@link SkipException} thrown from a {@code @BeforeMethod} would skip every later test method of
+     * the class as well; thrown here, it skips only this invocation.</p>
+     * @param callBack   The callback that runs the test method.
+     * @param testResult The result of the test method.
+     */
+    @Override
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        if (testResult.getAttribute(SKIP_REASON_ATTRIBUTE) instanceof String reason) {
+            throw new SkipException(reason);
+        }
+        callBack.runTestMethod(testResult);
+    }
+
+    /**
+     * Returns a session borrowed for a data-provider row to the pool and frees the row's slot.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void releaseRowDriver() {
+        Semaphore permits = heldRowPermits.get();
+        if (permits != null) {
+            DriverFactory.returnDriver();
+            heldRowPermits.remove();
+            permits.release();
+        }
+        ThreadContext.remove(ROW_CONTEXT_KEY);
+    }
+
+    private void borrowRowDriver() {
+        Semaphore permits = rowPermits.computeIfAbsent(getClass(),
+                testClass -> new Semaphore(ConfigFileReader.getParallelRowsPerClass(), true));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SkipException("Interrupted while waiting for a free data-provider row slot");
+        }
+        heldRowPermits.set(permits);
+
+        try {
+            DriverFactory.borrowDriver(browser, os);
+            configureDriver();
+            getDriver().get(ConfigFileReader.getHomePageURL());
+        } catch (RuntimeException e) {
+            TargetHealth.recordFailure(e);
+            throw e;
+        }
+    }
+
+    private void configureDriver() {
         getDriver().manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-        getDriver().get(ConfigFileReader.getHomePageURL());
+        getDriver().manage().timeouts().pageLoadTimeout(ConfigFileReader.getPageLoadTimeout());
         getDriver().manage().window().maximize();
     }
 
+    /**
+     * Returns whether the rows of the test method's data provider run in parallel.
+     */
+    private static boolean runsRowsInParallel(Method method) {
+        return parallelRowMethods.computeIfAbsent(method, testMethod -> {
+            Test test = testMethod.getAnnotation(Test.class);
+            if (test == null || test.dataProvider().isEmpty()) {
+                return false;
+            }
+            Class<?> providerClass = test.dataProviderClass() == Object.class
+                    ? testMethod.getDeclaringClass() : test.dataProviderClass();
+            for (Method candidate : providerClass.getMethods()) {
+                DataProvider dataProvider = candidate.getAnnotation(DataProvider.class);
+                if (dataProvider != null && test.dataProvider().equals(
+                        dataProvider.name().isEmpty() ? candidate.getName() : dataProvider.name())) {
+                    return dataProvider.parallel();
+                }
+            }
+            return false;
+        });
+    }
+
     /**
      * Cleans up the test environment after the test class runs.
      */
@@ -0,0 +1,123 @@
+package tests;
+
+import load.LoadGenerator;
+import load.LoadProfile;
+import load.LoadReport;
+import load.Scenario;
+import load.VirtualUser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import storefront.LocalStorefrontServer;
+import utils.ConfigFileReader;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The login, search and add-to-cart flows of {@link TC002_LoginTests}, {@link TC003_SearchTests} and
+ * {@link TC004_AddToCartTests} as HTTP-level {@link Scenario scenarios}, for load tests with the
+ * {@link LoadGenerator}. Each step sends the requests the browser sends for the same user action.
+ *
+ * <p>Run with {@code mvn -Pload verify -Dload.scenario=shop}; the load profile comes from the
+ * {@code load_*} settings. With {@code storefront_mode=local}, the embedded storefront is started
+ * and seeded with the configured account first.</p>
+ */
+public class LoadFlows {
+
+    private static final Logger logger = LogManager.getLogger(LoadFlows.class);
+    private static final String MY_ACCOUNT_HEADER = "My Account";
+
+    /**
+     * Logs in with the given account and opens the account page, like {@code testLoginWithValidCredentials}.
+     *
+     * @param email    The account email.
+     * @param password The account password.
+     * @return The scenario.
+     */
+    public static Scenario login(String email, String password) {
+        return new Scenario("login")
+                .step("open login", user -> user.get("account/login").expectStatus(200))
+                .step("submit login", user -> user.post("account/login", Map.of("email", email, "password", password))
+                        .expectStatus(200)
+                        .expectContains(MY_ACCOUNT_HEADER))
+                .step("logout", user -> user.get("account/logout").expectStatus(200));
+    }
+
+    /**
+     * Searches for a product, opens it from the results and adds it to the cart, like
+     * {@code testAddToCartFromProductPage}.
+     *
+     * @param searchTerm A search term that finds the product, e.g. {@code imac}.
+     * @return The scenario.
+     */
+    public static Scenario searchAndAddToCart(String searchTerm) {
+        Pattern productLink = Pattern.compile("product_id=(\\d+)");
+        return new Scenario("search and add to cart")
+                .step("home", user -> user.get("common/home").expectStatus(200))
+                .step("search", user -> {
+                    VirtualUser.Response results = user.get("product/search", Map.of("search", searchTerm))
+                            .expectStatus(200);
+                    Matcher matcher = productLink.matcher(results.body());
+                    if (!matcher.find()) {
+                        throw new IllegalStateException("No search results for '" + searchTerm + "'");
+                    }
+                    user.setVariable("productId", matcher.group(1));
+                })
+                .step("product", user -> user.get("product/product", Map.of("product_id", user.getVariable("productId")))
+                        .expectStatus(200)
+                        .expectContains("button-cart"))
+                .step("add to cart", user -> user.post("checkout/cart/add",
+                                Map.of("product_id", user.getVariable("productId"), "quantity", "1"))
+                        .expectStatus(200)
+                        .expectContains("\"success\""));
+    }
+
+    /**
+     * Returns a scenario by name: {@code login}, {@code search} or {@code shop} (search and add to cart).
+     *
+     * @param name The scenario name.
+     * @return The scenario.
+     * @throws IllegalArgumentException If there is no scenario with that name.
+     */
+    public static Scenario byName(String name) {
+        return switch (name) {
+            case "login" -> login(ConfigFileReader.getEmail(), ConfigFileReader.getPassword());
+            case "search" -> new Scenario("search")
+                    .step("search", user -> user.get("product/search", Map.of("search", "imac"))
+                            .expectStatus(200)
+                            .expectContains("product_id="));
+            case "shop" -> searchAndAddToCart("imac");
+            default -> throw new IllegalArgumentException("Unknown load scenario: " + name);
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        Scenario scenario = byName(args.length > 0 ? args[0] : "shop");
+
+        LocalStorefrontServer localStorefront = null;
+        if (ConfigFileReader.getStorefrontMode().equals("local")) {
+            String contextPath = URI.create(ConfigFileReader.getStorefrontBaseURL()).getPath();
+            localStorefront = new LocalStorefrontServer(ConfigFileReader.getStorefrontPort(), contextPath);
+            localStorefront.addAccount(ConfigFileReader.getEmail(), ConfigFileReader.getPassword());
+            localStorefront.start();
+        }
+        try {
+            LoadReport report = new LoadGenerator(ConfigFileReader.getStorefrontBaseURL())
+                    .run(scenario, LoadProfile.fromConfig());
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+            Path csvFile = ConfigFileReader.getReportDir().resolve(timestamp + "_LoadReport.csv");
+            report.writeCsv(csvFile);
+            logger.info("Load report written to {}", csvFile);
+        } finally {
+            if (localStorefront != null) {
+                localStorefront.stop();
+            }
+        }
+    }
+}
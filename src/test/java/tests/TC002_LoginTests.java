@@ -84,7 +84,9 @@ public class TC002_LoginTests extends BaseTest{
         softAssert.assertEquals(getDriver().getCurrentUrl(), expectedURL, "URL mismatch");
         softAssert.assertEquals(getDriver().getTitle(), LOGIN_PAGE_TITLE, "Title mismatch");
         softAssert.assertTrue(loginPage.existsErrorMessage(), "Error message is not present");
-        softAssert.assertEquals(loginPage.getErrorMessage(), expectedErrorMessage);
+        String errorMessage = loginPage.getErrorMessage();
+        recordActualMessage(errorMessage);
+        softAssert.assertEquals(errorMessage, expectedErrorMessage);
         softAssert.assertAll();
         getLogger().info("Login test with invalid credentials completed successfully");
     }
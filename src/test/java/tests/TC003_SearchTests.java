@@ -4,6 +4,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 import pages.HomePage;
 import pages.SearchResultsPage;
+import utils.ConfigFileReader;
 import utils.DataProviders;
 
 /**
@@ -44,9 +45,10 @@ public class TC003_SearchTests extends BaseTest {
         SearchResultsPage resultsPage = new SearchResultsPage(getDriver());
         getLogger().info("Verifying results page header");
         String resultsHeader = resultsPage.getResultsHeader();
+        recordActualMessage(resultsHeader);
         Assert.assertEquals(expectedTitle, resultsHeader, "Test failed: page header does not match expected");
         getLogger().info("Verifying results page URL");
-        Assert.assertEquals(expectedURL, getDriver().getCurrentUrl(), "Test failed: page URL does not match expected");
+        Assert.assertEquals(ConfigFileReader.resolveURL(expectedURL), getDriver().getCurrentUrl(), "Test failed: page URL does not match expected");
         getLogger().info("Verifying results page Title");
         Assert.assertEquals(expectedTitle, getDriver().getTitle(), "Test failed: page title does not match expected");
 
@@ -59,7 +61,9 @@ public class TC003_SearchTests extends BaseTest {
             Assert.assertEquals(resultsCount, 0, "Test failed: results count not equal to zero");
             if (!expectedMessage.equals("N/A")) {
                 getLogger().info("Verifying no results found message");
-                Assert.assertTrue(resultsPage.getNoResultMessage().contains(expectedMessage), "Test failed: no result message does not match expected message");
+                String noResultMessage = resultsPage.getNoResultMessage();
+                recordActualMessage(noResultMessage);
+                Assert.assertTrue(noResultMessage.contains(expectedMessage), "Test failed: no result message does not match expected message");
             }
         }
 
@@ -5,6 +5,7 @@ import org.testng.annotations.Test;
 import pages.HomePage;
 import pages.ProductPage;
 import pages.SearchResultsPage;
+import utils.VisualCheckpoint;
 
 /**
  * Test class for "Add to Cart" functionality.
@@ -41,6 +42,8 @@ public class TC004_AddToCartTests extends BaseTest {
         getLogger().info("Clicking Add To Cart button");
         ProductPage productPage = new ProductPage(getDriver());
         Assert.assertTrue(productPage.getProductNameHeaderText().equalsIgnoreCase(productName));
+        VisualCheckpoint.Result visualResult = productPage.checkVisualBaseline();
+        Assert.assertTrue(visualResult.isMatch(), "Product page does not match its visual baseline: " + visualResult);
         productPage.clickAddToCartButton();
 
         Assert.assertTrue(productPage.isSuccessMessagePresent(), "Add to cart success message not present");
@@ -0,0 +1,124 @@
+package tests;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import storefront.LocalStorefrontServer;
+import utils.SharedBrowserContexts;
+
+import java.io.IOException;
+
+/**
+ * Test class for the shared-browser context isolation mode.
+ * Verifies that two sessions hosted by the same browser process do not see each other's
+ * cookies or local storage. Runs against the embedded storefront so it does not need the network.
+ */
+public class TC005_BrowserContextIsolationTests {
+
+    private static final Logger logger = LogManager.getLogger(TC005_BrowserContextIsolationTests.class);
+
+    private LocalStorefrontServer storefront;
+    private String browser;
+    private WebDriver contextA;
+    private WebDriver contextB;
+
+    @BeforeClass(alwaysRun = true)
+    @Parameters({"browser"})
+    public void setUp(@Optional("chrome") String browser) throws IOException {
+        if (!browser.equalsIgnoreCase("chrome") && !browser.equalsIgnoreCase("brave")) {
+            throw new SkipException("Browser contexts require a Chromium-based browser, not " + browser);
+        }
+        this.browser = browser;
+        storefront = new LocalStorefrontServer(0, "/demo/");
+        storefront.start();
+    }
+
+    @BeforeMethod(alwaysRun = true)
+    public void acquireContexts() {
+        ChromeOptions hostOptions = new ChromeOptions();
+        hostOptions.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        contextA = SharedBrowserContexts.acquire(browser, hostOptions);
+        contextB = SharedBrowserContexts.acquire(browser, hostOptions);
+        contextA.get(storefront.getBaseUrl());
+        contextB.get(storefront.getBaseUrl());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void releaseContexts() {
+        if (contextA != null) {
+            SharedBrowserContexts.release(contextA);
+        }
+        if (contextB != null) {
+            SharedBrowserContexts.release(contextB);
+        }
+        contextA = null;
+        contextB = null;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        // The contexts are released after each test; the host browsers may serve other classes' sessions
+        if (storefront != null) {
+            storefront.stop();
+        }
+    }
+
+    @Test(
+            priority = 1,
+            groups = "contexts"
+    )
+    public void testContextsShareOneBrowserProcess() {
+        logger.info("Verifying both contexts are hosted by the same browser process");
+        Assert.assertEquals(SharedBrowserContexts.getDebuggerAddress(contextA),
+                SharedBrowserContexts.getDebuggerAddress(contextB),
+                "Contexts are hosted by different browser processes");
+    }
+
+    @Test(
+            priority = 2,
+            groups = "contexts"
+    )
+    public void testCookiesAreIsolated() {
+        logger.info("Setting cookie in context A");
+        contextA.manage().addCookie(new Cookie("isolation", "A"));
+
+        Assert.assertEquals(contextA.manage().getCookieNamed("isolation").getValue(), "A",
+                "Cookie not set in context A");
+        Assert.assertNull(contextB.manage().getCookieNamed("isolation"),
+                "Cookie set in context A is visible in context B");
+
+        logger.info("Verifying each context got its own storefront session");
+        Cookie sessionA = contextA.manage().getCookieNamed("OCSESSID");
+        Cookie sessionB = contextB.manage().getCookieNamed("OCSESSID");
+        Assert.assertNotNull(sessionA, "Session cookie missing in context A");
+        Assert.assertNotNull(sessionB, "Session cookie missing in context B");
+        Assert.assertNotEquals(sessionA.getValue(), sessionB.getValue(), "Contexts share a storefront session");
+    }
+
+    @Test(
+            priority = 3,
+            groups = "contexts"
+    )
+    public void testLocalStorageIsIsolated() {
+        logger.info("Setting local storage item in context A");
+        ((JavascriptExecutor) contextA).executeScript("localStorage.setItem('isolation', 'A');");
+
+        Object valueA = ((JavascriptExecutor) contextA).executeScript("return localStorage.getItem('isolation');");
+        Object valueB = ((JavascriptExecutor) contextB).executeScript("return localStorage.getItem('isolation');");
+        Assert.assertEquals(valueA, "A", "Local storage item not set in context A");
+        Assert.assertNull(valueB, "Local storage item set in context A is visible in context B");
+    }
+}
@@ -0,0 +1,78 @@
+package tests;
+
+import load.LoadGenerator;
+import load.LoadProfile;
+import load.LoadReport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import storefront.LocalStorefrontServer;
+import utils.ConfigFileReader;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Test class for the HTTP-level load flows.
+ * Runs the {@link LoadFlows} scenarios with many concurrent virtual users against the embedded
+ * storefront, and verifies that every step succeeds and is measured. Does not need a browser.
+ */
+public class TC006_LoadSmokeTests {
+
+    private static final Logger logger = LogManager.getLogger(TC006_LoadSmokeTests.class);
+    private static final LoadProfile SMOKE_PROFILE = new LoadProfile()
+            .users(500)
+            .rampUp(Duration.ofSeconds(2))
+            .thinkTime(Duration.ofMillis(100))
+            .duration(Duration.ofSeconds(8));
+
+    private LocalStorefrontServer storefront;
+
+    @BeforeClass(alwaysRun = true)
+    public void setUp() throws IOException {
+        storefront = new LocalStorefrontServer(0, "/demo/");
+        storefront.addAccount(ConfigFileReader.getEmail(), ConfigFileReader.getPassword());
+        storefront.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        if (storefront != null) {
+            storefront.stop();
+        }
+    }
+
+    @Test(
+            priority = 1,
+            groups = "load"
+    )
+    public void testLoginFlowUnderLoad() {
+        LoadReport report = new LoadGenerator(storefront.getBaseUrl())
+                .run(LoadFlows.login(ConfigFileReader.getEmail(), ConfigFileReader.getPassword()), SMOKE_PROFILE);
+        verifyReport(report);
+    }
+
+    @Test(
+            priority = 2,
+            groups = "load"
+    )
+    public void testSearchAndAddToCartFlowUnderLoad() {
+        LoadReport report = new LoadGenerator(storefront.getBaseUrl())
+                .run(LoadFlows.searchAndAddToCart("imac"), SMOKE_PROFILE);
+        verifyReport(report);
+    }
+
+    private void verifyReport(LoadReport report) {
+        Assert.assertTrue(report.getIterations() > 0, "No iteration completed");
+        for (String step : report.getStepNames()) {
+            logger.info("Step '{}': {} requests, p99 {} ms", step, report.getLatencies(step).getCount(),
+                    report.getLatencies(step).getPercentileMillis(99));
+            Assert.assertTrue(report.getLatencies(step).getCount() > 0, "Step '" + step + "' was never measured");
+            Assert.assertEquals(report.getErrors(step), 0L,
+                    "Step '" + step + "' failed: " + report.getErrorSamples(step));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pages.HomePage;
+import pages.SearchResultsPage;
+import utils.NetworkProfile;
+
+/**
+ * Test class for search and "Add to Cart" on slow and unreliable connections.
+ * Every test runs on an emulated 3G connection unless it asks for another network profile, so the
+ * page timings of the run can be compared per profile. Needs a Chromium-based browser; the tests
+ * are skipped in Firefox.
+ */
+@NetworkProfile("3g")
+public class TC007_SlowNetworkTests extends BaseTest {
+
+    /**
+     * Tests that a search still shows its results on a 3G connection.
+     * Steps:
+     * 1. Search for a product.
+     * 2. Verify the results page header and that results are present.
+     */
+    @Test(
+            priority = 1
+    )
+    public void testSearchOnSlowConnection() {
+
+        String productName = "imac";
+        getLogger().info("Entering search term: {}", productName);
+        HomePage homePage = new HomePage(getDriver());
+        homePage.typeSearchInput(productName);
+        homePage.clickSearch();
+
+        SearchResultsPage resultsPage = new SearchResultsPage(getDriver());
+        getLogger().info("Verifying results page header");
+        Assert.assertEquals(resultsPage.getResultsHeader(), "Search - " + productName,
+                "Test failed: page header does not match expected");
+        Assert.assertTrue(resultsPage.resultsCount() > 0, "Test failed: results count not greater than zero");
+
+        getLogger().info("Search on slow connection completed successfully");
+    }
+
+    /**
+     * Tests adding a product to the cart from the search results on a Wi-Fi connection that drops packets.
+     * Steps:
+     * 1. Search for a product.
+     * 2. Add the product to the cart from the search results.
+     * 3. Verify the success message presence and text.
+     */
+    @Test(
+            priority = 2
+    )
+    @NetworkProfile("lossy-wifi")
+    public void testAddToCartOnLossyConnection() {
+
+        String productName = "imac";
+        getLogger().info("Entering search term: {}", productName);
+        HomePage homePage = new HomePage(getDriver());
+        homePage.typeSearchInput(productName);
+        homePage.clickSearch();
+
+        SearchResultsPage resultsPage = new SearchResultsPage(getDriver());
+        getLogger().info("Clicking add to cart");
+        resultsPage.clickAddToCart(productName);
+
+        getLogger().info("Verifying Success message");
+        Assert.assertTrue(resultsPage.isSuccessMessagePresent(), "Add to cart success message not present");
+        String expectedSuccessText = String.format("Success: You have added %s to your shopping cart!", productName).toLowerCase();
+        String actualSuccessText = resultsPage.getSuccessMessageText().toLowerCase().trim();
+        Assert.assertTrue(actualSuccessText.contains(expectedSuccessText), "Success message not match");
+
+        getLogger().info("Add to cart on lossy connection completed successfully");
+    }
+}
@@ -0,0 +1,53 @@
+package tests;
+
+import crawl.CatalogCrawler;
+import crawl.CrawlReport;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import storefront.StorefrontCatalog;
+import utils.ConfigFileReader;
+
+import java.util.List;
+
+/**
+ * Test class for the catalog crawl.
+ * Crawls the search listings of the configured seed terms with several sessions at once and verifies
+ * that every listed product page opens and shows its product.
+ */
+public class TC008_CatalogCrawlTests extends BaseTest {
+
+    /**
+     * Tests that every product reachable from the search listings can be opened.
+     * Steps:
+     * 1. Crawl the listings of the seed terms, following their pagination, and open every product found.
+     * 2. Verify that no page failed and that products were verified.
+     * 3. On the embedded storefront, verify that every catalog product was reached.
+     */
+    @Test(
+            priority = 1,
+            groups = "crawl"
+    )
+    public void testCatalogCrawl() {
+
+        int pageLimit = ConfigFileReader.getCrawlPageLimit();
+        List<String> listingUrls = ConfigFileReader.getCrawlSeedTerms().stream()
+                .map(term -> CatalogCrawler.searchUrl(term, pageLimit))
+                .toList();
+        getLogger().info("Crawling {} listings with {} sessions", listingUrls.size(),
+                ConfigFileReader.getCrawlContexts());
+        CrawlReport report = new CatalogCrawler(getBrowser(), getOs(), ConfigFileReader.getCrawlContexts())
+                .crawl(listingUrls);
+        getLogger().info("Crawled {} pages at {} pages/s", report.getListingPages() + report.getVerifiedProducts(),
+                String.format("%.2f", report.getPagesPerSecond()));
+
+        Assert.assertTrue(report.getFailures().isEmpty(), "Test failed: crawl failures " + report.getFailures());
+        Assert.assertEquals(report.getUnvisited(), 0, "Test failed: pages left unvisited");
+        Assert.assertTrue(report.getVerifiedProducts() > 0, "Test failed: no product verified");
+        if (ConfigFileReader.getStorefrontMode().equals("local")) {
+            Assert.assertEquals(report.getVerifiedProducts(), new StorefrontCatalog().getAllProducts().size(),
+                    "Test failed: not every catalog product was reached");
+        }
+
+        getLogger().info("Catalog crawl completed successfully");
+    }
+}
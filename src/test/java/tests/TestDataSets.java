@@ -0,0 +1,77 @@
+package tests;
+
+import storefront.StorefrontCatalog;
+import utils.ConfigFileReader;
+import utils.Randomizer;
+import utils.TestDataGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static utils.TestDataGenerator.constant;
+import static utils.TestDataGenerator.dictionary;
+import static utils.TestDataGenerator.either;
+import static utils.TestDataGenerator.random;
+import static utils.TestDataGenerator.template;
+
+/**
+ * Column specs for generated versions of the data files of {@link TC002_LoginTests} and
+ * {@link TC003_SearchTests}, with the same columns as the hand-made files.
+ *
+ * <p>Run with {@code mvn -Pdatagen verify -Ddatagen.dataset=search -Ddatagen.rows=500000
+ * -Ddatagen.file=testData/generated/search.csv}, then point the tests at the file with
+ * {@code -Dsearch_data_file=testData/generated/search.csv} (or {@code login_data_file}).</p>
+ */
+public class TestDataSets {
+
+    private static final String NO_RESULTS_MESSAGE = "There is no product that matches the search criteria.";
+    private static final String LOGIN_ERROR_MESSAGE = "Warning: No match for E-Mail Address and/or Password.";
+
+    /**
+     * Search terms for {@code searchData}: mostly words of product names, the rest misspelled. The
+     * expected results come from {@link StorefrontCatalog}, which holds the live storefront's products.
+     */
+    public static TestDataGenerator search() {
+        StorefrontCatalog catalog = new StorefrontCatalog();
+        TestDataGenerator.Column word = dictionary("search-terms");
+        return new TestDataGenerator("search")
+                .column("Search Term", either(80, word,
+                        row -> word.value(row) + Randomizer.generateRandomAlphabeticStr(3)))
+                .column("Results Present", row -> catalog.search(row.get("Search Term")).isEmpty() ? "no" : "yes")
+                .column("Expected Title", template("Search - {Search Term}"))
+                .column("Expected URL", template(ConfigFileReader.getLiveHomePageURL()
+                        + "index.php?route=product/search&search={Search Term}"))
+                .column("Expected Message",
+                        row -> row.get("Results Present").equals("yes") ? "N/A" : NO_RESULTS_MESSAGE);
+    }
+
+    /**
+     * Unknown accounts for {@code invalidLoginData}.
+     */
+    public static TestDataGenerator invalidLogin() {
+        return new TestDataGenerator("invalidLogin")
+                .column("email", random(Randomizer::generateRandomEmail))
+                .column("password", random(() -> Randomizer.generateRandomAlphaNumericStr(12)))
+                .column("expected error message", constant(LOGIN_ERROR_MESSAGE));
+    }
+
+    public static TestDataGenerator byName(String name) {
+        return switch (name) {
+            case "search" -> search();
+            case "invalidLogin" -> invalidLogin();
+            default -> throw new IllegalArgumentException("Unknown data set: " + name);
+        };
+    }
+
+    /**
+     * Generates a data file.
+     *
+     * @param args The data set name, the number of rows and the output file ({@code .xlsx} or {@code .csv}).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: TestDataSets <search|invalidLogin> <rows> <file.xlsx|file.csv>");
+        }
+        byName(args[0]).write(Path.of(args[2]), Long.parseLong(args[1]));
+    }
+}
@@ -0,0 +1,353 @@
+package utils;
+
+import com.opencsv.CSVWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Samples the memory used by each WebDriver session and decides when a session should be recycled.
+ *
+ * <p>For local sessions on Linux the monitor finds the browser's root process (Firefox reports it as
+ * {@code moz:processID}; for Chromium it is the process started with the session's
+ * {@code --user-data-dir}) and sums the resident set size of it and all its descendants, as read from
+ * {@code /proc/<pid>/status}. The driver executable (chromedriver or geckodriver) is the browser's
+ * parent process and is sampled separately. Where {@code /proc} is not available (remote sessions,
+ * shared-browser contexts, other operating systems) the page's JS heap size is used instead, if the
+ * browser exposes it.</p>
+ *
+ * <p>Samples are taken before each test method and when the session is quit, and are exported as one
+ * CSV per run next to the HTML report.</p>
+ */
+public class BrowserMemoryMonitor {
+
+    private static final Logger logger = LogManager.getLogger(BrowserMemoryMonitor.class);
+    private static final Path PROC = Paths.get("/proc");
+    private static final Duration REAP_TIMEOUT = Duration.ofSeconds(5);
+    private static final String JS_HEAP_SCRIPT =
+            "return window.performance && performance.memory ? performance.memory.usedJSHeapSize : null;";
+
+    private static final Map<WebDriver, Session> sessions = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<MemorySample> samples = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Starts monitoring a new session and takes its first sample.
+     *
+     * @param driver  The {@link WebDriver} session.
+     * @param browser The browser name, used to label the session's samples.
+     */
+    public static void register(WebDriver driver, String browser) {
+        if (!ConfigFileReader.isMemoryMonitorEnabled()) {
+            return;
+        }
+        Session session = new Session(getSessionId(driver), browser, findBrowserProcess(driver));
+        sessions.put(driver, session);
+        if (session.browserProcess != null) {
+            logger.info("Monitoring memory of session {} (browser pid {})", session.id, session.browserProcess.pid());
+        } else {
+            logger.info("Monitoring memory of session {} through the JS heap size", session.id);
+        }
+        sample(driver, session, "start");
+    }
+
+    /**
+     * Samples the session before a test method starts and counts the test against the session.
+     * Returns why the session should be recycled first, if it has crossed one of the configured
+     * thresholds: {@code recycle_max_rss_mb}, {@code recycle_max_session_minutes} or
+     * {@code recycle_max_tests_per_session}. A threshold of 0 disables it.
+     *
+     * @param driver The {@link WebDriver} session.
+     * @return The recycle reason, or {@code null} if the session can keep running.
+     */
+    public static String checkBeforeTest(WebDriver driver) {
+        Session session = driver == null ? null : sessions.get(driver);
+        if (session == null) {
+            return null;
+        }
+
+        MemorySample sample = sample(driver, session, "test");
+        String reason = getRecycleReason(session, sample);
+        if (reason == null) {
+            session.testsRun.incrementAndGet();
+        }
+        return reason;
+    }
+
+    /**
+     * Takes the session's last sample and stops monitoring it.
+     * Returns the processes of the session, to be passed to {@link #verifyReaped(List)} once the
+     * session has been quit.
+     *
+     * @param driver The {@link WebDriver} session about to be quit.
+     * @return The driver and browser processes of the session; empty if they are not known.
+     */
+    public static List<ProcessHandle> unregister(WebDriver driver) {
+        Session session = driver == null ? null : sessions.remove(driver);
+        if (session == null) {
+            return List.of();
+        }
+
+        sample(driver, session, "quit");
+        if (session.browserProcess == null) {
+            return List.of();
+        }
+        // A shared or pooled driver process outlives the session
+        ProcessHandle root = session.driverProcess != null && !DriverServices.isServiceSession(driver)
+                ? session.driverProcess : session.browserProcess;
+        List<ProcessHandle> processes = new ArrayList<>();
+        processes.add(root);
+        root.descendants().forEach(processes::add);
+        return processes;
+    }
+
+    /**
+     * Waits for the given processes to exit after their session was quit. Processes that are still
+     * alive after a few seconds are logged and killed, so leaked browsers do not pile up on the node.
+     *
+     * @param processes The processes returned by {@link #unregister(WebDriver)}.
+     * @return {@code true} if all processes exited by themselves.
+     */
+    public static boolean verifyReaped(List<ProcessHandle> processes) {
+        if (processes.isEmpty()) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + REAP_TIMEOUT.toNanos();
+        List<ProcessHandle> alive = new ArrayList<>(processes);
+        while (!alive.isEmpty() && System.nanoTime() < deadline) {
+            alive.removeIf(process -> !process.isAlive());
+            if (!alive.isEmpty()) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        alive.removeIf(process -> !process.isAlive());
+        if (alive.isEmpty()) {
+            return true;
+        }
+
+        logger.warn("{} of {} session processes were not reaped after quit: {}",
+                alive.size(), processes.size(), alive.stream().map(ProcessHandle::pid).toList());
+        alive.forEach(ProcessHandle::destroyForcibly);
+        return false;
+    }
+
+    /**
+     * Writes all samples taken so far to {@code <report dir>/<timestamp>_BrowserMemory.csv}.
+     *
+     * @return The path of the CSV file, or {@code null} if there are no samples.
+     * @throws RuntimeException If the file cannot be written.
+     */
+    public static Path exportCsv() {
+        if (samples.isEmpty()) {
+            return null;
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        Path csvFile = ConfigFileReader.getReportDir().resolve(timestamp + "_BrowserMemory.csv");
+        try {
+            Files.createDirectories(csvFile.getParent());
+            try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile.toFile(), StandardCharsets.UTF_8))) {
+                writer.writeNext(new String[]{"session", "browser", "timestamp", "event", "age_seconds",
+                        "tests_run", "source", "browser_rss_kb", "driver_rss_kb", "processes"});
+                for (MemorySample sample : samples) {
+                    writer.writeNext(new String[]{sample.sessionId(), sample.browser(), sample.time().toString(),
+                            sample.event(), String.valueOf(sample.ageSeconds()), String.valueOf(sample.testsRun()),
+                            sample.source(), String.valueOf(sample.browserKb()), String.valueOf(sample.driverKb()),
+                            String.valueOf(sample.processes())});
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write browser memory samples to " + csvFile, e);
+        }
+        logger.info("Browser memory samples written to {}", csvFile);
+        return csvFile;
+    }
+
+    private static String getRecycleReason(Session session, MemorySample sample) {
+        long maxRssMb = ConfigFileReader.getRecycleMaxRssMb();
+        if (maxRssMb > 0 && sample.browserKb() / 1024 >= maxRssMb) {
+            return String.format("browser memory %d MB reached the %d MB limit", sample.browserKb() / 1024, maxRssMb);
+        }
+        Duration maxAge = ConfigFileReader.getRecycleMaxSessionAge();
+        if (!maxAge.isZero() && sample.ageSeconds() >= maxAge.toSeconds()) {
+            return String.format("session age %d s reached the %d s limit", sample.ageSeconds(), maxAge.toSeconds());
+        }
+        int maxTests = ConfigFileReader.getRecycleMaxTestsPerSession();
+        int testsRun = session.testsRun.get();
+        if (maxTests > 0 && testsRun >= maxTests) {
+            return String.format("session ran %d tests, the limit is %d", testsRun, maxTests);
+        }
+        return null;
+    }
+
+    private static MemorySample sample(WebDriver driver, Session session, String event) {
+        long browserKb = 0;
+        long driverKb = 0;
+        int processes = 0;
+        String source;
+
+        if (session.browserProcess != null && session.browserProcess.isAlive()) {
+            source = "proc";
+            List<ProcessHandle> tree = Stream.concat(Stream.of(session.browserProcess),
+                    session.browserProcess.descendants()).toList();
+            for (ProcessHandle process : tree) {
+                browserKb += readRssKb(process.pid());
+            }
+            processes = tree.size();
+            if (session.driverProcess != null) {
+                driverKb = readRssKb(session.driverProcess.pid());
+            }
+        } else {
+            source = "js-heap";
+            browserKb = readJsHeapKb(driver);
+        }
+
+        MemorySample sample = new MemorySample(session.id, session.browser, Instant.now(), event,
+                Duration.between(session.started, Instant.now()).toSeconds(), session.testsRun.get(),
+                source, browserKb, driverKb, processes);
+        samples.add(sample);
+        logger.debug("Memory sample: {}", sample);
+        return sample;
+    }
+
+    /**
+     * Finds the root process of a local browser, or returns {@code null} if it cannot be determined.
+     */
+    private static ProcessHandle findBrowserProcess(WebDriver driver) {
+        if (!Files.isDirectory(PROC) || !(driver instanceof HasCapabilities hasCapabilities)
+                || SharedBrowserContexts.isContextDriver(driver)
+                || !ConfigFileReader.getExecutionEnvironment().equalsIgnoreCase("local")) {
+            return null;
+        }
+
+        Capabilities capabilities = hasCapabilities.getCapabilities();
+        if (capabilities.getCapability("moz:processID") instanceof Number pid) {
+            return ProcessHandle.of(pid.longValue()).orElse(null);
+        }
+        if (capabilities.getCapability("chrome") instanceof Map<?, ?> chrome
+                && chrome.get("userDataDir") instanceof String userDataDir) {
+            return findProcessByArgument("--user-data-dir=" + userDataDir);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the topmost process whose command line contains the given argument.
+     */
+    private static ProcessHandle findProcessByArgument(String argument) {
+        Set<Long> matching = new HashSet<>();
+        try (Stream<Path> entries = Files.list(PROC)) {
+            entries.filter(entry -> entry.getFileName().toString().chars().allMatch(Character::isDigit))
+                    .forEach(entry -> {
+                        try {
+                            String commandLine = Files.readString(entry.resolve("cmdline"), StandardCharsets.UTF_8);
+                            if (List.of(commandLine.split("\0")).contains(argument)) {
+                                matching.add(Long.parseLong(entry.getFileName().toString()));
+                            }
+                        } catch (IOException e) {
+                            // The process exited or is not readable
+                        }
+                    });
+        } catch (IOException e) {
+            logger.debug("Could not list processes: {}", e.getMessage());
+            return null;
+        }
+
+        return matching.stream()
+                .map(ProcessHandle::of)
+                .flatMap(Optional::stream)
+                .filter(process -> process.parent().map(parent -> !matching.contains(parent.pid())).orElse(true))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static long readRssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(PROC.resolve(String.valueOf(pid)).resolve("status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // The process exited between listing and reading it
+        }
+        return 0;
+    }
+
+    private static long readJsHeapKb(WebDriver driver) {
+        try {
+            Object heapBytes = ((JavascriptExecutor) driver).executeScript(JS_HEAP_SCRIPT);
+            return heapBytes instanceof Number bytes ? bytes.longValue() / 1024 : 0;
+        } catch (WebDriverException | ClassCastException e) {
+            return 0;
+        }
+    }
+
+    private static String getSessionId(WebDriver driver) {
+        if (driver instanceof RemoteWebDriver remoteWebDriver && remoteWebDriver.getSessionId() != null) {
+            return remoteWebDriver.getSessionId().toString();
+        }
+        return Integer.toHexString(System.identityHashCode(driver));
+    }
+
+    private static class Session {
+        private final String id;
+        private final String browser;
+        private final ProcessHandle browserProcess;
+        private final ProcessHandle driverProcess;
+        private final Instant started = Instant.now();
+        // Pooled sessions move between threads
+        private final AtomicInteger testsRun = new AtomicInteger();
+
+        private Session(String id, String browser, ProcessHandle browserProcess) {
+            this.id = id;
+            this.browser = browser;
+            this.browserProcess = browserProcess;
+            // chromedriver and geckodriver start the browser, so the driver is the browser's parent
+            this.driverProcess = browserProcess == null ? null : browserProcess.parent()
+                    .filter(parent -> parent.info().command()
+                            .map(command -> command.endsWith("chromedriver") || command.endsWith("geckodriver"))
+                            .orElse(false))
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * One memory sample of a session. Sizes are in KiB; {@code source} is {@code proc} for resident
+     * set sizes read from {@code /proc} and {@code js-heap} for the page's used JS heap.
+     */
+    public record MemorySample(String sessionId, String browser, Instant time, String event, long ageSeconds,
+                               int testsRun, String source, long browserKb, long driverKb, int processes) {
+    }
+}
@@ -0,0 +1,156 @@
+package utils;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A test report for runs of any size: test records are written to disk in chunks of
+ * {@code report_chunk_size} as tests finish, and a small static {@code index.html} loads, searches
+ * and filters them in the browser, one page at a time.
+ *
+ * <p>The report directory holds {@code index.html}, {@code manifest.js} with the totals and the
+ * per-status counts of each chunk, and {@code chunks/chunk-NNNNN.js}. The files are JSONP
+ * ({@code reportManifest(...)}, {@code reportChunk(n, [...])}) so the page also works when opened
+ * from the file system. Only the current chunk is held in memory, chunks are never rewritten, and
+ * the manifest is replaced atomically after each chunk, so the report can be opened while the run is
+ * still going. Artifacts such as screenshots are linked by relative path, not embedded.</p>
+ */
+public class ChunkedReport {
+
+    private static final String INDEX_RESOURCE = "report/index.html";
+    private static final List<String> STATUSES = List.of("passed", "failed", "skipped");
+    private static final Json JSON = new Json();
+
+    private final Path directory;
+    private final String title;
+    private final int chunkSize;
+    private final long startMillis = System.currentTimeMillis();
+    private final List<Map<String, Object>> pending = new ArrayList<>();
+    private final List<Map<String, Object>> chunks = new ArrayList<>();
+    private final Map<String, Integer> totals = new LinkedHashMap<>();
+
+    /**
+     * Creates the report directory with the index page and an empty manifest.
+     *
+     * @param directory The report directory.
+     * @param title     The title shown on the index page, e.g. the suite name.
+     * @param chunkSize The number of test records per chunk.
+     * @throws IOException If the directory or the index page cannot be written.
+     */
+    public ChunkedReport(Path directory, String title, int chunkSize) throws IOException {
+        this.directory = directory;
+        this.title = title;
+        this.chunkSize = Math.max(1, chunkSize);
+        for (String status : STATUSES) {
+            totals.put(status, 0);
+        }
+        Files.createDirectories(directory.resolve("chunks"));
+        try (InputStream index = ChunkedReport.class.getClassLoader().getResourceAsStream(INDEX_RESOURCE)) {
+            if (index == null) {
+                throw new IOException("Report page not found on the classpath: " + INDEX_RESOURCE);
+            }
+            Files.copy(index, directory.resolve("index.html"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writeManifest(false);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Adds a test record, and writes the current chunk once it is full.
+     *
+     * @param record The record, with a {@code status} of {@code passed}, {@code failed} or {@code skipped}
+     *               and any other JSON-compatible fields shown by the index page.
+     * @throws IOException If the chunk or the manifest cannot be written.
+     */
+    public synchronized void add(Map<String, Object> record) throws IOException {
+        pending.add(record);
+        if (pending.size() >= chunkSize) {
+            writeChunk();
+            writeManifest(false);
+        }
+    }
+
+    /**
+     * Writes the last chunk and marks the report as complete.
+     *
+     * @throws IOException If the chunk or the manifest cannot be written.
+     */
+    public synchronized void finish() throws IOException {
+        if (!pending.isEmpty()) {
+            writeChunk();
+        }
+        writeManifest(true);
+    }
+
+    /**
+     * Returns the path of a file relative to the report directory, for links from the index page.
+     *
+     * @param file A file, e.g. a screenshot.
+     * @return The relative path with forward slashes.
+     */
+    public String linkTo(Path file) {
+        return directory.toAbsolutePath().relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+    }
+
+    private void writeChunk() throws IOException {
+        int index = chunks.size();
+        String file = String.format("chunks/chunk-%05d.js", index);
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("file", file);
+        chunk.put("tests", pending.size());
+        for (String status : STATUSES) {
+            chunk.put(status, 0);
+        }
+        for (Map<String, Object> record : pending) {
+            String status = String.valueOf(record.get("status"));
+            chunk.merge(status, 1, (count, one) -> (Integer) count + 1);
+            totals.merge(status, 1, Integer::sum);
+        }
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(file), StandardCharsets.UTF_8)) {
+            writer.write("reportChunk(" + index + ", " + toJson(pending) + ");\n");
+        }
+        chunks.add(chunk);
+        pending.clear();
+    }
+
+    private void writeManifest(boolean finished) throws IOException {
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("title", title);
+        manifest.put("started", startMillis);
+        manifest.put("updated", System.currentTimeMillis());
+        manifest.put("finished", finished);
+        manifest.put("totals", totals);
+        manifest.put("chunks", chunks);
+
+        Path temporary = directory.resolve("manifest.js.tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("reportManifest(" + toJson(manifest) + ");\n");
+        }
+        Files.move(temporary, directory.resolve("manifest.js"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String toJson(Object value) {
+        StringBuilder json = new StringBuilder();
+        try (JsonOutput output = JSON.newOutput(json)) {
+            output.setPrettyPrint(false);
+            output.write(value);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package utils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A circuit breaker for infrastructure failures, shared by all test threads.
+ *
+ * <p>The breaker opens when {@code failureThreshold} consecutive failures are recorded within
+ * {@code window}; a success in between resets the count. Once {@code openDuration} has passed, the
+ * breaker is half-open: one caller may run a trial, such as a health probe, and then closes the
+ * breaker with {@link #recordSuccess} or opens it again with {@link #trip}. A threshold of 0
+ * disables the breaker, except for explicit {@link #trip trips}.</p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long windowNanos;
+    private final long openNanos;
+    private final Deque<Long> failureTimes = new ArrayDeque<>();
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialRunning;
+    private String reason;
+
+    /**
+     * @param failureThreshold The number of consecutive failures that opens the breaker, or 0 to disable it.
+     * @param window           The time within which those failures must occur.
+     * @param openDuration     How long the breaker stays open before it allows a trial.
+     */
+    public CircuitBreaker(int failureThreshold, Duration window, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.windowNanos = window.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Returns the failure that last opened the breaker.
+     */
+    public synchronized String getReason() {
+        return reason;
+    }
+
+    /**
+     * Claims the trial of a half-open breaker. Only one caller gets it; until that caller records
+     * the outcome, other callers should treat the breaker as open.
+     *
+     * @return {@code true} if the caller should run the trial.
+     */
+    public synchronized boolean tryStartTrial() {
+        if (getState() != State.HALF_OPEN || trialRunning) {
+            return false;
+        }
+        trialRunning = true;
+        return true;
+    }
+
+    /**
+     * Records a failure.
+     *
+     * @param failure A description of the failure, reported while the breaker is open.
+     * @return {@code true} if this failure opened the breaker.
+     */
+    public synchronized boolean recordFailure(String failure) {
+        if (failureThreshold <= 0 || state != State.CLOSED) {
+            return false;
+        }
+        long now = System.nanoTime();
+        failureTimes.addLast(now);
+        while (now - failureTimes.getFirst() > windowNanos) {
+            failureTimes.removeFirst();
+        }
+        if (failureTimes.size() < failureThreshold) {
+            return false;
+        }
+        trip(failureTimes.size() + " consecutive infrastructure failures, the last one: " + failure);
+        return true;
+    }
+
+    /**
+     * Records a success, which resets the failure count and closes the breaker.
+     *
+     * @return {@code true} if the breaker was not closed before.
+     */
+    public synchronized boolean recordSuccess() {
+        failureTimes.clear();
+        trialRunning = false;
+        if (state == State.CLOSED) {
+            return false;
+        }
+        state = State.CLOSED;
+        reason = null;
+        return true;
+    }
+
+    /**
+     * Opens the breaker immediately, e.g. after a failed preflight check or trial.
+     *
+     * @param failure A description of the failure, reported while the breaker is open.
+     */
+    public synchronized void trip(String failure) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialRunning = false;
+        reason = failure;
+        failureTimes.clear();
+    }
+}
@@ -1,8 +1,15 @@
 package utils;
 
 import org.testng.SkipException;
+
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -30,27 +37,431 @@ public class ConfigFileReader {
     }
 
     public static String getExecutionEnvironment() {
-        return properties.getProperty("execution_environment").trim();
+        return getProperty("execution_environment", "local");
     }
 
+    /**
+     * Returns the Grid URL for remote execution. While an {@link EmbeddedGrid} runs, this is its URL.
+     */
     public static String getGridHubUrl() {
-        return properties.getProperty("grid_hub_url", "http://localhost:4444").trim();
+        return getProperty("grid_hub_url", "http://localhost:4444");
+    }
+
+    /**
+     * Returns whether remote execution uses the Grid at {@code grid_hub_url} ({@code external}) or
+     * starts an {@link EmbeddedGrid} for the suite ({@code embedded}).
+     *
+     * @return {@code true} for {@code grid_mode=embedded}.
+     */
+    public static boolean isEmbeddedGrid() {
+        return getProperty("grid_mode", "external").equalsIgnoreCase("embedded");
+    }
+
+    public static int getEmbeddedGridPort() {
+        return Integer.parseInt(getProperty("embedded_grid_port", "0"));
+    }
+
+    public static int getEmbeddedGridMaxSessions() {
+        return Integer.parseInt(getProperty("embedded_grid_max_sessions", "4"));
+    }
+
+    public static Duration getEmbeddedGridSessionTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("embedded_grid_session_timeout_seconds", "300")));
+    }
+
+    public static Duration getEmbeddedGridQueueTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("embedded_grid_queue_timeout_seconds", "300")));
+    }
+
+    public static Duration getEmbeddedGridStartTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("embedded_grid_start_timeout_seconds", "60")));
     }
 
     public static String getHomePageURL() {
-        return properties.getProperty("homePageURL").trim();
+        return resolveURL(getLiveHomePageURL());
     }
 
     public static String getLoginPageURL() {
-        return properties.getProperty("loginPageURL").trim();
+        return resolveURL(properties.getProperty("loginPageURL").trim());
     }
 
     public static String getRegistrationPageURL() {
-        return properties.getProperty("registrationPageURL").trim();
+        return resolveURL(properties.getProperty("registrationPageURL").trim());
     }
 
     public static String getMyAccountPageURL() {
-        return properties.getProperty("myAccountPageURL").trim();
+        return resolveURL(properties.getProperty("myAccountPageURL").trim());
+    }
+
+    /**
+     * Returns the home page URL of the real storefront, regardless of the storefront mode.
+     *
+     * @return The configured {@code homePageURL}.
+     */
+    public static String getLiveHomePageURL() {
+        return properties.getProperty("homePageURL").trim();
+    }
+
+    /**
+     * Returns the storefront mode: {@code live} runs against the configured storefront URLs,
+     * {@code local} runs against the embedded {@link storefront.LocalStorefrontServer}, and
+     * {@code record}/{@code replay} run through the {@link storefront.CachingStorefrontProxy}.
+     *
+     * @return The storefront mode in lower case.
+     */
+    public static String getStorefrontMode() {
+        return getProperty("storefront_mode", "live").toLowerCase();
+    }
+
+    public static boolean isLiveStorefront() {
+        return getStorefrontMode().equals("live");
+    }
+
+    /**
+     * Returns the host the tests reach the local storefront or the proxy at. Both listen on the
+     * loopback interface.
+     *
+     * @return The host, {@code 127.0.0.1} by default.
+     */
+    public static String getStorefrontHost() {
+        return getProperty("storefront_host", "127.0.0.1");
+    }
+
+    public static int getStorefrontPort() {
+        return Integer.parseInt(getProperty("storefront_port", "8085"));
+    }
+
+    public static Path getProxyCacheDir() {
+        return Paths.get(getProperty("proxy_cache_dir", "proxy-cache"));
+    }
+
+    /**
+     * Returns the base URL the tests should use for the storefront. In {@code live} mode this is the
+     * configured home page URL; in any other mode it is the loopback address of the local server,
+     * keeping the path of the live URL (e.g. {@code http://127.0.0.1:8085/demo/}).
+     *
+     * @return The storefront base URL, ending with a slash.
+     */
+    public static String getStorefrontBaseURL() {
+        String liveHomePageURL = getLiveHomePageURL();
+        if (isLiveStorefront()) {
+            return liveHomePageURL;
+        }
+        String path = URI.create(liveHomePageURL).getPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        return String.format("http://%s:%d%s", getStorefrontHost(), getStorefrontPort(), path);
+    }
+
+    /**
+     * Rewrites a URL of the live storefront so that it points at the storefront selected by
+     * {@code storefront_mode}. URLs that do not belong to the live storefront are returned unchanged.
+     * Test data that stores absolute storefront URLs (e.g. expected URLs) should be passed through
+     * this method before being compared with the browser's current URL.
+     *
+     * @param url An absolute URL of the live storefront.
+     * @return The equivalent URL on the active storefront.
+     */
+    public static String resolveURL(String url) {
+        String liveHomePageURL = getLiveHomePageURL();
+        if (url == null || isLiveStorefront() || !url.startsWith(liveHomePageURL)) {
+            return url;
+        }
+        return getStorefrontBaseURL() + url.substring(liveHomePageURL.length());
+    }
+
+    /**
+     * Returns the page-load strategy used for new sessions: {@code eager} (the default) returns from
+     * navigations once the DOM is parsed, {@code none} returns immediately, and {@code normal} waits for
+     * every subresource. Page objects wait for their own readiness contract either way.
+     *
+     * @return The page-load strategy name.
+     */
+    public static String getPageLoadStrategy() {
+        return getProperty("page_load_strategy", "eager").toLowerCase();
+    }
+
+    /**
+     * Returns how local Chromium sessions are isolated from each other: {@code process} (the default)
+     * starts a browser per session, {@code context} gives each session an isolated browser context of
+     * a shared browser process.
+     *
+     * @return The browser isolation mode.
+     */
+    public static String getBrowserIsolation() {
+        return getProperty("browser_isolation", "process").toLowerCase();
+    }
+
+    public static int getContextsPerBrowser() {
+        return Integer.parseInt(getProperty("contexts_per_browser", "4"));
+    }
+
+    public static boolean isSharedDriverServices() {
+        return Boolean.parseBoolean(getProperty("shared_driver_services", "true"));
+    }
+
+    public static int getGeckodriverPoolSize() {
+        return Integer.parseInt(getProperty("geckodriver_pool_size", "2"));
+    }
+
+    public static Path getDriverPathCache() {
+        return Paths.get(getProperty("driver_path_cache", ".cache/driver-paths.properties"));
+    }
+
+    public static Duration getPageReadyTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("page_ready_timeout_seconds", "10")));
+    }
+
+    /**
+     * Returns how long a navigation may take before the driver fails it, so an unreachable storefront
+     * fails the test instead of stalling it.
+     */
+    public static Duration getPageLoadTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("page_load_timeout_seconds", "30")));
+    }
+
+    /**
+     * Returns how many rows of a {@code parallel = true} data provider of one test class run at a time,
+     * each on a session borrowed from the {@link DriverFactory} pool.
+     */
+    public static int getParallelRowsPerClass() {
+        return Integer.parseInt(getProperty("parallel_rows_per_class", "4"));
+    }
+
+    /**
+     * Returns the number of consecutive infrastructure failures that opens the circuit breaker of
+     * {@link TargetHealth}, or 0 to only skip tests after a failed preflight check.
+     */
+    public static int getCircuitBreakerFailures() {
+        return Integer.parseInt(getProperty("circuit_breaker_failures", "3"));
+    }
+
+    public static Duration getCircuitBreakerWindow() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("circuit_breaker_window_seconds", "300")));
+    }
+
+    public static Duration getCircuitBreakerOpenDuration() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("circuit_breaker_open_seconds", "60")));
+    }
+
+    public static Duration getTargetProbeTimeout() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("target_probe_timeout_seconds", "5")));
+    }
+
+    /**
+     * Returns how long the DOM must stay unchanged, in milliseconds, before {@link NetworkSync} considers
+     * the page settled after a request.
+     */
+    public static long getNetworkQuietMillis() {
+        return Long.parseLong(getProperty("network_quiet_ms", "50"));
+    }
+
+    public static boolean isMemoryMonitorEnabled() {
+        return Boolean.parseBoolean(getProperty("memory_monitor", "true"));
+    }
+
+    /**
+     * Returns the browser memory, in MB, above which a session is recycled before its next test.
+     * The recycle thresholds are checked by {@link BrowserMemoryMonitor}; 0 disables a threshold.
+     *
+     * @return The memory limit in MB.
+     */
+    public static long getRecycleMaxRssMb() {
+        return Long.parseLong(getProperty("recycle_max_rss_mb", "1536"));
+    }
+
+    public static Duration getRecycleMaxSessionAge() {
+        return Duration.ofMinutes(Long.parseLong(getProperty("recycle_max_session_minutes", "30")));
+    }
+
+    public static int getRecycleMaxTestsPerSession() {
+        return Integer.parseInt(getProperty("recycle_max_tests_per_session", "0"));
+    }
+
+    public static double getCpusPerSession() {
+        return Double.parseDouble(getProperty("cpus_per_session", "1"));
+    }
+
+    public static long getMemoryPerSessionMb() {
+        return Long.parseLong(getProperty("memory_per_session_mb", "1024"));
+    }
+
+    public static Duration getShardTimeout() {
+        return Duration.ofMinutes(Long.parseLong(getProperty("shard_timeout_minutes", "30")));
+    }
+
+    /**
+     * Returns the directory the Extent report is written to. Shard workers point it at the shard's
+     * output directory.
+     *
+     * @return The report directory.
+     */
+    public static Path getReportDir() {
+        return Paths.get(getProperty("report_dir", System.getProperty("user.dir") + "/reports"));
+    }
+
+    /**
+     * Returns the file the Extent report is additionally archived to as JSON, if any.
+     * Shard workers set it so that the coordinator can merge their reports.
+     *
+     * @return The JSON archive path, or {@code null} if no archive is written.
+     */
+    public static Path getReportJson() {
+        String reportJson = getProperty("report_json", "");
+        return reportJson.isEmpty() ? null : Paths.get(reportJson);
+    }
+
+    /**
+     * Returns the seed for the random test data of the run, if one is configured.
+     *
+     * @return The configured seed, or {@code null} to pick a new seed for every run.
+     */
+    public static Long getRandomSeed() {
+        String seed = getProperty("random_seed", "");
+        return seed.isEmpty() ? null : Long.parseLong(seed);
+    }
+
+    public static boolean isProgressEndpointEnabled() {
+        return Boolean.parseBoolean(getProperty("progress_endpoint", "false"));
+    }
+
+    public static int getProgressPort() {
+        return Integer.parseInt(getProperty("progress_port", "0"));
+    }
+
+    public static boolean isExtentHtmlReportEnabled() {
+        return Boolean.parseBoolean(getProperty("extent_html_report", "true"));
+    }
+
+    public static boolean isChunkedReportEnabled() {
+        return Boolean.parseBoolean(getProperty("chunked_report", "true"));
+    }
+
+    public static int getReportChunkSize() {
+        return Integer.parseInt(getProperty("report_chunk_size", "500"));
+    }
+
+    public static String getLoginDataFile() {
+        return getProperty("login_data_file", "./testData/OpenCart_LoginData.xlsx");
+    }
+
+    public static String getSearchDataFile() {
+        return getProperty("search_data_file", "./testData/OpenCart_SearchData.csv");
+    }
+
+    public static boolean isDataRowResultsEnabled() {
+        return Boolean.parseBoolean(getProperty("data_row_results", "true"));
+    }
+
+    /**
+     * Returns the visual checkpoint mode: {@code off}, {@code compare} or {@code update}.
+     *
+     * @return The mode, in lower case.
+     */
+    public static String getVisualCheckpointMode() {
+        return getProperty("visual_checkpoints", "off").toLowerCase();
+    }
+
+    public static Path getVisualBaselineDir() {
+        return Paths.get(getProperty("visual_baseline_dir", "visualBaselines"));
+    }
+
+    public static double getVisualPixelTolerance() {
+        return Double.parseDouble(getProperty("visual_pixel_tolerance", "0.001"));
+    }
+
+    public static int getVisualChannelTolerance() {
+        return Integer.parseInt(getProperty("visual_channel_tolerance", "8"));
+    }
+
+    public static boolean isFailureBundleEnabled() {
+        return Boolean.parseBoolean(getProperty("failure_bundle", "true"));
+    }
+
+    /**
+     * Returns whether a timeline of the run is recorded by {@link Tracer} and written as Chrome trace-event JSON.
+     */
+    public static boolean isTraceTimelineEnabled() {
+        return Boolean.parseBoolean(getProperty("trace_timeline", "false"));
+    }
+
+    /**
+     * Returns how long the test thread may spend reading the failure state from the browser.
+     * Writing the bundle happens in the background and is not included.
+     *
+     * @return The capture time budget.
+     */
+    public static Duration getFailureCaptureTimeout() {
+        return Duration.ofMillis(Long.parseLong(getProperty("failure_capture_timeout_ms", "3000")));
+    }
+
+    /**
+     * Returns the file with the per-page performance budgets.
+     *
+     * @return The budget file, or {@code null} if no budgets are configured.
+     */
+    public static Path getPerformanceBudgetsFile() {
+        String file = getProperty("performance_budgets_file", "");
+        return file.isEmpty() ? null : Paths.get(file);
+    }
+
+    public static String getNetworkProfile() {
+        return getProperty("network_profile", "none");
+    }
+
+    public static int getCrawlContexts() {
+        return Integer.parseInt(getProperty("crawl_contexts", "4"));
+    }
+
+    public static List<String> getCrawlSeedTerms() {
+        return getList("crawl_seed_terms", "mac,ipod,samsung,canon,nikon,htc,palm,sony,hp,apple,iphone");
+    }
+
+    public static int getCrawlPageLimit() {
+        return Integer.parseInt(getProperty("crawl_page_limit", "2"));
+    }
+
+    public static String getPerformanceBudgetLevel() {
+        return getProperty("performance_budget_level", "warn");
+    }
+
+    /**
+     * Returns the CSV file the per-page timing percentiles of every run are appended to.
+     *
+     * @return The history file, or {@code null} if no history is kept.
+     */
+    public static Path getPerformanceHistoryFile() {
+        String file = getProperty("performance_history_file", "");
+        return file.isEmpty() ? null : Paths.get(file);
+    }
+
+    public static String getPerformanceRunLabel() {
+        return getProperty("performance_run_label", "");
+    }
+
+    public static double getPerformanceRegressionPercent() {
+        return Double.parseDouble(getProperty("performance_regression_percent", "20"));
+    }
+
+    public static int getLoadUsers() {
+        return Integer.parseInt(getProperty("load_users", "50"));
+    }
+
+    public static Duration getLoadRampUp() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("load_ramp_up_seconds", "10")));
+    }
+
+    public static Duration getLoadThinkTime() {
+        return Duration.ofMillis(Long.parseLong(getProperty("load_think_time_ms", "500")));
+    }
+
+    public static Duration getLoadPacing() {
+        return Duration.ofMillis(Long.parseLong(getProperty("load_pacing_ms", "0")));
+    }
+
+    public static Duration getLoadDuration() {
+        return Duration.ofSeconds(Long.parseLong(getProperty("load_duration_seconds", "60")));
     }
 
     public static String getEmail() {
@@ -60,4 +471,30 @@ public class ConfigFileReader {
     public static String getPassword() {
         return properties.getProperty("password").trim();
     }
+
+    /**
+     * Returns a comma-separated property as a list of trimmed, non-empty values.
+     *
+     * @param key          The property name.
+     * @param defaultValue The value to use when the property is not set anywhere.
+     * @return The list of values.
+     */
+    private static List<String> getList(String key, String defaultValue) {
+        return Arrays.stream(getProperty(key, defaultValue).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Returns a property value, letting a JVM system property of the same name
+     * (e.g. {@code -Dstorefront_mode=local}) override the value from the properties file.
+     *
+     * @param key          The property name.
+     * @param defaultValue The value to use when the property is not set anywhere.
+     * @return The trimmed property value.
+     */
+    private static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue)).trim();
+    }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package utils;
 
 import com.opencsv.exceptions.CsvException;
+import org.testng.ITestResult;
 import org.testng.annotations.DataProvider;
+import org.testng.internal.TestResult;
 
 import java.io.IOException;
 
@@ -9,8 +11,11 @@ import java.io.IOException;
  * A utility class for providing test data to TestNG test methods using the {@link DataProvider} annotation.
  *
  * <p>This class contains methods annotated with {@link DataProvider} that supply test data
- * from Excel files to TestNG test methods. Each method reads data from a specific Excel file
- * and sheet, and returns it as a 2D array of strings for use in data-driven testing.</p>
+ * from Excel and CSV files to TestNG test methods. Each method reads data from the file set in the
+ * configuration and returns it as a 2D array of strings for use in data-driven testing. Larger
+ * files can be generated with {@link TestDataGenerator}.</p>
+ *
+ * <p>The rows run in parallel, each on its own pooled session (see {@code BaseTest.prepareDriver}).</p>
  *
  * <p>Example usage in a TestNG test:</p>
  * <pre>
@@ -22,30 +27,32 @@ import java.io.IOException;
  */
 public class DataProviders {
 
+    /**
+     * The result attribute that holds the data-provider row of a result, if it is not a TestNG result.
+     */
+    public static final String ROW_INDEX_ATTRIBUTE = "dataRowIndex";
+
     /**
      * Provides invalid login test data from an Excel file.
      *
-     * <p>This method reads data from the "Sheet1" of the "OpenCart_LoginData.xlsx" file
-     * and returns it as a 2D array of strings. Each row in the array represents a set of
-     * test data for invalid login scenarios.</p>
+     * <p>This method reads data from the "Sheet1" of the {@code login_data_file}, by default
+     * "OpenCart_LoginData.xlsx", and returns it as a 2D array of strings. Each row in the array
+     * represents a set of test data for invalid login scenarios.</p>
      *
      * @return A 2D array of strings containing invalid login data.
      * @throws IOException If there is an error reading the Excel file.
+     * @throws CsvException If there is an error parsing a CSV file.
      */
-    @DataProvider(name = "invalidLoginData")
-    public String[][] getInvalidLoginData() throws IOException {
-
-        String excelFilePath = "./testData/OpenCart_LoginData.xlsx";
+    @DataProvider(name = "invalidLoginData", parallel = true)
+    public String[][] getInvalidLoginData() throws IOException, CsvException {
 
-        ExcelUtils excelUtils = new ExcelUtils(excelFilePath);
-
-        return excelUtils.getAllDataInSheet("Sheet1");
+        return readDataFile(getDataFile("invalidLoginData"));
     }
 
     /**
      * Provides search test data from an CSV file.
      *
-     * <p>This method reads data from the  "OpenCart_SearchData.csv" file
+     * <p>This method reads data from the {@code search_data_file}, by default "OpenCart_SearchData.csv",
      * and returns it as a 2D array of strings. Each row in the array represents a set of
      * test data for search scenarios.</p>
      *
@@ -53,11 +60,50 @@ public class DataProviders {
      * @throws IOException If there is an error reading the CSV file.
      * @throws CsvException If there is an error parsing the CSV.
      */
-    @DataProvider(name = "searchData")
+    @DataProvider(name = "searchData", parallel = true)
     public String[][] getSearchData() throws IOException, CsvException {
 
-        String csvFilePath = "./testData/OpenCart_SearchData.csv";
+        return readDataFile(getDataFile("searchData"));
+    }
 
-        return CsvUtils.readAllData(csvFilePath);
+    /**
+     * Returns the data file a data provider of this class reads.
+     *
+     * @param dataProviderName The name of the data provider.
+     * @return The file path, or {@code null} if this class has no data provider with that name.
+     */
+    public static String getDataFile(String dataProviderName) {
+        return switch (dataProviderName) {
+            case "invalidLoginData" -> ConfigFileReader.getLoginDataFile();
+            case "searchData" -> ConfigFileReader.getSearchDataFile();
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the data-provider row a test result ran with.
+     *
+     * <p>The index is the one TestNG invoked the method with, so it stays correct when the rows run in
+     * parallel. Results that are not created by TestNG, such as stubs, can set it in the
+     * {@link #ROW_INDEX_ATTRIBUTE} attribute.</p>
+     *
+     * @param result The test result.
+     * @return The zero-based row index, or 0 if the result does not know its row.
+     */
+    public static int getRowIndex(ITestResult result) {
+        if (result.getAttribute(ROW_INDEX_ATTRIBUTE) instanceof Integer rowIndex) {
+            return rowIndex;
+        }
+        return result instanceof TestResult testResult ? testResult.getParameterIndex() : 0;
+    }
+
+    /**
+     * Reads all rows after the header from an Excel file ("Sheet1") or a CSV file.
+     */
+    private static String[][] readDataFile(String filePath) throws IOException, CsvException {
+        if (filePath.toLowerCase().endsWith(".xlsx")) {
+            return new ExcelUtils(filePath).getAllDataInSheet("Sheet1");
+        }
+        return CsvUtils.readAllData(filePath);
     }
 }
@@ -0,0 +1,226 @@
+package utils;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.poi.common.usermodel.HyperlinkType;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The outcomes of the rows of one data file, written as a copy of the file with the outcome of each
+ * row next to its inputs.
+ *
+ * <p>{@link #write} makes a single streaming pass: {@code .csv} files are read and written line by
+ * line, and {@code .xlsx} files are read with POI's SAX event API and written with SXSSF, so only
+ * the outcomes themselves are held in memory, however large the sheet is. Rows without an outcome,
+ * e.g. because they did not run, get empty result columns.</p>
+ */
+public class DataRowResults {
+
+    /**
+     * Result attribute with the message the page actually showed, set by the test.
+     */
+    public static final String ACTUAL_MESSAGE_ATTRIBUTE = "actualMessage";
+    /**
+     * Result attribute with the path of the screenshot taken on failure.
+     */
+    public static final String SCREENSHOT_ATTRIBUTE = "screenshot";
+
+    private static final String[] RESULT_HEADERS = {"Status", "Duration (ms)", "Actual Message", "Screenshot"};
+    private static final String SHEET = "Sheet1";
+    private static final int XLSX_WINDOW_ROWS = 100;
+
+    /**
+     * The outcome of a data row.
+     *
+     * @param status         passed, failed or skipped.
+     * @param durationMillis The time the test method ran.
+     * @param actualMessage  The message the page showed, or the failure message, or empty.
+     * @param screenshot     The screenshot of a failure, or {@code null}.
+     */
+    public record Outcome(String status, long durationMillis, String actualMessage, Path screenshot) {
+    }
+
+    private final Path dataFile;
+    private final Map<Integer, Outcome> outcomes = new ConcurrentHashMap<>();
+
+    /**
+     * @param dataFile The {@code .xlsx} (sheet "Sheet1") or {@code .csv} data file, with a header row.
+     */
+    public DataRowResults(Path dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    /**
+     * Records the outcome of a row, replacing an earlier outcome of the same row (e.g. of a retry).
+     * Safe to call from parallel rows.
+     *
+     * @param row     The data row index, counting from 0 after the header, as passed to the data provider.
+     * @param outcome The outcome.
+     */
+    public void record(int row, Outcome outcome) {
+        outcomes.put(row, outcome);
+    }
+
+    public int size() {
+        return outcomes.size();
+    }
+
+    /**
+     * Writes a copy of the data file with the columns Status, Duration (ms), Actual Message and
+     * Screenshot appended. Screenshot paths are written relative to the results file.
+     *
+     * @param resultsFile The file to write, with the same extension as the data file.
+     * @throws IOException If the data file cannot be read or the results file cannot be written.
+     */
+    public void write(Path resultsFile) throws IOException {
+        Files.createDirectories(resultsFile.toAbsolutePath().getParent());
+        if (dataFile.getFileName().toString().toLowerCase().endsWith(".xlsx")) {
+            writeXlsx(resultsFile);
+        } else {
+            writeCsv(resultsFile);
+        }
+    }
+
+    private void writeCsv(Path resultsFile) throws IOException {
+        try (CSVReader reader = new CSVReader(Files.newBufferedReader(dataFile, StandardCharsets.UTF_8));
+             CSVWriter writer = new CSVWriter(Files.newBufferedWriter(resultsFile, StandardCharsets.UTF_8))) {
+            String[] line = reader.readNext();
+            for (int lineIndex = 0; line != null; lineIndex++, line = reader.readNext()) {
+                String[] results = lineIndex == 0 ? RESULT_HEADERS : resultColumns(lineIndex - 1, resultsFile);
+                String[] output = Arrays.copyOf(line, line.length + results.length);
+                System.arraycopy(results, 0, output, line.length, results.length);
+                writer.writeNext(output, false);
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException("Cannot parse " + dataFile, e);
+        }
+    }
+
+    private void writeXlsx(Path resultsFile) throws IOException {
+        // Closing the workbook also deletes its temporary sheet files
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_ROWS);
+             OPCPackage data = OPCPackage.open(dataFile.toFile(), PackageAccess.READ)) {
+            workbook.setCompressTempFiles(true);
+            XSSFReader reader = new XSSFReader(data);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            boolean found = false;
+            while (sheets.hasNext() && !found) {
+                try (InputStream sheetData = sheets.next()) {
+                    if (sheets.getSheetName().equals(SHEET)) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                                new ReadOnlySharedStringsTable(data), new XlsxCopier(workbook, resultsFile),
+                                new DataFormatter(), false));
+                        parser.parse(new InputSource(sheetData));
+                        found = true;
+                    }
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Sheet not found: " + SHEET + " in " + dataFile);
+            }
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(resultsFile))) {
+                workbook.write(output);
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot parse " + dataFile, e);
+        }
+    }
+
+    private String[] resultColumns(int row, Path resultsFile) {
+        Outcome outcome = outcomes.get(row);
+        if (outcome == null) {
+            return new String[RESULT_HEADERS.length];
+        }
+        return new String[]{outcome.status(), String.valueOf(outcome.durationMillis()), outcome.actualMessage(),
+                outcome.screenshot() == null ? "" : linkTo(outcome.screenshot(), resultsFile)};
+    }
+
+    private static String linkTo(Path file, Path resultsFile) {
+        Path resultsDir = resultsFile.toAbsolutePath().getParent();
+        return resultsDir.relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+    }
+
+    /**
+     * Copies the rows of the data sheet, as reported by the SAX parser, into the results workbook and
+     * appends the result columns after the header's last column.
+     */
+    private class XlsxCopier implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private final Path resultsFile;
+        private SXSSFRow row;
+        private int nextColumn;
+        private int resultColumn;
+
+        private XlsxCopier(SXSSFWorkbook workbook, Path resultsFile) {
+            this.workbook = workbook;
+            this.sheet = workbook.createSheet(SHEET);
+            this.resultsFile = resultsFile;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row = sheet.createRow(rowNum);
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+            row.createCell(column).setCellValue(formattedValue);
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0) {
+                resultColumn = nextColumn;
+            }
+            String[] results = rowNum == 0 ? RESULT_HEADERS : resultColumns(rowNum - 1, resultsFile);
+            for (int i = 0; i < results.length; i++) {
+                SXSSFCell cell = row.createCell(resultColumn + i);
+                cell.setCellValue(results[i]);
+                if (rowNum > 0 && i == RESULT_HEADERS.length - 1 && results[i] != null && !results[i].isEmpty()) {
+                    Hyperlink link = workbook.getCreationHelper().createHyperlink(HyperlinkType.FILE);
+                    link.setAddress(results[i]);
+                    cell.setHyperlink(link);
+                }
+            }
+        }
+    }
+}
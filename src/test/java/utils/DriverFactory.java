@@ -2,17 +2,32 @@ package utils;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.Platform;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.logging.Level;
 
 /**
  * Factory class for creating WebDriver instances.
@@ -24,6 +39,13 @@ public class DriverFactory {
     // Thread local variable to store. Each threat that accesses it (via its get or set method) has its own,
     // independently initialized copy of the variable.
     private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    // The same sessions, decorated to record their commands when the trace timeline is enabled
+    private static final ThreadLocal<WebDriver> tracedDriver = new ThreadLocal<>();
+    // Idle sessions for test invocations that borrow one, per browser and OS
+    private static final Map<String, Deque<WebDriver>> idleSessions = new ConcurrentHashMap<>();
+    // The pool of the session a thread has borrowed, and the session it had before
+    private static final ThreadLocal<String> borrowedPoolKey = new ThreadLocal<>();
+    private static final ThreadLocal<WebDriver> suspendedDriver = new ThreadLocal<>();
     private static String braveBrowserLocation = "/var/lib/flatpak/exports/bin/com.brave.Browser";
     private static final Logger logger = LogManager.getLogger(DriverFactory.class);
 
@@ -32,9 +54,24 @@ public class DriverFactory {
      * When a thread calls DriverFactory.getDriver(), it retrieves only its own
      * WebDriver instance from the ThreadLocal storage.
      *
+     * With {@code trace_timeline=true}, the instance records its commands in the {@link Tracer} timeline.
+     *
      * @return The WebDriver instance.
      */
     public static WebDriver getDriver() {
+        if (Tracer.isEnabled() && tracedDriver.get() != null) {
+            return tracedDriver.get();
+        }
+        return driver.get();
+    }
+
+    /**
+     * Returns the current thread's session as created, without the decoration of {@link #getDriver()},
+     * for bookkeeping keyed by session such as {@link BrowserMemoryMonitor}.
+     *
+     * @return The WebDriver instance.
+     */
+    public static WebDriver getSessionDriver() {
         return driver.get();
     }
 
@@ -49,7 +86,75 @@ public class DriverFactory {
      * @throws RuntimeException If the execution environment is invalid.
      */
     public static void initializeDriver(String browser, String os) {
+        // Store Webdriver instance in Local Thread variable
+        setCurrentDriver(createDriver(browser, os));
+        logger.info("WebDriver initialized for browser: {}, OS: {}", browser, os);
+    }
+
+    /**
+     * Gives the current thread a session from the pool for one test invocation, such as a row of a
+     * {@code parallel = true} data provider, whose thread has no session of its own.
+     * Pooled sessions are reset before they are handed out: cookies and web storage are cleared.
+     * A new session is created if no idle session is left, or an idle one no longer responds.
+     * With {@code browser_isolation=context}, new sessions are contexts of a shared browser.
+     * Until {@link #returnDriver()}, a session the thread already had is set aside.
+     *
+     * @param browser The browser name (e.g., "chrome", "firefox", "brave").
+     * @param os      The operating system (e.g., "linux", "windows").
+     * @throws IllegalStateException If the thread already holds a borrowed session.
+     * @throws RuntimeException      If a new session cannot be created.
+     */
+    public static void borrowDriver(String browser, String os) {
+        if (borrowedPoolKey.get() != null) {
+            throw new IllegalStateException("The current thread already holds a borrowed WebDriver session");
+        }
+        String poolKey = browser.toLowerCase() + "|" + os.toLowerCase();
+        Deque<WebDriver> idle = idleSessions.computeIfAbsent(poolKey, key -> new ConcurrentLinkedDeque<>());
+
+        WebDriver session = null;
+        while (session == null) {
+            WebDriver candidate = idle.pollFirst();
+            if (candidate == null) {
+                session = createDriver(browser, os);
+            } else if (resetSession(candidate)) {
+                session = candidate;
+            } else {
+                quitQuietly(candidate);
+            }
+        }
 
+        suspendedDriver.set(driver.get());
+        borrowedPoolKey.set(poolKey);
+        setCurrentDriver(session);
+        logger.info("WebDriver borrowed for browser: {}, OS: {} ({} idle)", browser, os, idle.size());
+    }
+
+    /**
+     * Returns the session borrowed with {@link #borrowDriver} to the pool, and restores the session the
+     * thread had before, if any. Does nothing if the thread holds no borrowed session.
+     */
+    public static void returnDriver() {
+        String poolKey = borrowedPoolKey.get();
+        if (poolKey == null) {
+            return;
+        }
+        if (driver.get() != null) {
+            // Most recently used first, so a small number of sessions stays warm
+            idleSessions.get(poolKey).addFirst(driver.get());
+        }
+        borrowedPoolKey.remove();
+        WebDriver ownDriver = suspendedDriver.get();
+        suspendedDriver.remove();
+        if (ownDriver != null) {
+            setCurrentDriver(ownDriver);
+        } else {
+            driver.remove();
+            tracedDriver.remove();
+        }
+    }
+
+    private static WebDriver createDriver(String browser, String os) {
+        Tracer.Span span = Tracer.begin("start " + browser, "driver");
         try {
 
             WebDriver webDriver;
@@ -63,18 +168,56 @@ public class DriverFactory {
                 throw new RuntimeException("Invalid execution environment: " + executionEnvironment);
             }
 
-            // Store Webdriver instance in Local Thread variable
-            driver.set(webDriver);
-            logger.info("WebDriver initialized for browser: {}, OS: {}", browser, os);
+            BrowserMemoryMonitor.register(webDriver, browser);
+            RunProgress.sessionStarted(webDriver, browser);
+            return webDriver;
 
         } catch (Exception e) {
             logger.error("Failed to initialize driver: {}", e.getMessage());
+            span.arg("error", e.getMessage());
             throw new RuntimeException("Failed to initialize driver", e);
+        } finally {
+            span.end();
+        }
+    }
+
+    private static void setCurrentDriver(WebDriver webDriver) {
+        driver.set(webDriver);
+        if (Tracer.isEnabled()) {
+            tracedDriver.set(Tracer.decorate(webDriver));
+        }
+    }
+
+    /**
+     * Clears the cookies and web storage of the page a pooled session was left on, and removes any
+     * emulated network profile.
+     *
+     * @return {@code false} if the session no longer responds.
+     */
+    private static boolean resetSession(WebDriver session) {
+        if (FailureBundle.isCaptureRunning(session)) {
+            logger.warn("Discarding pooled WebDriver session that a timed-out failure capture is still using");
+            return false;
+        }
+        try {
+            NetworkConditions.reset(session);
+            session.manage().deleteAllCookies();
+            ((JavascriptExecutor) session).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            return true;
+        } catch (WebDriverException e) {
+            logger.warn("Discarding pooled WebDriver session that could not be reset: {}", e.getMessage());
+            return false;
         }
     }
 
     /**
      * Creates and returns a WebDriver instance for local execution.
+     * Sessions use the page-load strategy from the configuration file.
+     * With {@code browser_isolation=context}, Chromium-based browsers get an isolated context of a
+     * shared browser process (see {@link SharedBrowserContexts}) instead of a browser process of their own.
+     * With {@code shared_driver_services=true}, sessions connect to a long-lived driver process
+     * (see {@link DriverServices}) instead of starting their own.
      *
      * @param browser The browser name (e.g., "chrome", "firefox", "brave").
      * @return A configured WebDriver instance.
@@ -84,18 +227,41 @@ public class DriverFactory {
         Objects.requireNonNull(browser, "Browser name cannot be null");
         logger.info("Creating WebDriver for browser: {}", browser);
         WebDriver driver;
+        PageLoadStrategy pageLoadStrategy = PageLoadStrategy.fromString(ConfigFileReader.getPageLoadStrategy());
 
         switch (browser.toLowerCase()) {
             case "firefox":
-                driver = new FirefoxDriver();
+                if (ConfigFileReader.getBrowserIsolation().equals("context")) {
+                    logger.warn("Browser context isolation is not supported for Firefox; starting a separate browser");
+                }
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                firefoxOptions.setPageLoadStrategy(pageLoadStrategy);
+                if (ConfigFileReader.isSharedDriverServices()) {
+                    driver = DriverServices.newFirefoxSession(firefoxOptions);
+                } else {
+                    long started = System.nanoTime();
+                    driver = new FirefoxDriver(firefoxOptions);
+                    DriverServices.recordStartup("firefox", "per-session", -1, System.nanoTime() - started);
+                }
                 break;
             case "chrome":
-                driver = new ChromeDriver();
-                break;
             case "brave":
                 ChromeOptions chromeOptions = new ChromeOptions();
-                chromeOptions.setBinary(braveBrowserLocation);
-                driver = new ChromeDriver(chromeOptions);
+                if (browser.equalsIgnoreCase("brave")) {
+                    chromeOptions.setBinary(braveBrowserLocation);
+                }
+                chromeOptions.setPageLoadStrategy(pageLoadStrategy);
+                // Keeps the browser console, so failure bundles can include it
+                chromeOptions.setCapability(ChromeOptions.LOGGING_PREFS, getBrowserLoggingPreferences());
+                if (ConfigFileReader.getBrowserIsolation().equals("context")) {
+                    driver = SharedBrowserContexts.acquire(browser, chromeOptions);
+                } else if (ConfigFileReader.isSharedDriverServices()) {
+                    driver = DriverServices.newChromiumSession(browser, chromeOptions);
+                } else {
+                    long started = System.nanoTime();
+                    driver = new ChromeDriver(chromeOptions);
+                    DriverServices.recordStartup(browser.toLowerCase(), "per-session", -1, System.nanoTime() - started);
+                }
                 break;
             default:
                 logger.error("Invalid browser name: {}", browser);
@@ -105,6 +271,12 @@ public class DriverFactory {
         return driver;
     }
 
+    private static LoggingPreferences getBrowserLoggingPreferences() {
+        LoggingPreferences loggingPreferences = new LoggingPreferences();
+        loggingPreferences.enable(LogType.BROWSER, Level.ALL);
+        return loggingPreferences;
+    }
+
     /**
      * Creates and returns a RemoteWebDriver instance for Selenium Grid.
      *
@@ -122,6 +294,10 @@ public class DriverFactory {
         DesiredCapabilities capabilities = new DesiredCapabilities();
         capabilities.setBrowserName(browser.toLowerCase());
         capabilities.setPlatform(Platform.fromString(os.toUpperCase()));
+        capabilities.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, ConfigFileReader.getPageLoadStrategy());
+        if (!browser.equalsIgnoreCase("firefox")) {
+            capabilities.setCapability(ChromeOptions.LOGGING_PREFS, getBrowserLoggingPreferences());
+        }
 
         try {
             return new RemoteWebDriver(new URL(gridHubUrl), capabilities);
@@ -130,16 +306,92 @@ public class DriverFactory {
         }
     }
 
+    /**
+     * Replaces the current thread's WebDriver with a fresh session of the same browser.
+     * The cookies and URL of the old session are carried over, so the next test method
+     * starts in the same state, just without the memory the old browser had accumulated.
+     *
+     * @param browser The browser name (e.g., "chrome", "firefox", "brave").
+     * @param os      The operating system (e.g., "linux", "windows").
+     * @throws RuntimeException If the new session cannot be created.
+     */
+    public static void recycleDriver(String browser, String os) {
+        String currentUrl = null;
+        Set<Cookie> cookies = Set.of();
+        try {
+            currentUrl = driver.get().getCurrentUrl();
+            cookies = driver.get().manage().getCookies();
+        } catch (WebDriverException e) {
+            logger.warn("Could not read the state of the session being recycled: {}", e.getMessage());
+        }
+
+        quitDriver();
+        initializeDriver(browser, os);
+
+        if (currentUrl != null && currentUrl.startsWith("http")) {
+            // Cookies can only be set for the domain of the current page
+            driver.get().get(currentUrl);
+            for (Cookie cookie : cookies) {
+                driver.get().manage().addCookie(cookie);
+            }
+            driver.get().navigate().refresh();
+        }
+        logger.info("WebDriver recycled for browser: {}, OS: {}", browser, os);
+    }
+
     /**
      * Quits the WebDriver and removes it from ThreadLocal.
+     * Sessions bound to a shared-browser context only dispose their context.
+     * Checks that the driver and browser processes of local sessions have exited.
      */
     public static void quitDriver() {
         if (driver.get() != null) {
-            // End webdriver session and close all browser windows
-            driver.get().quit();
+            quit(driver.get());
             // Remove the WebDriver instance from the ThreadLocal container
             driver.remove();
+            tracedDriver.remove();
             logger.info("WebDriver quit and removed from ThreadLocal");
         }
     }
+
+    private static void quit(WebDriver session) {
+        Tracer.Span span = Tracer.begin("quit", "driver");
+        List<ProcessHandle> processes = BrowserMemoryMonitor.unregister(session);
+        RunProgress.sessionEnded(session);
+        NetworkConditions.release(session);
+        if (SharedBrowserContexts.isContextDriver(session)) {
+            SharedBrowserContexts.release(session);
+        } else {
+            // End webdriver session and close all browser windows
+            session.quit();
+        }
+        DriverServices.release(session);
+        BrowserMemoryMonitor.verifyReaped(processes);
+        span.end();
+    }
+
+    private static void quitQuietly(WebDriver session) {
+        try {
+            quit(session);
+        } catch (WebDriverException e) {
+            logger.warn("Could not quit WebDriver session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Quits the pooled sessions, releases resources shared between sessions, such as the host browsers of
+     * {@link SharedBrowserContexts} and the driver processes of {@link DriverServices}, and exports the
+     * memory samples and session startup times of the run.
+     * Called once at the end of the suite.
+     */
+    public static void shutdown() {
+        for (Deque<WebDriver> idle : idleSessions.values()) {
+            for (WebDriver session = idle.pollFirst(); session != null; session = idle.pollFirst()) {
+                quitQuietly(session);
+            }
+        }
+        SharedBrowserContexts.shutdown();
+        DriverServices.shutdown();
+        BrowserMemoryMonitor.exportCsv();
+    }
 }
@@ -0,0 +1,469 @@
+package utils;
+
+import com.opencsv.CSVWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived chromedriver and geckodriver processes for local sessions, so a new session only starts
+ * a browser instead of resolving and starting a driver executable first.
+ *
+ * <ul>
+ *     <li>The driver and browser paths are resolved by Selenium Manager once per browser and JVM, and
+ *     cached in {@code driver_path_cache} for later runs. A cached entry is used as long as its files
+ *     exist and the browser executable has not changed; if a session cannot be created with it, the
+ *     paths are resolved again.</li>
+ *     <li>Chromium-based browsers share one chromedriver per browser, which serves any number of
+ *     concurrent sessions.</li>
+ *     <li>geckodriver serves one session at a time, so Firefox sessions take a service from a pool of
+ *     {@code geckodriver_pool_size} pre-started services, and give it back when they quit.</li>
+ * </ul>
+ *
+ * <p>Sessions are {@link RemoteWebDriver}s connected to the service's URL and augmented with the
+ * browser-specific interfaces, since a {@code ChromeDriver} or {@code FirefoxDriver} stops its service
+ * when it quits. The time each local session took to start is exported as
+ * {@code reports/<timestamp>_DriverStartup.csv}, including sessions started the classic way with
+ * {@code shared_driver_services=false}, to compare both.</p>
+ */
+public class DriverServices {
+
+    private static final Logger logger = LogManager.getLogger(DriverServices.class);
+
+    private static final Map<String, DriverPaths> resolvedPaths = new ConcurrentHashMap<>();
+    private static final Map<String, ChromeDriverService> chromiumServices = new ConcurrentHashMap<>();
+    private static final Deque<GeckoDriverService> idleGeckoServices = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger startingGeckoServices = new AtomicInteger();
+    // The pooled service of each Firefox session, and all sessions on a shared or pooled service
+    private static final Map<WebDriver, GeckoDriverService> geckoServicesBySession = new ConcurrentHashMap<>();
+    private static final Set<WebDriver> serviceSessions = ConcurrentHashMap.newKeySet();
+    private static final ConcurrentLinkedQueue<StartupSample> startupSamples = new ConcurrentLinkedQueue<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverServices::stopServices, "driver-services-shutdown"));
+    }
+
+    /**
+     * Creates a session of a Chromium-based browser on the browser's shared chromedriver, starting
+     * the service if it is not running yet.
+     *
+     * @param browser The browser name (e.g., "chrome", "brave").
+     * @param options The session options.
+     * @return The session.
+     * @throws WebDriverException If the service or the session cannot be started.
+     */
+    public static WebDriver newChromiumSession(String browser, ChromeOptions options) {
+        String key = browser.toLowerCase();
+        long started = System.nanoTime();
+        ChromeDriverService service = sharedChromeService(key, options);
+        long serviceReady = System.nanoTime();
+        WebDriver session;
+        try {
+            session = connect(key, service, options);
+        } catch (SessionNotCreatedException e) {
+            if (!invalidate(key)) {
+                throw e;
+            }
+            // The cached chromedriver may not match the browser any more
+            logger.warn("Could not create a {} session with the cached driver, resolving it again: {}",
+                    browser, e.getMessage());
+            if (chromiumServices.remove(key, service)) {
+                service.stop();
+            }
+            service = sharedChromeService(key, options);
+            serviceReady = System.nanoTime();
+            session = connect(key, service, options);
+        }
+        recordStartup(key, "shared", serviceReady - started, System.nanoTime() - serviceReady);
+        return session;
+    }
+
+    /**
+     * Creates a Firefox session on an idle geckodriver of the pool, starting one if none is idle, and
+     * pre-starts services in the background until the pool is full again.
+     *
+     * @param options The session options.
+     * @return The session.
+     * @throws WebDriverException If the service or the session cannot be started.
+     */
+    public static WebDriver newFirefoxSession(FirefoxOptions options) {
+        long started = System.nanoTime();
+        DriverPaths paths = setFirefoxBinary(options);
+        GeckoDriverService service = takeGeckoService(paths);
+        long serviceReady = System.nanoTime();
+        WebDriver session;
+        try {
+            session = connectOrStop(service, options);
+        } catch (SessionNotCreatedException e) {
+            if (!invalidate("firefox")) {
+                throw e;
+            }
+            logger.warn("Could not create a firefox session with the cached driver, resolving it again: {}",
+                    e.getMessage());
+            paths = setFirefoxBinary(options);
+            service = startGeckoService(paths);
+            serviceReady = System.nanoTime();
+            session = connectOrStop(service, options);
+        }
+        geckoServicesBySession.put(session, service);
+        prestartGeckoServices(paths);
+        recordStartup("firefox", "pooled", serviceReady - started, System.nanoTime() - serviceReady);
+        return session;
+    }
+
+    /**
+     * Returns a new, not yet started chromedriver service for a session that needs a service of its own,
+     * such as the host browsers of {@link SharedBrowserContexts}, using the cached driver path.
+     * Sets the resolved browser executable in the options.
+     *
+     * @param browser The browser name (e.g., "chrome", "brave").
+     * @param options The session options.
+     * @return The service.
+     */
+    public static ChromeDriverService newDedicatedChromeService(String browser, ChromeOptions options) {
+        DriverPaths paths = setChromeBinary(browser.toLowerCase(), options);
+        return new ChromeDriverService.Builder()
+                .usingDriverExecutable(new File(paths.driver()))
+                .usingAnyFreePort()
+                .build();
+    }
+
+    /**
+     * Returns whether a session runs on a shared or pooled service, whose driver process outlives the session.
+     *
+     * @param session The session.
+     * @return {@code true} if the session was created by this class.
+     */
+    public static boolean isServiceSession(WebDriver session) {
+        return serviceSessions.contains(session);
+    }
+
+    /**
+     * Gives the service of a quit session back: a pooled geckodriver goes back to the pool, or is
+     * stopped if the pool is full or it no longer runs. Does nothing for other sessions.
+     *
+     * @param session A session that has been quit.
+     */
+    public static void release(WebDriver session) {
+        serviceSessions.remove(session);
+        GeckoDriverService service = geckoServicesBySession.remove(session);
+        if (service == null) {
+            return;
+        }
+        if (service.isRunning() && idleGeckoServices.size() < ConfigFileReader.getGeckodriverPoolSize()) {
+            idleGeckoServices.addFirst(service);
+        } else {
+            service.stop();
+        }
+    }
+
+    /**
+     * Records how long a local session took to start.
+     *
+     * @param browser       The browser name.
+     * @param mode          How the driver was provided: {@code shared}, {@code pooled}, or
+     *                      {@code per-session} for sessions that start their own driver.
+     * @param driverNanos   The time to get a running driver, or a negative value if it is not measured
+     *                      separately from the session.
+     * @param sessionNanos  The time to create the session, including the browser start.
+     */
+    public static void recordStartup(String browser, String mode, long driverNanos, long sessionNanos) {
+        startupSamples.add(new StartupSample(browser, mode, Instant.now(),
+                driverNanos < 0 ? -1 : driverNanos / 1_000_000, sessionNanos / 1_000_000));
+    }
+
+    /**
+     * Stops all services and writes the session startup times to {@code reports/<timestamp>_DriverStartup.csv},
+     * with an average per browser and mode in the log. Called once at the end of the suite.
+     */
+    public static void shutdown() {
+        stopServices();
+        if (startupSamples.isEmpty()) {
+            return;
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        Path csvFile = ConfigFileReader.getReportDir().resolve(timestamp + "_DriverStartup.csv");
+        Map<String, long[]> totals = new TreeMap<>();
+        try {
+            Files.createDirectories(csvFile.getParent());
+            try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile.toFile(), StandardCharsets.UTF_8))) {
+                writer.writeNext(new String[]{"browser", "mode", "timestamp", "driver_ms", "session_ms", "total_ms"});
+                for (StartupSample sample = startupSamples.poll(); sample != null; sample = startupSamples.poll()) {
+                    long totalMillis = Math.max(0, sample.driverMillis()) + sample.sessionMillis();
+                    writer.writeNext(new String[]{sample.browser(), sample.mode(), sample.time().toString(),
+                            sample.driverMillis() < 0 ? "" : String.valueOf(sample.driverMillis()),
+                            String.valueOf(sample.sessionMillis()), String.valueOf(totalMillis)});
+                    long[] total = totals.computeIfAbsent(sample.browser() + " " + sample.mode(), key -> new long[2]);
+                    total[0]++;
+                    total[1] += totalMillis;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not write the driver startup times to {}: {}", csvFile, e.getMessage());
+            return;
+        }
+        totals.forEach((key, total) -> logger.info("Session startup {}: {} sessions, {} ms on average",
+                key, total[0], total[1] / total[0]));
+        logger.info("Driver startup times written to {}", csvFile);
+    }
+
+    private static synchronized void stopServices() {
+        chromiumServices.values().forEach(DriverService::stop);
+        chromiumServices.clear();
+        geckoServicesBySession.values().forEach(DriverService::stop);
+        geckoServicesBySession.clear();
+        for (GeckoDriverService service = idleGeckoServices.poll(); service != null;
+             service = idleGeckoServices.poll()) {
+            service.stop();
+        }
+    }
+
+    private static WebDriver connect(String browser, DriverService service, Capabilities options) {
+        WebDriver session = new Augmenter().augment(new RemoteWebDriver(service.getUrl(), options));
+        serviceSessions.add(session);
+        logger.info("Created {} session on the driver at {}", browser, service.getUrl());
+        return session;
+    }
+
+    private static ChromeDriverService sharedChromeService(String browser, ChromeOptions options) {
+        setChromeBinary(browser, options);
+        return chromiumServices.compute(browser, (name, running) -> {
+            if (running != null && running.isRunning()) {
+                return running;
+            }
+            ChromeDriverService service = newDedicatedChromeService(name, options);
+            start(service);
+            logger.info("Started shared chromedriver for {} at {}", name, service.getUrl());
+            return service;
+        });
+    }
+
+    private static DriverPaths setChromeBinary(String browser, ChromeOptions options) {
+        DriverPaths paths = resolve(browser, ChromeDriverService.createDefaultService(), options);
+        if (paths.browser() != null) {
+            options.setBinary(paths.browser());
+        }
+        return paths;
+    }
+
+    private static WebDriver connectOrStop(GeckoDriverService service, FirefoxOptions options) {
+        try {
+            return connect("firefox", service, options);
+        } catch (WebDriverException e) {
+            // A geckodriver whose session failed may be left in an unknown state
+            service.stop();
+            throw e;
+        }
+    }
+
+    private static GeckoDriverService takeGeckoService(DriverPaths paths) {
+        for (GeckoDriverService service = idleGeckoServices.pollFirst(); service != null;
+             service = idleGeckoServices.pollFirst()) {
+            if (service.isRunning()) {
+                return service;
+            }
+            service.stop();
+        }
+        return startGeckoService(paths);
+    }
+
+    private static GeckoDriverService startGeckoService(DriverPaths paths) {
+        GeckoDriverService service = new GeckoDriverService.Builder()
+                .usingDriverExecutable(new File(paths.driver()))
+                .usingAnyFreePort()
+                .build();
+        start(service);
+        return service;
+    }
+
+    private static DriverPaths setFirefoxBinary(FirefoxOptions options) {
+        DriverPaths paths = resolve("firefox", GeckoDriverService.createDefaultService(), options);
+        if (paths.browser() != null) {
+            options.setBinary(paths.browser());
+        }
+        return paths;
+    }
+
+    /**
+     * Starts services in the background until the pool holds {@code geckodriver_pool_size} idle ones.
+     */
+    private static void prestartGeckoServices(DriverPaths paths) {
+        int poolSize = ConfigFileReader.getGeckodriverPoolSize();
+        while (idleGeckoServices.size() + startingGeckoServices.get() < poolSize) {
+            startingGeckoServices.incrementAndGet();
+            Thread thread = new Thread(() -> {
+                try {
+                    idleGeckoServices.addLast(startGeckoService(paths));
+                } catch (WebDriverException e) {
+                    logger.warn("Could not pre-start a geckodriver: {}", e.getMessage());
+                } finally {
+                    startingGeckoServices.decrementAndGet();
+                }
+            }, "geckodriver-prestart");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static void start(DriverService service) {
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Could not start the driver service", e);
+        }
+    }
+
+    /**
+     * Returns the driver and browser paths of a browser: resolved earlier in this JVM, from the cache
+     * file if they are still valid, or else from Selenium Manager.
+     */
+    private static DriverPaths resolve(String browser, DriverService service, Capabilities options) {
+        return resolvedPaths.computeIfAbsent(browser, name -> {
+            DriverPaths cached = readCache().get(name);
+            if (cached != null && cached.isValid()) {
+                logger.debug("Using cached driver for {}: {}", name, cached.driver());
+                return cached;
+            }
+            long started = System.nanoTime();
+            DriverFinder finder = new DriverFinder(service, options);
+            String browserPath = finder.hasBrowserPath() ? finder.getBrowserPath() : null;
+            DriverPaths paths = new DriverPaths(finder.getDriverPath(), browserPath, lastModified(browserPath));
+            logger.info("Resolved driver for {} in {} ms: {}", name, (System.nanoTime() - started) / 1_000_000,
+                    paths.driver());
+            writeCache(name, paths);
+            return paths;
+        });
+    }
+
+    /**
+     * Forgets the paths of a browser if they came from the cache file, so they are resolved again.
+     *
+     * @return {@code false} if the paths were resolved in this run, so resolving again would not help.
+     */
+    private static boolean invalidate(String browser) {
+        DriverPaths paths = resolvedPaths.get(browser);
+        if (paths == null || !paths.equals(readCache().get(browser))) {
+            return false;
+        }
+        synchronized (DriverServices.class) {
+            Properties cache = loadCacheFile();
+            cache.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith(browser + "."))
+                    .forEach(cache::remove);
+            storeCacheFile(cache);
+        }
+        resolvedPaths.remove(browser);
+        return true;
+    }
+
+    private static synchronized Map<String, DriverPaths> readCache() {
+        Properties cache = loadCacheFile();
+        Map<String, DriverPaths> paths = new TreeMap<>();
+        for (String key : cache.stringPropertyNames()) {
+            if (key.endsWith(".driver")) {
+                String browser = key.substring(0, key.length() - ".driver".length());
+                String browserModified = cache.getProperty(browser + ".browserModified", "0");
+                paths.put(browser, new DriverPaths(cache.getProperty(key),
+                        cache.getProperty(browser + ".browser"), Long.parseLong(browserModified)));
+            }
+        }
+        return paths;
+    }
+
+    private static synchronized void writeCache(String browser, DriverPaths paths) {
+        Properties cache = loadCacheFile();
+        cache.setProperty(browser + ".driver", paths.driver());
+        if (paths.browser() != null) {
+            cache.setProperty(browser + ".browser", paths.browser());
+            cache.setProperty(browser + ".browserModified", String.valueOf(paths.browserModified()));
+        } else {
+            cache.remove(browser + ".browser");
+            cache.remove(browser + ".browserModified");
+        }
+        storeCacheFile(cache);
+    }
+
+    private static Properties loadCacheFile() {
+        Properties cache = new Properties();
+        Path file = ConfigFileReader.getDriverPathCache();
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                cache.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Ignoring unreadable driver path cache {}: {}", file, e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    private static void storeCacheFile(Properties cache) {
+        Path file = ConfigFileReader.getDriverPathCache().toAbsolutePath();
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                cache.store(writer, "Driver and browser paths resolved by Selenium Manager");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not update the driver path cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static long lastModified(String path) {
+        return path == null ? 0 : new File(path).lastModified();
+    }
+
+    /**
+     * The resolved paths of a browser.
+     *
+     * @param driver          The driver executable.
+     * @param browser         The browser executable, or {@code null} if Selenium Manager did not report it.
+     * @param browserModified The modification time of the browser executable when it was resolved,
+     *                        to notice browser updates.
+     */
+    private record DriverPaths(String driver, String browser, long browserModified) {
+
+        private boolean isValid() {
+            return new File(driver).canExecute()
+                    && (browser == null || lastModified(browser) == browserModified && browserModified != 0);
+        }
+    }
+
+    private record StartupSample(String browser, String mode, Instant time, long driverMillis, long sessionMillis) {
+    }
+}
@@ -0,0 +1,190 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Selenium Grid standalone server in a child JVM, backed by the browsers installed on this
+ * machine, so remote execution can be tested without the {@code docker-compose.yml} hub and nodes.
+ *
+ * <p>The server runs the {@code selenium-grid} artifact from the test classpath with the
+ * {@code embedded_grid_*} settings for session slots, session timeout and queue timeout; Selenium
+ * Manager provides the drivers. While it runs, {@code grid_hub_url} points at it. Its output goes
+ * to {@code reports/embedded-grid.log}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     EmbeddedGrid grid = EmbeddedGrid.start();
+ *     // ... ConfigFileReader.getGridHubUrl() returns http://127.0.0.1:&lt;port&gt;
+ *     grid.stop();
+ * </pre>
+ */
+public class EmbeddedGrid {
+
+    public static final String HOST = "127.0.0.1";
+    private static final String MAIN_CLASS = "org.openqa.selenium.grid.Main";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+    private static final Logger logger = LogManager.getLogger(EmbeddedGrid.class);
+
+    private final Process process;
+    private final String url;
+    private final Path log;
+    private final String previousGridHubUrl;
+    private final Thread shutdownHook;
+
+    private EmbeddedGrid(Process process, String url, Path log) {
+        this.process = process;
+        this.url = url;
+        this.log = log;
+        this.previousGridHubUrl = System.getProperty("grid_hub_url");
+        // Do not leave the server and its browsers behind if the suite's JVM exits without stopping it
+        this.shutdownHook = new Thread(this::kill, "embedded-grid-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Starts the server and waits until it reports itself ready, then points {@code grid_hub_url} at it.
+     *
+     * @return The running server.
+     * @throws IOException If the server cannot be started or is not ready within
+     *                     {@code embedded_grid_start_timeout_seconds}.
+     */
+    public static EmbeddedGrid start() throws IOException {
+        int port = ConfigFileReader.getEmbeddedGridPort();
+        if (port == 0) {
+            port = findFreePort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        command.add("standalone");
+        command.addAll(List.of("--host", HOST, "--port", String.valueOf(port)));
+        command.addAll(List.of("--max-sessions", String.valueOf(ConfigFileReader.getEmbeddedGridMaxSessions()),
+                "--override-max-sessions", "true"));
+        command.addAll(List.of("--session-timeout",
+                String.valueOf(ConfigFileReader.getEmbeddedGridSessionTimeout().toSeconds())));
+        command.addAll(List.of("--session-request-timeout",
+                String.valueOf(ConfigFileReader.getEmbeddedGridQueueTimeout().toSeconds())));
+        command.addAll(List.of("--selenium-manager", "true"));
+
+        Path log = ConfigFileReader.getReportDir().resolve("embedded-grid.log");
+        Files.createDirectories(log.getParent());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        EmbeddedGrid grid = new EmbeddedGrid(process, String.format("http://%s:%d", HOST, port), log);
+        try {
+            grid.awaitReady(ConfigFileReader.getEmbeddedGridStartTimeout());
+        } catch (IOException | RuntimeException e) {
+            grid.stop();
+            throw e;
+        }
+        System.setProperty("grid_hub_url", grid.url);
+        logger.info("Embedded Selenium Grid started at {} (pid {}), log: {}", grid.url, process.pid(), log);
+        return grid;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Stops the server and the browsers it started, and restores {@code grid_hub_url}.
+     */
+    public void stop() {
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                kill();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            kill();
+        }
+        if (url.equals(System.getProperty("grid_hub_url"))) {
+            if (previousGridHubUrl == null) {
+                System.clearProperty("grid_hub_url");
+            } else {
+                System.setProperty("grid_hub_url", previousGridHubUrl);
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down and the hook kills the server
+        }
+        logger.info("Embedded Selenium Grid stopped");
+    }
+
+    private void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Polls the server's {@code /status} endpoint until it reports {@code ready}, i.e. its node has
+     * registered with at least one browser.
+     */
+    private void awaitReady(Duration timeout) throws IOException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(POLL_INTERVAL.multipliedBy(4)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/status"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Embedded Selenium Grid exited with code " + process.exitValue()
+                        + ", see " + log);
+            }
+            try {
+                if (isReady(client, request)) {
+                    return;
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+        throw new IOException("Embedded Selenium Grid was not ready within " + timeout.toSeconds()
+                + " s, see " + log);
+    }
+
+    private static boolean isReady(HttpClient client, HttpRequest request) throws InterruptedException {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            Map<String, Object> status = new Json().toType(response.body(), Json.MAP_TYPE);
+            return status.get("value") instanceof Map<?, ?> grid && Boolean.TRUE.equals(grid.get("ready"));
+        } catch (IOException | RuntimeException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(HOST))) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates how many browser sessions can run at the same time in the configured execution environment.
+ *
+ * <p>Locally the estimate is limited by both the processor count and the available memory, using the
+ * {@code cpus_per_session} and {@code memory_per_session_mb} budgets from the configuration file.
+ * For Selenium Grid it is the number of slots of nodes that are up whose browser is in the matrix,
+ * as reported by the hub's {@code /status} endpoint.</p>
+ */
+public class ExecutionCapacity {
+
+    private static final Logger logger = LogManager.getLogger(ExecutionCapacity.class);
+    private static final Duration GRID_STATUS_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Returns the number of sessions that can run in parallel for the given browsers.
+     *
+     * @param browsers The browsers the sessions will use.
+     * @return The session capacity, at least 1.
+     */
+    public static int getSessionCapacity(Collection<String> browsers) {
+        if (ConfigFileReader.getExecutionEnvironment().equalsIgnoreCase("remote")) {
+            return getGridCapacity(ConfigFileReader.getGridHubUrl(), browsers);
+        }
+        return getLocalCapacity();
+    }
+
+    /**
+     * Returns the number of browser sessions this machine can run in parallel,
+     * limited by its processors and its free physical memory.
+     *
+     * @return The local session capacity, at least 1.
+     */
+    public static int getLocalCapacity() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int byCpu = (int) (processors / ConfigFileReader.getCpusPerSession());
+
+        long freeMemoryMb = Long.MAX_VALUE;
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            freeMemoryMb = os.getFreeMemorySize() / (1024 * 1024);
+        }
+        long byMemory = freeMemoryMb / ConfigFileReader.getMemoryPerSessionMb();
+
+        int capacity = (int) Math.max(1, Math.min(byCpu, byMemory));
+        logger.info("Local capacity: {} sessions ({} processors, {} MB free memory)",
+                capacity, processors, freeMemoryMb == Long.MAX_VALUE ? "unknown" : freeMemoryMb);
+        return capacity;
+    }
+
+    /**
+     * Returns the number of Grid slots for the given browsers on nodes that are up.
+     *
+     * @param gridHubUrl The URL of the Selenium Grid hub.
+     * @param browsers   The browsers the sessions will use.
+     * @return The Grid session capacity, or 1 if the Grid status cannot be read or has no matching slots.
+     */
+    @SuppressWarnings("unchecked")
+    public static int getGridCapacity(String gridHubUrl, Collection<String> browsers) {
+        List<String> browserNames = browsers.stream().map(String::toLowerCase).toList();
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(GRID_STATUS_TIMEOUT).build()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(gridHubUrl.replaceAll("/+$", "") + "/status"))
+                    .timeout(GRID_STATUS_TIMEOUT)
+                    .GET()
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Map<String, Object> status = new Json().toType(body, Json.MAP_TYPE);
+            Map<String, Object> value = (Map<String, Object>) status.get("value");
+
+            int slots = 0;
+            for (Map<String, Object> node : (List<Map<String, Object>>) value.getOrDefault("nodes", List.of())) {
+                if (!"UP".equals(node.get("availability"))) {
+                    continue;
+                }
+                for (Map<String, Object> slot : (List<Map<String, Object>>) node.getOrDefault("slots", List.of())) {
+                    Map<String, Object> stereotype = (Map<String, Object>) slot.getOrDefault("stereotype", Map.of());
+                    Object browserName = stereotype.get("browserName");
+                    if (browserName != null && browserNames.contains(browserName.toString().toLowerCase())) {
+                        slots++;
+                    }
+                }
+            }
+
+            if (slots == 0) {
+                logger.warn("Grid at {} has no slots for {}; running one session at a time", gridHubUrl, browsers);
+                return 1;
+            }
+            logger.info("Grid capacity: {} slots for {}", slots, browsers);
+            return slots;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read Grid status from {}: {}; running one session at a time", gridHubUrl, e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+}
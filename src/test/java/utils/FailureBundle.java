@@ -0,0 +1,294 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Captures the state of the browser when a test fails: screenshot, page source, URL and title,
+ * browser console, recent network requests and cookies.
+ *
+ * <p>The capture is split in two. {@link #capture} runs on the test thread and only reads the state
+ * from the browser, within a time budget ({@code failure_capture_timeout_ms}); items that are not
+ * captured in time are listed as missing instead of delaying the next test. Writing the screenshot
+ * and compressing everything into one zip per failure then happens on a background thread.
+ * Call {@link #awaitPendingWrites} before the report is flushed.</p>
+ *
+ * <p>Console logs are only available in Chromium-based browsers, which are started with browser
+ * logging enabled. Network requests are the document's Resource Timing entries.</p>
+ */
+public class FailureBundle {
+
+    /**
+     * Result attribute with the path of the failure bundle archive.
+     */
+    public static final String ARCHIVE_ATTRIBUTE = "failureBundle";
+
+    private static final Logger logger = LogManager.getLogger(FailureBundle.class);
+    private static final Json JSON = new Json();
+    private static final int MAX_NETWORK_ENTRIES = 150;
+    private static final String NETWORK_SCRIPT =
+            "var entries = performance.getEntriesByType('navigation')"
+                    + "  .concat(performance.getEntriesByType('resource').slice(-arguments[0]));"
+                    + "return JSON.stringify(entries.map(function (e) { return {"
+                    + "  name: e.name, type: e.initiatorType || e.entryType, start: Math.round(e.startTime),"
+                    + "  duration: Math.round(e.duration), transferSize: e.transferSize,"
+                    + "  status: e.responseStatus }; }));";
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "failure-bundle-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ConcurrentLinkedQueue<CompletableFuture<Void>> pendingWrites = new ConcurrentLinkedQueue<>();
+    // Captures that ran out of time, by session; the session must not be used until they end
+    private static final Map<WebDriver, Thread> runningCaptures = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the failure state from the browser within the configured time budget and schedules
+     * the bundle to be written in the background. A capture that runs out of time is interrupted and
+     * left to stop on its own; the session is reported by {@link #isCaptureRunning} until it has.
+     *
+     * @param driver The {@link WebDriver} instance of the failed test.
+     * @param name   The base name of the bundle files, e.g. the test method name.
+     * @return The capture, with the paths its files will be written to.
+     */
+    public static Capture capture(WebDriver driver, String name) {
+        Duration budget = ConfigFileReader.getFailureCaptureTimeout();
+        Snapshot snapshot = new Snapshot();
+        long started = System.nanoTime();
+
+        // The browser calls run on their own thread, so that a hung browser cannot block the test
+        // thread longer than the budget. Items the thread has not captured yet are skipped.
+        Thread captureThread = Thread.ofVirtual().name("failure-capture-" + name).start(() -> {
+            snapshot.add("screenshot.png", driver, d -> ((TakesScreenshot) d).getScreenshotAs(OutputType.BYTES));
+            snapshot.add("url.txt", driver, d -> text(d.getCurrentUrl() + "\n" + d.getTitle() + "\n"));
+            snapshot.add("console.json", driver, FailureBundle::readConsole);
+            snapshot.add("network.json", driver, d -> text((String) ((JavascriptExecutor) d)
+                    .executeScript(NETWORK_SCRIPT, MAX_NETWORK_ENTRIES)));
+            snapshot.add("cookies.json", driver, FailureBundle::readCookies);
+            snapshot.add("page.html", driver, d -> text(d.getPageSource()));
+        });
+        try {
+            if (!captureThread.join(budget)) {
+                snapshot.close("capture timed out after " + budget.toMillis() + " ms");
+                abandonCapture(captureThread, driver);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            snapshot.close("capture interrupted");
+            abandonCapture(captureThread, driver);
+        }
+        long captureMillis = (System.nanoTime() - started) / 1_000_000;
+
+        Path directory = ConfigFileReader.getReportDir().resolve("failures");
+        String baseName = String.format("%s_failed_%s", name, System.currentTimeMillis());
+        Map<String, byte[]> items = snapshot.items();
+        Capture capture = new Capture(
+                directory.resolve(baseName + ".zip"),
+                items.containsKey("screenshot.png") ? directory.resolve(baseName + ".png") : null,
+                captureMillis,
+                snapshot.missing());
+        logger.info("Captured failure state of {} in {} ms; missing: {}", name, captureMillis, capture.missing());
+
+        pendingWrites.add(CompletableFuture.runAsync(() -> write(capture, items), writer));
+        return capture;
+    }
+
+    /**
+     * Returns whether a timed-out capture is still sending commands to the session. WebDriver sessions
+     * are not thread-safe, so such a session must be recycled instead of being used by the next test.
+     *
+     * @param session The session, as created by {@link DriverFactory} (see {@link DriverFactory#getSessionDriver()}).
+     * @return {@code true} if a capture is still running on the session.
+     */
+    public static boolean isCaptureRunning(WebDriver session) {
+        Thread captureThread = session == null ? null : runningCaptures.get(session);
+        if (captureThread == null) {
+            return false;
+        }
+        if (!captureThread.isAlive()) {
+            runningCaptures.remove(session, captureThread);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Interrupts a capture without waiting for it to stop: the test thread has spent its budget. Until
+     * the capture ends, the next test recycles the session (see {@code BaseTest.prepareDriver}).
+     */
+    private static void abandonCapture(Thread captureThread, WebDriver driver) {
+        captureThread.interrupt();
+        runningCaptures.put(sessionOf(driver), captureThread);
+    }
+
+    /**
+     * Returns the session a driver belongs to: the current thread's session if the driver is its
+     * decorated form (see {@link DriverFactory#getDriver()}), otherwise the driver itself.
+     */
+    private static WebDriver sessionOf(WebDriver driver) {
+        return driver == DriverFactory.getDriver() && DriverFactory.getSessionDriver() != null
+                ? DriverFactory.getSessionDriver() : driver;
+    }
+
+    /**
+     * Waits until all scheduled bundles are written.
+     *
+     * @param timeout The longest time to wait.
+     */
+    public static void awaitPendingWrites(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<Void> write;
+        while ((write = pendingWrites.poll()) != null) {
+            try {
+                write.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.warn("Failure bundles are still being written after {} ms", timeout.toMillis());
+                return;
+            } catch (ExecutionException e) {
+                // Already logged by write()
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void write(Capture capture, Map<String, byte[]> items) {
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(capture.archive().getParent());
+            if (capture.screenshot() != null) {
+                Files.write(capture.screenshot(), items.get("screenshot.png"));
+            }
+            try (OutputStream out = Files.newOutputStream(capture.archive());
+                 ZipOutputStream zip = new ZipOutputStream(out)) {
+                for (Map.Entry<String, byte[]> item : items.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(item.getKey()));
+                    zip.write(item.getValue());
+                    zip.closeEntry();
+                }
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("captureMillis", capture.captureMillis());
+                summary.put("missing", capture.missing());
+                zip.putNextEntry(new ZipEntry("capture.json"));
+                zip.write(text(JSON.toJson(summary)));
+                zip.closeEntry();
+            }
+            logger.debug("Wrote failure bundle {} in {} ms", capture.archive(), (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            logger.error("Failed to write failure bundle {}: {}", capture.archive(), e.getMessage());
+            throw new RuntimeException("Failed to write failure bundle " + capture.archive(), e);
+        }
+    }
+
+    private static byte[] readConsole(WebDriver driver) {
+        if (!driver.manage().logs().getAvailableLogTypes().contains(LogType.BROWSER)) {
+            throw new UnsupportedOperationException("browser console logs are not available for this browser");
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+            entries.add(entry.toJson());
+        }
+        return text(JSON.toJson(entries));
+    }
+
+    private static byte[] readCookies(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            cookies.add(new LinkedHashMap<>(cookie.toJson()));
+        }
+        return text(JSON.toJson(cookies));
+    }
+
+    private static byte[] text(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The captured items, filled in by the capture thread until the test thread closes it.
+     */
+    private static class Snapshot {
+        private final Map<String, byte[]> items = new LinkedHashMap<>();
+        private final List<String> missing = new ArrayList<>();
+        private boolean closed;
+
+        private void add(String item, WebDriver driver, Function<WebDriver, byte[]> reader) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                byte[] value = reader.apply(driver);
+                synchronized (this) {
+                    if (!closed) {
+                        items.put(item, value);
+                    }
+                }
+            } catch (RuntimeException e) {
+                String reason = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage().lines().findFirst().orElse("");
+                synchronized (this) {
+                    if (!closed) {
+                        missing.add(item + ": " + reason);
+                    }
+                }
+            }
+        }
+
+        private synchronized void close(String reason) {
+            closed = true;
+            missing.add(reason);
+        }
+
+        private synchronized Map<String, byte[]> items() {
+            closed = true;
+            return new LinkedHashMap<>(items);
+        }
+
+        private synchronized List<String> missing() {
+            return List.copyOf(missing);
+        }
+    }
+
+    /**
+     * The result of a failure capture.
+     *
+     * @param archive       The zip the bundle is written to.
+     * @param screenshot    The screenshot file, or {@code null} if no screenshot was captured.
+     * @param captureMillis The time the test thread spent capturing.
+     * @param missing       The items that could not be captured, with the reason.
+     */
+    public record Capture(Path archive, Path screenshot, long captureMillis, List<String> missing) {
+    }
+}
@@ -0,0 +1,351 @@
+package utils;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compares two images pixel by pixel, in square tiles that are processed in parallel on the common
+ * fork-join pool.
+ *
+ * <p>A pixel counts as changed when one of its color channels differs by more than the channel
+ * tolerance; pixels inside ignore regions are not compared. Optionally, a changed tile is compared
+ * once more by a 64-bit difference hash (dHash) and discarded as rendering noise (anti-aliasing,
+ * sub-pixel text shifts) when the hashes differ by at most the perceptual tolerance.</p>
+ */
+public class ImageDiff {
+
+    public static final int TILE_SIZE = 64;
+    private static final int TILES_PER_TASK = 8;
+    private static final int DIFF_COLOR = 0xff0000;
+    private static final int IGNORED_COLOR = 0x808080;
+
+    /**
+     * Compares the actual image with the baseline.
+     *
+     * @param baseline            The expected image.
+     * @param actual              The image to check.
+     * @param ignoreRegions       Regions, in image pixels, that are not compared.
+     * @param channelTolerance    The largest per-channel difference (0-255) that still counts as equal.
+     * @param perceptualTolerance The largest dHash distance (0-64) at which a changed tile is treated as
+     *                            noise, or a negative value to count every changed pixel.
+     * @return The comparison result.
+     */
+    public static Result compare(BufferedImage baseline, BufferedImage actual, List<Rectangle> ignoreRegions,
+                                 int channelTolerance, int perceptualTolerance) {
+        int width = actual.getWidth();
+        int height = actual.getHeight();
+        if (baseline.getWidth() != width || baseline.getHeight() != height) {
+            return Result.sizeMismatch(width, height);
+        }
+
+        int[] expectedPixels = toRgbPixels(baseline);
+        int[] actualPixels = toRgbPixels(actual);
+        Tiles tiles = new Tiles(width, height, ignoreRegions);
+        ForkJoinPool.commonPool().invoke(new TileTask(tiles, expectedPixels, actualPixels, channelTolerance,
+                perceptualTolerance, 0, tiles.count()));
+
+        long changed = 0;
+        long compared = 0;
+        int changedTiles = 0;
+        for (int tile = 0; tile < tiles.count(); tile++) {
+            changed += tiles.changedPixels[tile];
+            compared += tiles.comparedPixels[tile];
+            if (tiles.changedPixels[tile] > 0) {
+                changedTiles++;
+            }
+        }
+        return new Result(width, height, false, changed, compared, changedTiles, tiles.noiseTiles(), tiles.changedPixels);
+    }
+
+    /**
+     * Renders a diff image: the actual image faded out, with changed pixels of changed tiles in red
+     * and ignore regions in gray. Only meant to be called for mismatches.
+     *
+     * @param baseline         The expected image.
+     * @param actual           The image that was checked.
+     * @param result           The result of {@link #compare}.
+     * @param ignoreRegions    The ignore regions used for the comparison.
+     * @param channelTolerance The channel tolerance used for the comparison.
+     * @return The diff image.
+     */
+    public static BufferedImage renderDiff(BufferedImage baseline, BufferedImage actual, Result result,
+                                           List<Rectangle> ignoreRegions, int channelTolerance) {
+        int width = actual.getWidth();
+        int height = actual.getHeight();
+        int[] actualPixels = toRgbPixels(actual);
+        BufferedImage diff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] diffPixels = ((DataBufferInt) diff.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < diffPixels.length; i++) {
+            diffPixels[i] = fade(actualPixels[i]);
+        }
+
+        if (!result.sizeMismatch()) {
+            int[] expectedPixels = toRgbPixels(baseline);
+            Tiles tiles = new Tiles(width, height, ignoreRegions);
+            for (int tile = 0; tile < tiles.count(); tile++) {
+                if (result.tileChangedPixels()[tile] == 0) {
+                    continue;
+                }
+                Rectangle bounds = tiles.bounds(tile);
+                for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                    for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+                        int i = y * width + x;
+                        if (exceeds(expectedPixels[i], actualPixels[i], channelTolerance)) {
+                            diffPixels[i] = DIFF_COLOR;
+                        }
+                    }
+                }
+            }
+        }
+        for (Rectangle region : ignoreRegions) {
+            Rectangle clipped = region.intersection(new Rectangle(0, 0, width, height));
+            for (int y = clipped.y; y < clipped.y + clipped.height; y++) {
+                for (int x = clipped.x; x < clipped.x + clipped.width; x++) {
+                    diffPixels[y * width + x] = IGNORED_COLOR;
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Returns the image's pixels as packed RGB integers without alpha, reading the raster directly
+     * when the image is already stored that way.
+     *
+     * @param image The image.
+     * @return The pixels, row by row.
+     */
+    public static int[] toRgbPixels(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Computes the 64-bit difference hash of a region: the region is reduced to 9x8 gray cells and
+     * each bit says whether a cell is brighter than its right neighbour. Pixels inside the ignore
+     * regions are read from {@code fallbackPixels} instead, so ignored content does not change the hash.
+     */
+    static long dHash(int[] pixels, int[] fallbackPixels, int width, Rectangle bounds, List<Rectangle> ignored) {
+        long[] cellSums = new long[72];
+        int[] cellCounts = new int[72];
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            int cellRow = (y - bounds.y) * 8 / bounds.height;
+            for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+                int cell = cellRow * 9 + (x - bounds.x) * 9 / bounds.width;
+                int pixel = isIgnored(ignored, x, y) ? fallbackPixels[y * width + x] : pixels[y * width + x];
+                cellSums[cell] += ((pixel >> 16) & 0xff) * 299L + ((pixel >> 8) & 0xff) * 587L + (pixel & 0xff) * 114L;
+                cellCounts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                int left = row * 9 + column;
+                // Compare averages without dividing: sumLeft / countLeft > sumRight / countRight
+                if (cellSums[left] * Math.max(1, cellCounts[left + 1]) > cellSums[left + 1] * Math.max(1, cellCounts[left])) {
+                    hash |= 1L << (row * 8 + column);
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static boolean exceeds(int expected, int actual, int channelTolerance) {
+        if (expected == actual) {
+            return false;
+        }
+        int red = Math.abs(((expected >> 16) & 0xff) - ((actual >> 16) & 0xff));
+        int green = Math.abs(((expected >> 8) & 0xff) - ((actual >> 8) & 0xff));
+        int blue = Math.abs((expected & 0xff) - (actual & 0xff));
+        return Math.max(red, Math.max(green, blue)) > channelTolerance;
+    }
+
+    private static boolean isIgnored(List<Rectangle> regions, int x, int y) {
+        for (Rectangle region : regions) {
+            if (region.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int fade(int pixel) {
+        int red = 255 - (255 - ((pixel >> 16) & 0xff)) / 4;
+        int green = 255 - (255 - ((pixel >> 8) & 0xff)) / 4;
+        int blue = 255 - (255 - (pixel & 0xff)) / 4;
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * The tile grid of an image and the per-tile results.
+     */
+    private static class Tiles {
+        private final int width;
+        private final int height;
+        private final int columns;
+        private final int rows;
+        private final List<Rectangle> ignoreRegions;
+        private final int[] changedPixels;
+        private final int[] comparedPixels;
+        private final boolean[] noise;
+
+        private Tiles(int width, int height, List<Rectangle> ignoreRegions) {
+            this.width = width;
+            this.height = height;
+            this.columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+            this.rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+            this.ignoreRegions = ignoreRegions;
+            this.changedPixels = new int[columns * rows];
+            this.comparedPixels = new int[columns * rows];
+            this.noise = new boolean[columns * rows];
+        }
+
+        private int count() {
+            return columns * rows;
+        }
+
+        private Rectangle bounds(int tile) {
+            int x = (tile % columns) * TILE_SIZE;
+            int y = (tile / columns) * TILE_SIZE;
+            return new Rectangle(x, y, Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y));
+        }
+
+        private List<Rectangle> ignoredIn(Rectangle bounds) {
+            List<Rectangle> intersecting = new ArrayList<>();
+            for (Rectangle region : ignoreRegions) {
+                if (region.intersects(bounds)) {
+                    intersecting.add(region);
+                }
+            }
+            return intersecting;
+        }
+
+        private int noiseTiles() {
+            int count = 0;
+            for (boolean tileIsNoise : noise) {
+                if (tileIsNoise) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Compares a range of tiles, splitting the range in halves until it is small enough.
+     */
+    private static class TileTask extends RecursiveAction {
+        // Fork/join tasks are serializable by inheritance only; a TileTask is never serialized
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Tiles tiles;
+        private final int[] expected;
+        private final int[] actual;
+        private final int channelTolerance;
+        private final int perceptualTolerance;
+        private final int from;
+        private final int to;
+
+        private TileTask(Tiles tiles, int[] expected, int[] actual, int channelTolerance, int perceptualTolerance,
+                         int from, int to) {
+            this.tiles = tiles;
+            this.expected = expected;
+            this.actual = actual;
+            this.channelTolerance = channelTolerance;
+            this.perceptualTolerance = perceptualTolerance;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                for (int tile = from; tile < to; tile++) {
+                    compareTile(tile);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(tiles, expected, actual, channelTolerance, perceptualTolerance, from, middle),
+                    new TileTask(tiles, expected, actual, channelTolerance, perceptualTolerance, middle, to));
+        }
+
+        private void compareTile(int tile) {
+            Rectangle bounds = tiles.bounds(tile);
+            List<Rectangle> ignored = tiles.ignoredIn(bounds);
+            int width = tiles.width;
+            int changed = 0;
+            int compared = 0;
+            for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                int rowStart = y * width;
+                for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+                    if (!ignored.isEmpty() && isIgnored(ignored, x, y)) {
+                        continue;
+                    }
+                    compared++;
+                    if (exceeds(expected[rowStart + x], actual[rowStart + x], channelTolerance)) {
+                        changed++;
+                    }
+                }
+            }
+
+            if (changed > 0 && perceptualTolerance >= 0) {
+                long expectedHash = dHash(expected, expected, width, bounds, ignored);
+                long actualHash = dHash(actual, expected, width, bounds, ignored);
+                if (Long.bitCount(expectedHash ^ actualHash) <= perceptualTolerance) {
+                    tiles.noise[tile] = true;
+                    changed = 0;
+                }
+            }
+            tiles.changedPixels[tile] = changed;
+            tiles.comparedPixels[tile] = compared;
+        }
+    }
+
+    /**
+     * The result of a comparison.
+     *
+     * @param width             The image width.
+     * @param height            The image height.
+     * @param sizeMismatch      Whether the images have different sizes; no pixels are compared then.
+     * @param changedPixels     The number of changed pixels, excluding tiles discarded as noise.
+     * @param comparedPixels    The number of pixels outside the ignore regions.
+     * @param changedTiles      The number of tiles with changed pixels.
+     * @param noiseTiles        The number of tiles discarded as perceptually equal.
+     * @param tileChangedPixels The number of changed pixels per tile, row by row.
+     */
+    public record Result(int width, int height, boolean sizeMismatch, long changedPixels, long comparedPixels,
+                         int changedTiles, int noiseTiles, int[] tileChangedPixels) {
+
+        private static Result sizeMismatch(int width, int height) {
+            return new Result(width, height, true, 0, 0, 0, 0, new int[0]);
+        }
+
+        /**
+         * Returns the share of compared pixels that changed; 1 if the sizes differ.
+         *
+         * @return The mismatch ratio, from 0 to 1.
+         */
+        public double mismatchRatio() {
+            if (sizeMismatch) {
+                return 1;
+            }
+            return comparedPixels == 0 ? 0 : (double) changedPixels / comparedPixels;
+        }
+    }
+}
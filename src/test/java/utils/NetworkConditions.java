@@ -0,0 +1,172 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emulates slow, lossy or missing network connections in Chromium-based browsers through the DevTools
+ * command {@code Network.emulateNetworkConditions}.
+ *
+ * <p>The profile of a test comes from its {@link NetworkProfile} annotation, or from
+ * {@code network_profile}. It is applied to the test's session before the test method runs, only if
+ * the session is not under that profile already, and a pooled session is reset to an unthrottled
+ * connection before it is handed out again. While a profile is active, the page timings of the test are
+ * recorded as {@code <page>@<profile>} (see {@link PageTimings#setNetworkProfile}), so the run summary,
+ * the performance history and the budgets keep each profile apart.</p>
+ *
+ * <p>Firefox has no equivalent of the command, so tests that ask for a profile other than {@code none}
+ * are skipped there.</p>
+ */
+public class NetworkConditions {
+
+    /**
+     * Test result attribute with the name of the profile the test ran under.
+     */
+    public static final String PROFILE_ATTRIBUTE = "networkProfile";
+
+    public static final String NONE = "none";
+
+    private static final Logger logger = LogManager.getLogger(NetworkConditions.class);
+
+    private static final Map<String, Profile> profiles = new LinkedHashMap<>();
+    // The profile each session is under; sessions that are not listed have an unthrottled connection
+    private static final Map<WebDriver, String> sessionProfiles = new ConcurrentHashMap<>();
+
+    static {
+        add(new Profile(NONE, false, 0, -1, -1, 0));
+        add(new Profile("offline", true, 0, 0, 0, 0));
+        add(new Profile("2g", false, 800, 280, 256, 0));
+        add(new Profile("3g", false, 300, 1600, 768, 0));
+        add(new Profile("4g", false, 85, 9000, 1500, 0));
+        add(new Profile("lossy-wifi", false, 40, 30000, 15000, 5));
+    }
+
+    /**
+     * A network profile.
+     *
+     * @param name              The name used in {@link NetworkProfile} and in the page timings.
+     * @param offline           Whether all requests fail as if the network was down.
+     * @param latencyMillis     The added round-trip latency.
+     * @param downloadKbps      The download throughput in kbit/s, or -1 for no limit.
+     * @param uploadKbps        The upload throughput in kbit/s, or -1 for no limit.
+     * @param packetLossPercent The share of packets that are dropped.
+     */
+    public record Profile(String name, boolean offline, long latencyMillis, long downloadKbps, long uploadKbps,
+                          double packetLossPercent) {
+
+        private Map<String, Object> toCdpParameters() {
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            parameters.put("offline", offline);
+            parameters.put("latency", latencyMillis);
+            parameters.put("downloadThroughput", downloadKbps < 0 ? -1 : downloadKbps * 1000 / 8);
+            parameters.put("uploadThroughput", uploadKbps < 0 ? -1 : uploadKbps * 1000 / 8);
+            if (packetLossPercent > 0) {
+                parameters.put("packetLoss", packetLossPercent);
+            }
+            return parameters;
+        }
+    }
+
+    /**
+     * Returns a profile by name.
+     *
+     * @param name The profile name, e.g. {@code 3g}.
+     * @return The profile.
+     * @throws IllegalArgumentException If there is no profile with that name.
+     */
+    public static Profile getProfile(String name) {
+        Profile profile = profiles.get(name.toLowerCase());
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown network profile '" + name + "'; expected one of "
+                    + profiles.keySet());
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the profile a test method runs under: its own {@link NetworkProfile}, its class's, or
+     * {@code network_profile}.
+     *
+     * @param testClass The class of the test instance, which may inherit the method.
+     * @param method    The test method.
+     * @return The profile.
+     */
+    public static Profile forTest(Class<?> testClass, Method method) {
+        NetworkProfile annotation = method.getAnnotation(NetworkProfile.class);
+        if (annotation == null) {
+            annotation = testClass.getAnnotation(NetworkProfile.class);
+        }
+        return getProfile(annotation != null ? annotation.value() : ConfigFileReader.getNetworkProfile());
+    }
+
+    /**
+     * Puts a session under a profile, unless it is under that profile already, and labels the current
+     * thread's page timings with the profile.
+     *
+     * @param session The session, as created by {@link DriverFactory} (see {@link DriverFactory#getSessionDriver()}).
+     * @param browser The browser name (e.g., "chrome", "firefox", "brave").
+     * @param profile The profile.
+     * @return {@code false} if the browser cannot emulate network conditions, so the test must be skipped.
+     */
+    public static boolean apply(WebDriver session, String browser, Profile profile) {
+        boolean throttled = !profile.name().equals(NONE);
+        PageTimings.setNetworkProfile(throttled ? profile.name() : null);
+        if (profile.name().equals(sessionProfiles.getOrDefault(session, NONE))) {
+            return true;
+        }
+        if (browser.equalsIgnoreCase("firefox")) {
+            return false;
+        }
+
+        emulate(session, profile);
+        if (throttled) {
+            sessionProfiles.put(session, profile.name());
+        } else {
+            sessionProfiles.remove(session);
+        }
+        logger.info("Network profile '{}' applied: {}", profile.name(), profile);
+        return true;
+    }
+
+    /**
+     * Gives a session an unthrottled connection again, if it is under a profile, before it is reused by
+     * a test that may not ask for one.
+     *
+     * @param session The session.
+     * @throws WebDriverException If the session does not respond.
+     */
+    public static void reset(WebDriver session) {
+        if (sessionProfiles.remove(session) != null) {
+            emulate(session, profiles.get(NONE));
+        }
+    }
+
+    /**
+     * Stops tracking a session that has been quit.
+     *
+     * @param session The session.
+     */
+    public static void release(WebDriver session) {
+        sessionProfiles.remove(session);
+    }
+
+    private static void emulate(WebDriver session, Profile profile) {
+        // Local Chromium sessions implement HasCdp; sessions on a Grid only after augmentation
+        HasCdp cdp = session instanceof HasCdp hasCdp ? hasCdp : (HasCdp) new Augmenter().augment(session);
+        cdp.executeCdpCommand("Network.enable", Map.of());
+        cdp.executeCdpCommand("Network.emulateNetworkConditions", profile.toCdpParameters());
+    }
+
+    private static void add(Profile profile) {
+        profiles.put(profile.name(), profile);
+    }
+}
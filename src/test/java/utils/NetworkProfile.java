@@ -0,0 +1,21 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test method, or every test method of a class, under one of the emulated network profiles of
+ * {@link NetworkConditions}, e.g. {@code @NetworkProfile("3g")}. An annotation on the method replaces
+ * the one on its class; without either, {@code network_profile} from the configuration file applies.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface NetworkProfile {
+
+    /**
+     * The profile name: {@code none}, {@code offline}, {@code 2g}, {@code 3g}, {@code 4g} or {@code lossy-wifi}.
+     */
+    String value();
+}
@@ -0,0 +1,215 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Waits for the page's own network and DOM activity instead of polling for its visible effects.
+ *
+ * <p>{@link #mark} injects a small tracker into the current document, once per document. It counts
+ * in-flight {@code XMLHttpRequest}s and {@code fetch} calls (which includes jQuery's requests),
+ * pending short timers (up to 1 s, as used to update the page shortly after a response) and DOM
+ * mutations: added or removed nodes and changed text. Attribute changes are not counted, as animated
+ * styles and classes change on every frame and the DOM would never go quiet. The waits then run as a single asynchronous script: the tracker calls back from inside
+ * the browser as soon as the condition is met, so a wait takes the real completion time plus one
+ * WebDriver round trip, instead of a multiple of a polling interval.</p>
+ *
+ * <p>Typical use, with the mark taken before the action so that requests it starts are never missed:</p>
+ * <pre>
+ *     long mark = NetworkSync.mark(driver);
+ *     addToCartButton.click();
+ *     NetworkSync.awaitRequest(driver, mark, "route=checkout/cart/add");
+ * </pre>
+ */
+public class NetworkSync {
+
+    private static final Logger logger = LogManager.getLogger(NetworkSync.class);
+
+    private static final String TRACKER_SCRIPT = """
+            var t = window.__networkSync;
+            if (t) { return t.seq; }
+            t = window.__networkSync = {seq: 0, pending: 0, timers: 0, requests: [], last: performance.now(), waiters: []};
+            var setTimer = window.setTimeout, clearTimer = window.clearTimeout, timers = {}, recheck = null;
+            t.check = function () {
+              var next = -1;
+              t.waiters = t.waiters.filter(function (waiter) {
+                var delay = waiter();
+                if (delay > 0 && (next < 0 || delay < next)) { next = delay; }
+                return delay !== 0;
+              });
+              clearTimer(recheck);
+              recheck = next > 0 ? setTimer(t.check, next) : null;
+            };
+            function touch() { t.last = performance.now(); t.check(); }
+            function begin(method, url) {
+              var request = {id: ++t.seq, method: String(method || 'GET').toUpperCase(), url: String(url),
+                  status: 0, done: false, start: performance.now(), end: 0};
+              t.pending++;
+              t.requests.push(request);
+              if (t.requests.length > 200) { t.requests.shift(); }
+              touch();
+              return request;
+            }
+            function end(request, status) {
+              if (request.done) { return; }
+              request.done = true; request.status = status; request.end = performance.now();
+              t.pending--;
+              touch();
+            }
+            var open = XMLHttpRequest.prototype.open, send = XMLHttpRequest.prototype.send;
+            XMLHttpRequest.prototype.open = function (method, url) {
+              this.__syncMethod = method; this.__syncUrl = url;
+              return open.apply(this, arguments);
+            };
+            XMLHttpRequest.prototype.send = function () {
+              var xhr = this, request = begin(xhr.__syncMethod, xhr.__syncUrl);
+              xhr.addEventListener('loadend', function () { end(request, xhr.status); });
+              return send.apply(this, arguments);
+            };
+            if (window.fetch) {
+              var fetch = window.fetch;
+              window.fetch = function (input, init) {
+                var request = begin((init && init.method) || (input && input.method), (input && input.url) || input);
+                return fetch.apply(this, arguments).then(
+                    function (response) { end(request, response.status); return response; },
+                    function (error) { end(request, 0); throw error; });
+              };
+            }
+            window.setTimeout = function (callback, delay) {
+              if (typeof callback !== 'function' || (delay || 0) > 1000) { return setTimer.apply(window, arguments); }
+              var args = Array.prototype.slice.call(arguments, 2);
+              var id = setTimer(function () {
+                if (timers[id]) { delete timers[id]; t.timers--; }
+                try { callback.apply(window, args); } finally { touch(); }
+              }, delay);
+              timers[id] = true; t.timers++;
+              return id;
+            };
+            window.clearTimeout = function (id) {
+              if (timers[id]) { delete timers[id]; t.timers--; touch(); }
+              return clearTimer(id);
+            };
+            new MutationObserver(touch).observe(document, {childList: true, subtree: true, characterData: true});
+            return t.seq;
+            """;
+
+    private static final String AWAIT_SCRIPT = """
+            var mark = arguments[0], urlPart = arguments[1], quiet = arguments[2], done = arguments[arguments.length - 1];
+            var t = window.__networkSync, started = performance.now();
+            if (!t) { done({error: 'tracker not installed in this document'}); return; }
+            var jQueryActive = function () { return window.jQuery && window.jQuery.active ? window.jQuery.active : 0; };
+            t.waiters.push(function () {
+              var request = null;
+              if (urlPart !== null) {
+                for (var i = 0; i < t.requests.length && !request; i++) {
+                  var r = t.requests[i];
+                  if (r.id > mark && r.url.indexOf(urlPart) >= 0) { request = r; }
+                }
+                if (!request || !request.done) { return -1; }
+              } else if (t.pending > 0 || jQueryActive() > 0) {
+                return -1;
+              }
+              if (t.timers > 0) { return -1; }
+              var remaining = quiet - (performance.now() - t.last);
+              if (remaining > 0) { return remaining; }
+              done({waited: performance.now() - started, method: request ? request.method : null,
+                  url: request ? request.url : null, status: request ? request.status : 0,
+                  duration: request ? request.end - request.start : 0});
+              return 0;
+            });
+            t.check();
+            """;
+
+    private static final Set<WebDriver> driversWithScriptTimeout = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * Installs the tracker in the current document, if needed, and returns a mark for
+     * {@link #awaitRequest}. Take the mark before the action that starts the request.
+     *
+     * @param driver The {@link WebDriver} instance used to control the browser.
+     * @return The number of requests tracked in this document so far.
+     */
+    public static long mark(WebDriver driver) {
+        return ((Number) ((JavascriptExecutor) driver).executeScript(TRACKER_SCRIPT)).longValue();
+    }
+
+    /**
+     * Waits until the first request after the mark whose URL contains {@code urlPart} has completed,
+     * and the page has settled: no pending short timers and no DOM changes for {@code network_quiet_ms}.
+     *
+     * @param driver  The {@link WebDriver} instance used to control the browser.
+     * @param mark    The mark taken with {@link #mark} before the request was started.
+     * @param urlPart A part of the request URL, e.g. {@code route=checkout/cart/add}.
+     * @return The completed request.
+     * @throws TimeoutException If the request does not complete within the configured timeout.
+     */
+    public static CompletedRequest awaitRequest(WebDriver driver, long mark, String urlPart) {
+        return await(driver, mark, urlPart, "request " + urlPart);
+    }
+
+    /**
+     * Waits until no request is in flight, no short timer is pending and the DOM has not changed for
+     * {@code network_quiet_ms}. Requests started before the tracker was installed are only seen
+     * if they were sent with jQuery.
+     *
+     * @param driver The {@link WebDriver} instance used to control the browser.
+     * @throws TimeoutException If the page does not become idle within the configured timeout.
+     */
+    public static void awaitIdle(WebDriver driver) {
+        long mark = mark(driver);
+        await(driver, mark, null, "network idle");
+    }
+
+    private static CompletedRequest await(WebDriver driver, long mark, String urlPart, String description) {
+        ensureScriptTimeout(driver);
+        Object result;
+        try {
+            result = ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_SCRIPT, mark, urlPart,
+                    ConfigFileReader.getNetworkQuietMillis());
+        } catch (ScriptTimeoutException e) {
+            throw new TimeoutException("Timed out waiting for " + description + " after "
+                    + ConfigFileReader.getPageReadyTimeout().toSeconds() + " s", e);
+        }
+
+        Map<?, ?> values = (Map<?, ?>) result;
+        if (values.containsKey("error")) {
+            throw new IllegalStateException("Cannot wait for " + description + ": " + values.get("error"));
+        }
+        CompletedRequest request = new CompletedRequest((String) values.get("method"), (String) values.get("url"),
+                ((Number) values.get("status")).intValue(), ((Number) values.get("duration")).longValue());
+        logger.debug("Waited {} ms for {}", Math.round(((Number) values.get("waited")).doubleValue()), description);
+        return request;
+    }
+
+    /**
+     * Sets the asynchronous script timeout of a session to the page-ready timeout, once per session.
+     */
+    private static void ensureScriptTimeout(WebDriver driver) {
+        synchronized (driversWithScriptTimeout) {
+            if (!driversWithScriptTimeout.add(driver)) {
+                return;
+            }
+        }
+        driver.manage().timeouts().scriptTimeout(ConfigFileReader.getPageReadyTimeout());
+    }
+
+    /**
+     * A request seen by the tracker.
+     *
+     * @param method         The HTTP method, or {@code null} for {@link #awaitIdle}.
+     * @param url            The request URL as passed by the page.
+     * @param status         The HTTP status, or 0 if the request failed.
+     * @param durationMillis The time from sending the request until it completed.
+     */
+    public record CompletedRequest(String method, String url, int status, long durationMillis) {
+    }
+}
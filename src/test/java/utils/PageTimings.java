@@ -0,0 +1,297 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records per-page navigation timings and web vitals over the run, and separately for the current test.
+ *
+ * <p>Time-to-ready is the time from navigation start until the page object's readiness contract was
+ * first satisfied on a document. The other {@link Metric metrics} come from the browser's Navigation
+ * Timing and Paint Timing entries, and from performance observers for Largest Contentful Paint and
+ * Cumulative Layout Shift that are installed when the page becomes ready. Metrics that are not final
+ * yet when the page becomes ready are read again when the page is left through a page-changing click,
+ * or when the test ends, because with the {@code eager} page-load strategy the load event has usually
+ * not fired yet when the page becomes ready. All values come from the browser's own clock, so WebDriver
+ * round trips do not skew them.</p>
+ */
+public class PageTimings {
+
+    private static final Logger logger = LogManager.getLogger(PageTimings.class);
+    private static final String TIMING_SCRIPT =
+            "var vitals = window.__pageTimingVitals;"
+                    + "if (!vitals) {"
+                    + "  vitals = window.__pageTimingVitals = {lcp: 0, cls: -1, session: 0, first: 0, last: 0};"
+                    + "  var types = (window.PerformanceObserver && PerformanceObserver.supportedEntryTypes) || [];"
+                    + "  if (types.indexOf('largest-contentful-paint') >= 0) {"
+                    + "    new PerformanceObserver(function (list) {"
+                    + "      list.getEntries().forEach(function (e) { vitals.lcp = e.startTime; });"
+                    + "    }).observe({type: 'largest-contentful-paint', buffered: true});"
+                    + "  }"
+                    + "  if (types.indexOf('layout-shift') >= 0) {"
+                    + "    vitals.cls = 0;"
+                    // CLS is the largest session window: shifts less than 1 s apart, at most 5 s long
+                    + "    new PerformanceObserver(function (list) {"
+                    + "      list.getEntries().forEach(function (e) {"
+                    + "        if (e.hadRecentInput) { return; }"
+                    + "        if (vitals.session && e.startTime - vitals.last < 1000 && e.startTime - vitals.first < 5000) {"
+                    + "          vitals.session += e.value;"
+                    + "        } else {"
+                    + "          vitals.session = e.value; vitals.first = e.startTime;"
+                    + "        }"
+                    + "        vitals.last = e.startTime; vitals.cls = Math.max(vitals.cls, vitals.session);"
+                    + "      });"
+                    + "    }).observe({type: 'layout-shift', buffered: true});"
+                    + "  }"
+                    + "}"
+                    + "var nav = performance.getEntriesByType('navigation')[0] || {};"
+                    + "var fcp = performance.getEntriesByName('first-contentful-paint')[0];"
+                    + "return [performance.timeOrigin, performance.now(), nav.responseStart || 0,"
+                    + "  nav.domContentLoadedEventEnd || 0, nav.loadEventEnd || 0, fcp ? fcp.startTime : 0,"
+                    + "  vitals.lcp, vitals.cls];";
+
+    /**
+     * A page metric, in milliseconds since navigation start except for {@link #CLS}.
+     */
+    public enum Metric {
+        READY("ready", 1, false),
+        TTFB("ttfb", 2, false),
+        DOM_CONTENT_LOADED("dcl", 3, false),
+        LOAD("load", 4, false),
+        FCP("fcp", 5, false),
+        // Only final once the page is left: both can still grow while the user is on the page
+        LCP("lcp", 6, true),
+        CLS("cls", 7, true);
+
+        private final String key;
+        private final int scriptIndex;
+        private final boolean finalOnLeave;
+
+        Metric(String key, int scriptIndex, boolean finalOnLeave) {
+            this.key = key;
+            this.scriptIndex = scriptIndex;
+            this.finalOnLeave = finalOnLeave;
+        }
+
+        /**
+         * Returns the short name used in budget files and the history file, e.g. {@code load}.
+         *
+         * @return The metric key.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String format(double value) {
+            return this == CLS ? String.format("%.3f", value) : Math.round(value) + " ms";
+        }
+
+        public static Metric fromKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equalsIgnoreCase(key)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown page metric: " + key);
+        }
+    }
+
+    private static final Map<String, PageStats> statsByPage = new ConcurrentHashMap<>();
+    // The statistics of the test currently running on each thread, for per-test budgets.
+    private static final ThreadLocal<Map<String, PageStats>> testStatsByPage = ThreadLocal.withInitial(HashMap::new);
+    // The last document recorded by each thread, used to skip page objects re-created on the same
+    // document and to attribute the remaining metrics when the document is left.
+    private static final ThreadLocal<DocumentSample> lastDocument = new ThreadLocal<>();
+    // The network profile the current thread's test runs under, if any
+    private static final ThreadLocal<String> networkProfile = new ThreadLocal<>();
+
+    /**
+     * Records the time-to-ready and the metrics available so far of the current document for the given
+     * page, unless this document has already been recorded by the current thread. Under a network
+     * profile, the page is recorded as {@code <page>@<profile>}.
+     *
+     * @param driver   The {@link WebDriver} instance used to control the browser.
+     * @param pageName The page object name, usually its simple class name.
+     */
+    public static void recordReady(WebDriver driver, String pageName) {
+        List<Number> timing = readTiming(driver);
+        if (timing == null) {
+            return;
+        }
+
+        double timeOrigin = timing.get(0).doubleValue();
+        DocumentSample previous = lastDocument.get();
+        if (previous != null && previous.timeOrigin == timeOrigin) {
+            return;
+        }
+
+        String key = networkProfile.get() == null ? pageName : pageName + "@" + networkProfile.get();
+        DocumentSample sample = new DocumentSample(timeOrigin,
+                statsByPage.computeIfAbsent(key, name -> new PageStats()),
+                testStatsByPage.get().computeIfAbsent(key, name -> new PageStats()));
+        sample.record(timing, false);
+        lastDocument.set(sample);
+    }
+
+    /**
+     * Records the remaining metrics of the current document, if it was recorded as ready by the
+     * current thread and has not been left yet. Called before page-changing clicks and when a test ends.
+     *
+     * @param driver The {@link WebDriver} instance used to control the browser.
+     */
+    public static void recordLeavingPage(WebDriver driver) {
+        DocumentSample sample = lastDocument.get();
+        if (sample == null || sample.left) {
+            return;
+        }
+
+        List<Number> timing = readTiming(driver);
+        if (timing == null || timing.get(0).doubleValue() != sample.timeOrigin) {
+            return;
+        }
+        sample.record(timing, true);
+        sample.left = true;
+    }
+
+    /**
+     * Sets the network profile the pages of the current thread's test are recorded under.
+     *
+     * @param profile The profile name, or {@code null} for an unthrottled connection.
+     */
+    public static void setNetworkProfile(String profile) {
+        networkProfile.set(profile);
+    }
+
+    /**
+     * Starts collecting the statistics of a new test on the current thread.
+     */
+    public static void startTest() {
+        testStatsByPage.get().clear();
+    }
+
+    /**
+     * Returns the statistics recorded by the current thread's test so far, keyed by page name.
+     *
+     * @return The statistics per page, sorted by page name.
+     */
+    public static Map<String, PageStats> getTestStatistics() {
+        return new TreeMap<>(testStatsByPage.get());
+    }
+
+    /**
+     * Returns a snapshot of the statistics recorded so far, keyed by page name.
+     *
+     * @return The statistics per page, sorted by page name.
+     */
+    public static Map<String, PageStats> getStatistics() {
+        return new TreeMap<>(statsByPage);
+    }
+
+    /**
+     * Logs one summary line per page comparing time-to-ready with full load time and web vitals.
+     */
+    public static void logSummary() {
+        for (Map.Entry<String, PageStats> entry : getStatistics().entrySet()) {
+            PageStats stats = entry.getValue();
+            logger.info("Page: {}; samples: {}; ready p50/p95: {}/{} ms; load p50/p95: {}/{} ms; "
+                            + "ttfb p95: {} ms; lcp p95: {} ms; cls p95: {}",
+                    entry.getKey(), stats.count(Metric.READY),
+                    Math.round(stats.percentile(Metric.READY, 50)), Math.round(stats.percentile(Metric.READY, 95)),
+                    Math.round(stats.percentile(Metric.LOAD, 50)), Math.round(stats.percentile(Metric.LOAD, 95)),
+                    Math.round(stats.percentile(Metric.TTFB, 95)), Math.round(stats.percentile(Metric.LCP, 95)),
+                    String.format("%.3f", stats.percentile(Metric.CLS, 95)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Number> readTiming(WebDriver driver) {
+        try {
+            return (List<Number>) ((JavascriptExecutor) driver).executeScript(TIMING_SCRIPT);
+        } catch (WebDriverException | ClassCastException e) {
+            logger.debug("Could not read navigation timing: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Samples of one page per metric.
+     */
+    public static class PageStats {
+
+        private final Map<Metric, List<Double>> samples = new EnumMap<>(Metric.class);
+
+        synchronized void add(Metric metric, double value) {
+            samples.computeIfAbsent(metric, key -> new ArrayList<>()).add(value);
+        }
+
+        public synchronized int count(Metric metric) {
+            List<Double> values = samples.get(metric);
+            return values == null ? 0 : values.size();
+        }
+
+        /**
+         * Returns a percentile of a metric, using the nearest-rank method.
+         *
+         * @param metric     The metric.
+         * @param percentile The percentile, from 0 to 100.
+         * @return The percentile, or 0 if the metric has no samples.
+         */
+        public synchronized double percentile(Metric metric, double percentile) {
+            List<Double> values = samples.get(metric);
+            if (values == null || values.isEmpty()) {
+                return 0;
+            }
+            List<Double> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+    }
+
+    private static class DocumentSample {
+        private final double timeOrigin;
+        private final PageStats runStats;
+        private final PageStats testStats;
+        private final Set<Metric> recorded = EnumSet.noneOf(Metric.class);
+        private boolean left;
+
+        private DocumentSample(double timeOrigin, PageStats runStats, PageStats testStats) {
+            this.timeOrigin = timeOrigin;
+            this.runStats = runStats;
+            this.testStats = testStats;
+        }
+
+        /**
+         * Records every metric that is available and not recorded yet. Time-to-ready is only taken from
+         * the first reading, and metrics that are only final when the page is left only from the last one.
+         */
+        private void record(List<Number> timing, boolean leaving) {
+            for (Metric metric : Metric.values()) {
+                if (metric == Metric.READY ? leaving : metric.finalOnLeave && !leaving) {
+                    continue;
+                }
+                double value = timing.get(metric.scriptIndex).doubleValue();
+                // Unavailable metrics are 0, except CLS, where 0 is a valid value and -1 means unsupported
+                boolean available = metric == Metric.CLS ? value >= 0 : value > 0;
+                if (available && recorded.add(metric)) {
+                    runStats.add(metric, value);
+                    testStats.add(metric, value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.PageTimings.Metric;
+import utils.PageTimings.PageStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Declarative per-page performance budgets, read from {@code performance_budgets_file}.
+ *
+ * <p>Each line sets a limit on a percentile of one {@link Metric} of one page object class, or of every
+ * page with {@code *}; a page's own budget replaces the {@code *} budget for the same metric and
+ * percentile. The optional level decides whether a violation fails the test or only warns, and
+ * defaults to {@code performance_budget_level}. Pages timed under a network profile, such as
+ * {@code SearchResultsPage@3g}, only have the budgets set for them by that name:</p>
+ * <pre>
+ *     *.ttfb.p95=800
+ *     SearchResultsPage.load.p95=2000,fail
+ *     SearchResultsPage@3g.load.p95=8000
+ * </pre>
+ */
+public class PerformanceBudgets {
+
+    private static final Logger logger = LogManager.getLogger(PerformanceBudgets.class);
+
+    private static List<Budget> budgets;
+
+    public enum Level {
+        WARN, FAIL
+    }
+
+    /**
+     * A limit on a percentile of one metric.
+     *
+     * @param page       The page object class name, or {@code *} for every page.
+     * @param metric     The metric.
+     * @param percentile The percentile, from 0 to 100.
+     * @param limit      The largest allowed value.
+     * @param level      Whether a violation fails the test or only warns.
+     */
+    public record Budget(String page, Metric metric, double percentile, double limit, Level level) {
+
+        private String key() {
+            return metric.getKey() + ".p" + percentile;
+        }
+    }
+
+    /**
+     * A page that exceeded a budget.
+     *
+     * @param page    The page object class name.
+     * @param budget  The exceeded budget.
+     * @param actual  The measured percentile.
+     * @param samples The number of samples the percentile was computed from.
+     */
+    public record Violation(String page, Budget budget, double actual, int samples) {
+
+        @Override
+        public String toString() {
+            Metric metric = budget.metric();
+            return String.format("%s %s p%s = %s exceeds budget %s (%d samples)", page, metric.getKey(),
+                    formatPercentile(budget.percentile()), metric.format(actual), metric.format(budget.limit()), samples);
+        }
+    }
+
+    /**
+     * Returns the configured budgets, read once per run.
+     *
+     * @return The budgets; empty if no budget file is configured.
+     * @throws RuntimeException If the budget file cannot be read or contains an invalid budget.
+     */
+    public static synchronized List<Budget> getBudgets() {
+        if (budgets == null) {
+            budgets = load(ConfigFileReader.getPerformanceBudgetsFile());
+        }
+        return budgets;
+    }
+
+    /**
+     * Checks the statistics of each page against the budgets that apply to it.
+     *
+     * @param statistics The statistics per page, e.g. of one test or of the whole run.
+     * @return The violations, in page order.
+     */
+    public static List<Violation> evaluate(Map<String, PageStats> statistics) {
+        List<Violation> violations = new ArrayList<>();
+        for (Map.Entry<String, PageStats> entry : statistics.entrySet()) {
+            for (Budget budget : getBudgetsFor(entry.getKey())) {
+                int samples = entry.getValue().count(budget.metric());
+                if (samples == 0) {
+                    continue;
+                }
+                double actual = entry.getValue().percentile(budget.metric(), budget.percentile());
+                if (actual > budget.limit()) {
+                    violations.add(new Violation(entry.getKey(), budget, actual, samples));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static List<Budget> getBudgetsFor(String page) {
+        Map<String, Budget> applicable = new LinkedHashMap<>();
+        // The * budgets are meant for an unthrottled connection
+        for (Budget budget : getBudgets()) {
+            if (budget.page().equals("*") && !page.contains("@")) {
+                applicable.putIfAbsent(budget.key(), budget);
+            }
+        }
+        for (Budget budget : getBudgets()) {
+            if (budget.page().equals(page)) {
+                applicable.put(budget.key(), budget);
+            }
+        }
+        return new ArrayList<>(applicable.values());
+    }
+
+    private static List<Budget> load(Path file) {
+        if (file == null) {
+            return List.of();
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read performance budgets " + file, e);
+        }
+
+        List<Budget> loaded = new ArrayList<>();
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            loaded.add(parse(key, properties.getProperty(key).trim()));
+        }
+        logger.info("Loaded {} performance budgets from {}", loaded.size(), file);
+        return List.copyOf(loaded);
+    }
+
+    private static Budget parse(String key, String value) {
+        // The percentile may have a fraction, e.g. p99.9
+        String[] keyParts = key.split("\\.", 3);
+        if (keyParts.length != 3 || !keyParts[2].startsWith("p")) {
+            throw new IllegalArgumentException("Invalid performance budget '" + key
+                    + "'; expected <page>.<metric>.p<percentile>");
+        }
+        String[] valueParts = value.split(",");
+        Level level = valueParts.length > 1
+                ? Level.valueOf(valueParts[1].trim().toUpperCase())
+                : Level.valueOf(ConfigFileReader.getPerformanceBudgetLevel().toUpperCase());
+        return new Budget(keyParts[0], Metric.fromKey(keyParts[1]), Double.parseDouble(keyParts[2].substring(1)),
+                Double.parseDouble(valueParts[0].trim()), level);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,128 @@
+package utils;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.PageTimings.Metric;
+import utils.PageTimings.PageStats;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps the per-page timing percentiles of every run in one CSV file ({@code performance_history_file}),
+ * one row per run, page and metric, so regressions can be spotted release over release.
+ *
+ * <p>Each run is compared with the previous run in the file before it is appended, and metrics whose
+ * p95 grew by more than {@code performance_regression_percent} are logged as warnings.</p>
+ */
+public class PerformanceHistory {
+
+    private static final Logger logger = LogManager.getLogger(PerformanceHistory.class);
+    private static final String[] HEADER = {"run", "label", "page", "metric", "samples", "p50", "p95"};
+    private static final int P95_COLUMN = 6;
+
+    /**
+     * Compares the statistics of this run with the previous run and appends them to the history file.
+     *
+     * @param statistics The statistics per page of this run.
+     * @return The metrics that regressed, as log-ready descriptions.
+     * @throws RuntimeException If the history file cannot be read or written.
+     */
+    public static List<String> append(Map<String, PageStats> statistics) {
+        Path historyFile = ConfigFileReader.getPerformanceHistoryFile();
+        if (historyFile == null || statistics.isEmpty()) {
+            return List.of();
+        }
+
+        String run = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+        String label = ConfigFileReader.getPerformanceRunLabel();
+        List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<String, PageStats> entry : statistics.entrySet()) {
+            for (Metric metric : Metric.values()) {
+                int samples = entry.getValue().count(metric);
+                if (samples > 0) {
+                    rows.add(new String[]{run, label, entry.getKey(), metric.getKey(), String.valueOf(samples),
+                            format(metric, entry.getValue().percentile(metric, 50)),
+                            format(metric, entry.getValue().percentile(metric, 95))});
+                }
+            }
+        }
+
+        try {
+            List<String> regressions = findRegressions(readPreviousRun(historyFile), rows);
+            boolean newFile = !Files.exists(historyFile);
+            if (historyFile.getParent() != null) {
+                Files.createDirectories(historyFile.getParent());
+            }
+            try (CSVWriter writer = new CSVWriter(new FileWriter(historyFile.toFile(), StandardCharsets.UTF_8, true))) {
+                if (newFile) {
+                    writer.writeNext(HEADER);
+                }
+                writer.writeAll(rows);
+            }
+            logger.info("Page timings of this run appended to {}", historyFile);
+            regressions.forEach(regression -> logger.warn("Performance regression: {}", regression));
+            return regressions;
+        } catch (IOException | CsvException e) {
+            throw new RuntimeException("Failed to update performance history " + historyFile, e);
+        }
+    }
+
+    /**
+     * Returns the p95 values of the last run in the history file, keyed by page and metric.
+     */
+    private static Map<String, String[]> readPreviousRun(Path historyFile) throws IOException, CsvException {
+        Map<String, String[]> previous = new HashMap<>();
+        if (!Files.exists(historyFile)) {
+            return previous;
+        }
+        List<String[]> rows;
+        try (CSVReader reader = new CSVReader(new FileReader(historyFile.toFile(), StandardCharsets.UTF_8))) {
+            rows = reader.readAll();
+        }
+        String lastRun = rows.size() > 1 ? rows.get(rows.size() - 1)[0] : null;
+        for (String[] row : rows.subList(Math.min(1, rows.size()), rows.size())) {
+            if (row[0].equals(lastRun)) {
+                previous.put(row[2] + "." + row[3], row);
+            }
+        }
+        return previous;
+    }
+
+    private static List<String> findRegressions(Map<String, String[]> previous, List<String[]> rows) {
+        double threshold = ConfigFileReader.getPerformanceRegressionPercent() / 100.0;
+        List<String> regressions = new ArrayList<>();
+        for (String[] row : rows) {
+            String[] before = previous.get(row[2] + "." + row[3]);
+            if (before == null) {
+                continue;
+            }
+            double previousP95 = Double.parseDouble(before[P95_COLUMN]);
+            double currentP95 = Double.parseDouble(row[P95_COLUMN]);
+            if (previousP95 > 0 && currentP95 > previousP95 * (1 + threshold)) {
+                regressions.add(String.format("%s %s p95 %s -> %s (+%d%%) since %s %s", row[2], row[3],
+                        before[P95_COLUMN], row[P95_COLUMN], Math.round((currentP95 / previousP95 - 1) * 100),
+                        before[0], before[1]).trim());
+            }
+        }
+        return regressions;
+    }
+
+    private static String format(Metric metric, double value) {
+        return metric == Metric.CLS ? String.format(Locale.ROOT, "%.3f", value) : String.valueOf(Math.round(value));
+    }
+}
@@ -1,36 +1,139 @@
 package utils;
 
-import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class for generating random strings and emails.
+ *
+ * <p>Each thread has its own {@link SplittableRandom}, so parallel tests do not contend on a shared
+ * random source. The generators are derived from a run seed, which is logged at startup and can be
+ * fixed with {@code -Drandom_seed=<seed>} (or {@code random_seed} in the configuration file).
+ * {@link #reseed(String)} is called before every test method with the test's identity, so a test
+ * generates the same data whenever the run is replayed with the same seed, no matter which thread
+ * runs it or what ran before it.</p>
  */
 public class Randomizer {
 
+    private static final Logger logger = LogManager.getLogger(Randomizer.class);
+    private static final char[] ALPHABETIC = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final char[] ALPHANUMERIC = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final char[] NUMERIC = "0123456789".toCharArray();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String EMAIL_DOMAIN = "@example.com";
+
+    private static final long RUN_SEED = initRunSeed();
+    private static final ThreadLocal<Generator> generator =
+            ThreadLocal.withInitial(() -> new Generator(seedFor(Thread.currentThread().getName())));
+    private static final Map<String, AtomicInteger> occurrences = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the seed all generators of this run are derived from.
+     *
+     * @return The run seed.
+     */
+    public static long getRunSeed() {
+        return RUN_SEED;
+    }
+
+    /**
+     * Restarts the current thread's generator from the run seed and the given test identity.
+     * Repeated invocations with the same identity (e.g. {@code invocationCount} or retries) get
+     * successive seeds, so they do not generate the same data.
+     *
+     * @param testIdentity A name that identifies the test invocation, e.g. its qualified method name
+     *                     and data-provider row.
+     */
+    public static void reseed(String testIdentity) {
+        int occurrence = occurrences.computeIfAbsent(testIdentity, identity -> new AtomicInteger()).getAndIncrement();
+        generator.set(new Generator(seedFor(testIdentity + "#" + occurrence)));
+    }
+
+    /**
+     * Restarts the current thread's generator for one row of a generated data set, so a row gets
+     * the same values for the same run seed no matter which thread generates it.
+     *
+     * @param datasetSeed The seed of the data set, from {@link #seedFor(String)}.
+     * @param row         The row index.
+     */
+    static void reseedRow(long datasetSeed, long row) {
+        generator.set(new Generator(datasetSeed + row * 0x9e3779b97f4a7c15L));
+    }
+
+    /**
+     * Returns a random int from the current thread's generator.
+     *
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return A random int between 0 (inclusive) and {@code bound} (exclusive).
+     */
+    public static int nextInt(int bound) {
+        return generator.get().random.nextInt(bound);
+    }
+
     /**
      * Generates a random email using a UUID.
-     * Example output: user_123e4567-e89b-12d3-a456-426614174000@example.com
+     * Example output: user_123e4567-e89b-42d3-a456-426614174000@example.com
      *
-     * @return A random email address with a UUID.
+     * @return A random email address with a version 4 UUID.
      */
     public static String generateRandomUUIDEmail() {
-        String uuid = UUID.randomUUID().toString();
-        return "user_" + uuid + "@example.com";
+        Generator current = generator.get();
+        StringBuilder buffer = current.clearedBuffer();
+        buffer.append("user_");
+        appendUUID(buffer, current.random);
+        return buffer.append(EMAIL_DOMAIN).toString();
     }
 
     /**
      * Generates a random email using alphanumeric characters.
-     * Example output: abc123def456@example.com
-     * Uses the  RandomStringUtils.randomAlphabetic() from apache.commons
+     * Example output: abc123def4@example.com
      * NOTE: This method does not include spaces
      *
-     * @return A random email address with a 10-character alphanumeric string.
+     * @return A random email address with a 10-character lowercase alphanumeric string.
      */
     public static String generateRandomEmail() {
-        String randomString = RandomStringUtils.randomAlphanumeric(10).toLowerCase();
-        return randomString + "@example.com";
+        Generator current = generator.get();
+        StringBuilder buffer = current.clearedBuffer();
+        appendRandom(buffer, current.random, ALPHANUMERIC, 10);
+        return buffer.append(EMAIL_DOMAIN).toString();
+    }
+
+    /**
+     * Generates the given number of distinct random emails in one call.
+     * Example output: [k2v9x0abq1@example.com, 7hd0qp3mzt@example.com, ...]
+     *
+     * @param count The number of emails to generate.
+     * @return The emails, all different from each other, in generation order.
+     * @throws IllegalArgumentException If {@code count} is negative.
+     */
+    public static List<String> generateUniqueEmails(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Email count cannot be negative: " + count);
+        }
+
+        Generator current = generator.get();
+        StringBuilder buffer = current.clearedBuffer();
+        List<String> emails = new ArrayList<>(count);
+        Set<String> seen = new HashSet<>(count * 4 / 3 + 1);
+        while (emails.size() < count) {
+            buffer.setLength(0);
+            appendRandom(buffer, current.random, ALPHANUMERIC, 10);
+            String email = buffer.append(EMAIL_DOMAIN).toString();
+            if (seen.add(email)) {
+                emails.add(email);
+            }
+        }
+        return emails;
     }
 
     /**
@@ -41,8 +144,7 @@ public class Randomizer {
      * @return A random alphabetic string in lowercase.
      */
     public static String generateRandomAlphabeticStr(int length) {
-        String randomString = RandomStringUtils.randomAlphabetic(length).toLowerCase();
-        return randomString;
+        return generate(ALPHABETIC, length);
     }
 
     /**
@@ -53,8 +155,7 @@ public class Randomizer {
      * @return A random alphanumeric string in lowercase.
      */
     public static String generateRandomAlphaNumericStr(int length) {
-        String randomString = RandomStringUtils.randomAlphanumeric(length).toLowerCase();
-        return randomString;
+        return generate(ALPHANUMERIC, length);
     }
 
     /**
@@ -65,6 +166,78 @@ public class Randomizer {
      * @return A random numeric string.
      */
     public static String generateRandomNumberStr(int length) {
-        return RandomStringUtils.randomNumeric(length);
+        return generate(NUMERIC, length);
+    }
+
+    private static String generate(char[] characters, int length) {
+        Generator current = generator.get();
+        StringBuilder buffer = current.clearedBuffer();
+        appendRandom(buffer, current.random, characters, length);
+        return buffer.toString();
+    }
+
+    private static void appendRandom(StringBuilder buffer, SplittableRandom random, char[] characters, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer.append(characters[random.nextInt(characters.length)]);
+        }
+    }
+
+    /**
+     * Appends a version 4 UUID in its canonical 8-4-4-4-12 hex form.
+     */
+    private static void appendUUID(StringBuilder buffer, SplittableRandom random) {
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        appendHex(buffer, mostSigBits >>> 32, 8);
+        buffer.append('-');
+        appendHex(buffer, mostSigBits >>> 16, 4);
+        buffer.append('-');
+        appendHex(buffer, mostSigBits, 4);
+        buffer.append('-');
+        appendHex(buffer, leastSigBits >>> 48, 4);
+        buffer.append('-');
+        appendHex(buffer, leastSigBits, 12);
+    }
+
+    private static void appendHex(StringBuilder buffer, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.append(HEX[(int) (value >>> shift) & 0xf]);
+        }
+    }
+
+    /**
+     * Derives a generator seed from the run seed and a name, using a 64-bit FNV-1a hash of the name
+     * so the seed does not depend on the JVM's string hash codes.
+     */
+    static long seedFor(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return RUN_SEED ^ hash;
+    }
+
+    private static long initRunSeed() {
+        Long configuredSeed = ConfigFileReader.getRandomSeed();
+        long seed = configuredSeed != null ? configuredSeed : new SplittableRandom().nextLong();
+        logger.info("Random data seed: {} (replay with -Drandom_seed={})", seed, seed);
+        return seed;
+    }
+
+    /**
+     * The random source and reusable string buffer of one thread.
+     */
+    private static class Generator {
+        private final SplittableRandom random;
+        private final StringBuilder buffer = new StringBuilder(64);
+
+        private Generator(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        private StringBuilder clearedBuffer() {
+            buffer.setLength(0);
+            return buffer;
+        }
     }
 }
@@ -0,0 +1,212 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of the running suite, for the progress endpoint of {@code ProgressListener}.
+ *
+ * <p>The test threads only increment {@link LongAdder}s and update concurrent maps; rates, the queue
+ * depth and the ETA are derived when a {@link #snapshot} is taken, on the thread that asks for it.</p>
+ */
+public class RunProgress {
+
+    private static final LongAdder started = new LongAdder();
+    private static final LongAdder passed = new LongAdder();
+    private static final LongAdder failed = new LongAdder();
+    private static final LongAdder skipped = new LongAdder();
+    // Data-provider rows beyond the first, which the planned count could not include
+    private static final LongAdder extraRows = new LongAdder();
+    private static final Map<WebDriver, String> sessionBrowsers = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> openSessions = new ConcurrentHashMap<>();
+    private static final Map<String, ClassDurations> classDurations = new ConcurrentHashMap<>();
+
+    private static volatile long plannedTests;
+    private static volatile long startNanos = System.nanoTime();
+
+    /**
+     * Starts counting a suite, resetting the test counters of an earlier suite in this JVM.
+     *
+     * @param planned The number of test method invocations the suite is expected to run. Data-driven
+     *                methods count once, as their row count is only known when they start; each
+     *                further row is added when it starts (see {@link #testStarted}).
+     */
+    public static void suiteStarted(long planned) {
+        for (LongAdder counter : new LongAdder[]{started, passed, failed, skipped, extraRows}) {
+            counter.reset();
+        }
+        classDurations.clear();
+        plannedTests = planned;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts a started test.
+     *
+     * @param extraRow Whether the test is a data-provider row other than the first, and so was not
+     *                 included in the planned count.
+     */
+    public static void testStarted(boolean extraRow) {
+        started.increment();
+        if (extraRow) {
+            extraRows.increment();
+        }
+    }
+
+    /**
+     * Counts a finished test.
+     *
+     * @param status {@code passed}, {@code failed} or {@code skipped}.
+     */
+    public static void testFinished(String status) {
+        switch (status) {
+            case "passed" -> passed.increment();
+            case "failed" -> failed.increment();
+            default -> skipped.increment();
+        }
+    }
+
+    public static void classFinished(String className, long durationNanos) {
+        ClassDurations durations = classDurations.computeIfAbsent(className, name -> new ClassDurations());
+        durations.runs.increment();
+        durations.totalNanos.add(durationNanos);
+    }
+
+    public static void sessionStarted(WebDriver driver, String browser) {
+        String name = browser.toLowerCase();
+        sessionBrowsers.put(driver, name);
+        openSessions.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    public static void sessionEnded(WebDriver driver) {
+        String browser = sessionBrowsers.remove(driver);
+        if (browser != null) {
+            openSessions.get(browser).decrement();
+        }
+    }
+
+    /**
+     * Returns the current counters.
+     *
+     * @param testsPerMinute The recent completion rate, measured by the caller over its own window,
+     *                       or a negative value to use the average since the suite started.
+     * @return The snapshot.
+     */
+    public static Snapshot snapshot(double testsPerMinute) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long passedCount = passed.sum();
+        long failedCount = failed.sum();
+        long skippedCount = skipped.sum();
+        long completed = passedCount + failedCount + skippedCount;
+        long startedCount = Math.max(started.sum(), completed);
+        if (testsPerMinute < 0) {
+            testsPerMinute = elapsedNanos > 0 ? completed * 60e9 / elapsedNanos : 0;
+        }
+        long planned = plannedTests + extraRows.sum();
+        long queued = Math.max(0, planned - startedCount);
+        long remaining = queued + (startedCount - completed);
+        Long etaSeconds = testsPerMinute > 0 ? Math.round(remaining * 60 / testsPerMinute) : null;
+
+        Map<String, Long> sessions = new TreeMap<>();
+        openSessions.forEach((browser, count) -> sessions.put(browser, count.sum()));
+        Map<String, Long> averageClassMillis = new TreeMap<>();
+        classDurations.forEach((className, durations) -> averageClassMillis.put(className,
+                durations.totalNanos.sum() / Math.max(1, durations.runs.sum()) / 1_000_000));
+        return new Snapshot(elapsedNanos / 1_000_000, planned, completed, passedCount, failedCount,
+                skippedCount, startedCount - completed, queued, testsPerMinute, etaSeconds, sessions,
+                averageClassMillis);
+    }
+
+    public static long completedTests() {
+        return passed.sum() + failed.sum() + skipped.sum();
+    }
+
+    /**
+     * The progress of the suite at one point in time.
+     *
+     * @param elapsedMillis      The time since the suite started.
+     * @param plannedTests       The expected number of tests, see {@link #suiteStarted}.
+     * @param completedTests     The number of finished tests.
+     * @param passedTests        The number of passed tests.
+     * @param failedTests        The number of failed tests.
+     * @param skippedTests       The number of skipped tests.
+     * @param runningTests       The number of tests running now.
+     * @param queuedTests        The number of planned tests that have not started yet.
+     * @param testsPerMinute     The completion rate.
+     * @param etaSeconds         The estimated time until the suite finishes, or {@code null} if unknown.
+     * @param openSessions       The open WebDriver sessions per browser, including idle pooled sessions.
+     * @param averageClassMillis The average duration of each finished test class.
+     */
+    public record Snapshot(long elapsedMillis, long plannedTests, long completedTests, long passedTests,
+                           long failedTests, long skippedTests, long runningTests, long queuedTests,
+                           double testsPerMinute, Long etaSeconds, Map<String, Long> openSessions,
+                           Map<String, Long> averageClassMillis) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("elapsedMillis", elapsedMillis);
+            fields.put("plannedTests", plannedTests);
+            fields.put("completedTests", completedTests);
+            fields.put("passedTests", passedTests);
+            fields.put("failedTests", failedTests);
+            fields.put("skippedTests", skippedTests);
+            fields.put("runningTests", runningTests);
+            fields.put("queuedTests", queuedTests);
+            fields.put("testsPerMinute", Math.round(testsPerMinute * 10) / 10.0);
+            fields.put("etaSeconds", etaSeconds);
+            fields.put("openSessions", openSessions);
+            fields.put("averageClassMillis", averageClassMillis);
+            return fields;
+        }
+
+        /**
+         * Returns the snapshot in the Prometheus text exposition format.
+         */
+        public String toPrometheus() {
+            StringBuilder text = new StringBuilder();
+            gauge(text, "test_run_elapsed_seconds", "Time since the suite started", elapsedMillis / 1000.0);
+            text.append("# HELP test_run_tests Tests by state\n# TYPE test_run_tests gauge\n");
+            Map<String, Long> states = new LinkedHashMap<>();
+            states.put("planned", plannedTests);
+            states.put("passed", passedTests);
+            states.put("failed", failedTests);
+            states.put("skipped", skippedTests);
+            states.put("running", runningTests);
+            states.put("queued", queuedTests);
+            states.forEach((state, count) -> text.append("test_run_tests{state=\"").append(state).append("\"} ")
+                    .append(count).append('\n'));
+            gauge(text, "test_run_tests_per_minute", "Recent test completion rate", testsPerMinute);
+            if (etaSeconds != null) {
+                gauge(text, "test_run_eta_seconds", "Estimated time until the suite finishes", etaSeconds);
+            }
+            text.append("# HELP test_run_open_sessions Open WebDriver sessions\n# TYPE test_run_open_sessions gauge\n");
+            openSessions.forEach((browser, count) -> text.append("test_run_open_sessions{browser=\"")
+                    .append(label(browser)).append("\"} ").append(count).append('\n'));
+            text.append("# HELP test_run_class_duration_seconds Average duration of a test class\n")
+                    .append("# TYPE test_run_class_duration_seconds gauge\n");
+            averageClassMillis.forEach((className, millis) -> text.append("test_run_class_duration_seconds{class=\"")
+                    .append(label(className)).append("\"} ").append(millis / 1000.0).append('\n'));
+            return text.toString();
+        }
+
+        private static void gauge(StringBuilder text, String name, String help, double value) {
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                    .append("# TYPE ").append(name).append(" gauge\n")
+                    .append(name).append(' ').append(value).append('\n');
+        }
+
+        private static String label(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+    }
+
+    private static class ClassDurations {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+    }
+}
@@ -0,0 +1,224 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hosts several isolated browser contexts in one Chromium browser process.
+ *
+ * <p>In the {@code context} isolation mode each test thread gets its own browser context (separate
+ * cookies, storage and cache, like an incognito profile) instead of its own browser process. The
+ * first session for a browser launches a "host" browser. Each acquired session then:</p>
+ * <ol>
+ *     <li>creates a new browser context and a window inside it through the host's DevTools connection
+ *     ({@code Target.createBrowserContext} and {@code Target.createTarget});</li>
+ *     <li>attaches its own ChromeDriver session to the running browser through {@code debuggerAddress};</li>
+ *     <li>switches to the window of its context. ChromeDriver uses the DevTools target id as the window handle.</li>
+ * </ol>
+ *
+ * <p>Every session only drives its own window, so sessions can run concurrently. Once a host browser
+ * holds {@code contexts_per_browser} contexts, the next session launches another host. Note that
+ * {@code getWindowHandles()} in an attached session also lists the windows of other contexts.</p>
+ */
+public class SharedBrowserContexts {
+
+    private static final Logger logger = LogManager.getLogger(SharedBrowserContexts.class);
+
+    private static final Map<String, List<HostBrowser>> hostsByBrowser = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, ContextHandle> contextsByDriver = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SharedBrowserContexts::shutdown, "shared-browser-shutdown"));
+    }
+
+    /**
+     * Creates a session bound to a new, isolated browser context of a shared browser process.
+     *
+     * @param browser     The browser name (e.g., "chrome", "brave"). Only Chromium-based browsers are supported.
+     * @param hostOptions The options used to launch a host browser, if a new one is needed.
+     * @return A WebDriver session whose current window belongs to the new context.
+     * @throws WebDriverException If the context or the attached session cannot be created.
+     */
+    public static WebDriver acquire(String browser, ChromeOptions hostOptions) {
+        HostBrowser host = reserveHost(browser.toLowerCase(), hostOptions);
+        String contextId = null;
+        WebDriver session = null;
+        try {
+            contextId = (String) host.executeCdpCommand("Target.createBrowserContext",
+                    Map.of("disposeOnDetach", false)).get("browserContextId");
+            String targetId = (String) host.executeCdpCommand("Target.createTarget",
+                    Map.of("url", "about:blank", "browserContextId", contextId, "newWindow", true)).get("targetId");
+
+            ChromeOptions attachOptions = new ChromeOptions();
+            attachOptions.setExperimentalOption("debuggerAddress", host.debuggerAddress);
+            attachOptions.setPageLoadStrategy(PageLoadStrategy.fromString(ConfigFileReader.getPageLoadStrategy()));
+            session = ConfigFileReader.isSharedDriverServices()
+                    ? DriverServices.newChromiumSession(browser, attachOptions)
+                    : new ChromeDriver(attachOptions);
+            session.switchTo().window(targetId);
+
+            contextsByDriver.put(session, new ContextHandle(host, contextId));
+            logger.info("Created browser context {} in {} browser at {}", contextId, browser, host.debuggerAddress);
+            return session;
+        } catch (RuntimeException e) {
+            if (session != null) {
+                quitQuietly(session);
+            }
+            if (contextId != null) {
+                disposeContext(host, contextId);
+            }
+            host.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the given session was created by {@link #acquire(String, ChromeOptions)}.
+     *
+     * @param driver The WebDriver session.
+     * @return {@code true} if the session is bound to a shared-browser context.
+     */
+    public static boolean isContextDriver(WebDriver driver) {
+        return contextsByDriver.containsKey(driver);
+    }
+
+    /**
+     * Returns the DevTools address of the browser process hosting the session's context.
+     * Sessions with the same address share one browser process.
+     *
+     * @param driver A session created by {@link #acquire(String, ChromeOptions)}.
+     * @return The host browser's debugger address, e.g. {@code localhost:40123}.
+     * @throws IllegalArgumentException If the session is not bound to a shared-browser context.
+     */
+    public static String getDebuggerAddress(WebDriver driver) {
+        ContextHandle handle = contextsByDriver.get(driver);
+        if (handle == null) {
+            throw new IllegalArgumentException("WebDriver session is not bound to a shared browser context");
+        }
+        return handle.host.debuggerAddress;
+    }
+
+    /**
+     * Ends an attached session and disposes its browser context, which closes the context's windows
+     * and discards its cookies and storage. The host browser keeps running for other contexts.
+     *
+     * @param driver A session created by {@link #acquire(String, ChromeOptions)}.
+     */
+    public static void release(WebDriver driver) {
+        ContextHandle handle = contextsByDriver.remove(driver);
+        if (handle == null) {
+            return;
+        }
+        try {
+            // Attached ChromeDriver sessions detach from the browser on quit without closing it
+            driver.quit();
+        } finally {
+            disposeContext(handle.host, handle.contextId);
+            handle.host.release();
+            logger.info("Disposed browser context {}", handle.contextId);
+        }
+    }
+
+    /**
+     * Quits every host browser. Called at the end of the suite and from a JVM shutdown hook.
+     */
+    public static synchronized void shutdown() {
+        for (List<HostBrowser> hosts : hostsByBrowser.values()) {
+            for (HostBrowser host : hosts) {
+                try {
+                    host.driver.quit();
+                } catch (WebDriverException e) {
+                    logger.warn("Failed to quit host browser at {}: {}", host.debuggerAddress, e.getMessage());
+                }
+            }
+            hosts.clear();
+        }
+    }
+
+    /**
+     * Picks a host browser with a free context slot, launching a new one if all hosts are full,
+     * and reserves a slot in it.
+     */
+    private static synchronized HostBrowser reserveHost(String browser, ChromeOptions hostOptions) {
+        List<HostBrowser> hosts = hostsByBrowser.computeIfAbsent(browser, name -> new ArrayList<>());
+        int contextsPerBrowser = ConfigFileReader.getContextsPerBrowser();
+        for (HostBrowser host : hosts) {
+            if (host.contexts < contextsPerBrowser) {
+                host.contexts++;
+                return host;
+            }
+        }
+
+        ChromeDriver hostDriver = ConfigFileReader.isSharedDriverServices()
+                ? new ChromeDriver(DriverServices.newDedicatedChromeService(browser, hostOptions), hostOptions)
+                : new ChromeDriver(hostOptions);
+        HostBrowser host = new HostBrowser(hostDriver, readDebuggerAddress(hostDriver.getCapabilities()));
+        host.contexts++;
+        hosts.add(host);
+        logger.info("Launched host {} browser #{} at {}", browser, hosts.size(), host.debuggerAddress);
+        return host;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String readDebuggerAddress(Capabilities capabilities) {
+        Map<String, Object> chromeOptions = (Map<String, Object>) capabilities.getCapability("goog:chromeOptions");
+        if (chromeOptions == null || chromeOptions.get("debuggerAddress") == null) {
+            throw new WebDriverException("Browser did not report a DevTools debugger address");
+        }
+        return (String) chromeOptions.get("debuggerAddress");
+    }
+
+    private static void quitQuietly(WebDriver session) {
+        try {
+            session.quit();
+        } catch (WebDriverException e) {
+            logger.warn("Failed to quit attached session: {}", e.getMessage());
+        }
+    }
+
+    private static void disposeContext(HostBrowser host, String contextId) {
+        try {
+            host.executeCdpCommand("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+        } catch (WebDriverException e) {
+            logger.warn("Failed to dispose browser context {}: {}", contextId, e.getMessage());
+        }
+    }
+
+    private static class HostBrowser {
+        private final ChromeDriver driver;
+        private final String debuggerAddress;
+        // Guarded by the SharedBrowserContexts class lock
+        private int contexts;
+
+        private HostBrowser(ChromeDriver driver, String debuggerAddress) {
+            this.driver = driver;
+            this.debuggerAddress = debuggerAddress;
+        }
+
+        private Map<String, Object> executeCdpCommand(String command, Map<String, Object> parameters) {
+            synchronized (this) {
+                return driver.executeCdpCommand(command, parameters);
+            }
+        }
+
+        private void release() {
+            synchronized (SharedBrowserContexts.class) {
+                contexts--;
+            }
+        }
+    }
+
+    private record ContextHandle(HostBrowser host, String contextId) {
+    }
+}
@@ -0,0 +1,134 @@
+package utils;
+
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact test matrix: browsers × operating systems × groups, each running the same test classes.
+ *
+ * <p>{@link #applyTo(XmlSuite, int)} expands the matrix into one {@code <test>} per cell, so adding a
+ * browser or splitting a group is a one-word change instead of a copied {@code <test>} block:</p>
+ * <pre>
+ *     matrix.browsers = firefox,brave
+ *     matrix.os       = linux
+ *     matrix.groups   = smoke,datadriven   (empty = every group, in a single test per browser and OS)
+ *     matrix.classes  = tests.TC001_RegistrationTests,tests.TC002_LoginTests
+ * </pre>
+ */
+public class SuiteMatrix {
+
+    /**
+     * Suite parameter holding a description of the applied matrix, for reports.
+     */
+    public static final String EFFECTIVE_MATRIX_PARAMETER = "matrix.effective";
+
+    private final List<String> browsers;
+    private final List<String> operatingSystems;
+    private final List<String> groups;
+    private final List<String> classes;
+
+    public SuiteMatrix(List<String> browsers, List<String> operatingSystems, List<String> groups, List<String> classes) {
+        if (browsers.isEmpty() || operatingSystems.isEmpty() || classes.isEmpty()) {
+            throw new IllegalArgumentException("Matrix needs at least one browser, OS and class");
+        }
+        this.browsers = List.copyOf(browsers);
+        this.operatingSystems = List.copyOf(operatingSystems);
+        this.groups = List.copyOf(groups);
+        this.classes = List.copyOf(classes);
+    }
+
+    /**
+     * Reads the matrix from suite parameters ({@code matrix.browsers}, {@code matrix.os},
+     * {@code matrix.groups}, {@code matrix.classes}). A JVM system property of the same name
+     * overrides a parameter, e.g. {@code -Dmatrix.browsers=chrome}.
+     *
+     * @param parameters The suite parameters.
+     * @return The matrix.
+     * @throws IllegalArgumentException If a dimension other than groups is empty.
+     */
+    public static SuiteMatrix fromParameters(Map<String, String> parameters) {
+        return new SuiteMatrix(
+                getList(parameters, "matrix.browsers"),
+                getList(parameters, "matrix.os"),
+                getList(parameters, "matrix.groups"),
+                getList(parameters, "matrix.classes"));
+    }
+
+    public List<String> getBrowsers() {
+        return browsers;
+    }
+
+    /**
+     * Replaces the tests of the suite with one test per matrix cell and sets the parallel mode and
+     * thread count for the given session capacity:
+     * <ul>
+     *     <li>one thread: no parallelism;</li>
+     *     <li>at least as many cells as threads: {@code parallel="tests"}, one session per cell;</li>
+     *     <li>otherwise: {@code parallel="classes"}, one session per class, so that small matrices
+     *     can still use the available capacity.</li>
+     * </ul>
+     * Methods of a class never run in parallel, because a class shares one WebDriver between its methods.
+     *
+     * @param suite    The suite to populate.
+     * @param capacity The number of sessions that can run at the same time.
+     */
+    public void applyTo(XmlSuite suite, int capacity) {
+        suite.getTests().clear();
+        List<String> cellGroups = groups.isEmpty() ? Arrays.asList((String) null) : groups;
+        for (String browser : browsers) {
+            for (String os : operatingSystems) {
+                for (String group : cellGroups) {
+                    XmlTest test = new XmlTest(suite);
+                    test.setName(group == null ? browser + "-" + os : browser + "-" + os + "-" + group);
+                    test.addParameter("browser", browser);
+                    test.addParameter("os", os);
+                    if (group != null) {
+                        test.addIncludedGroup(group);
+                    }
+                    List<XmlClass> xmlClasses = new ArrayList<>();
+                    for (String className : classes) {
+                        xmlClasses.add(new XmlClass(className));
+                    }
+                    test.setXmlClasses(xmlClasses);
+                }
+            }
+        }
+
+        int cells = suite.getTests().size();
+        XmlSuite.ParallelMode parallelMode;
+        int threadCount;
+        if (capacity <= 1) {
+            parallelMode = XmlSuite.ParallelMode.NONE;
+            threadCount = 1;
+        } else if (cells >= capacity) {
+            parallelMode = XmlSuite.ParallelMode.TESTS;
+            threadCount = capacity;
+        } else {
+            parallelMode = XmlSuite.ParallelMode.CLASSES;
+            threadCount = Math.min(capacity, classes.size());
+        }
+        suite.setParallel(parallelMode);
+        suite.setThreadCount(threadCount);
+        suite.getParameters().put(EFFECTIVE_MATRIX_PARAMETER, describe(cells, parallelMode, threadCount));
+    }
+
+    private String describe(int cells, XmlSuite.ParallelMode parallelMode, int threadCount) {
+        return String.format("%d tests (browsers %s × os %s × groups %s); classes %s; parallel=%s, thread-count=%d",
+                cells, browsers, operatingSystems, groups.isEmpty() ? "[all]" : groups, classes,
+                parallelMode.toString().toLowerCase(), threadCount);
+    }
+
+    private static List<String> getList(Map<String, String> parameters, String key) {
+        String value = System.getProperty(key, parameters.getOrDefault(key, ""));
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+}
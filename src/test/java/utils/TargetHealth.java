@@ -0,0 +1,188 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.openqa.selenium.remote.http.ConnectionFailedException;
+import org.testng.SkipException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Fails a run fast when the storefront or the Selenium Grid is down, instead of letting every test
+ * class launch a browser and wait for its navigation and element timeouts.
+ *
+ * <p>{@link #preflight} probes the targets once before the suite. Infrastructure failures of test
+ * classes and methods are recorded in a shared {@link CircuitBreaker}: session creation errors,
+ * unreachable browsers, navigation errors and page-load timeouts count directly, any other failure
+ * counts if a probe right after it finds a target unhealthy (e.g. the storefront returning 5xx).
+ * While the breaker is open, {@link #checkBeforeTest} skips tests immediately with the reason. After
+ * {@code circuit_breaker_open_seconds}, the next test runs a probe, and the breaker closes if it
+ * passes.</p>
+ */
+public class TargetHealth {
+
+    private static final Logger logger = LogManager.getLogger(TargetHealth.class);
+    private static final Pattern NAVIGATION_FAILURE = Pattern.compile(
+            "net::ERR_|about:neterror|Timed out receiving message from renderer|Timeout loading page",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final CircuitBreaker breaker = new CircuitBreaker(ConfigFileReader.getCircuitBreakerFailures(),
+            ConfigFileReader.getCircuitBreakerWindow(), ConfigFileReader.getCircuitBreakerOpenDuration());
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(ConfigFileReader.getTargetProbeTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    /**
+     * Probes the storefront and, for remote execution, the Grid before the first test, and opens the
+     * circuit breaker if either is unhealthy. A passing check closes the breaker, which may still be
+     * open from an earlier suite in the same JVM, e.g. in a shard worker.
+     */
+    public static void preflight() {
+        Optional<String> problem = probe();
+        if (problem.isPresent()) {
+            breaker.trip("Preflight check failed: " + problem.get());
+            logger.error("Preflight check failed, tests will be skipped until a probe passes: {}", problem.get());
+        } else {
+            breaker.recordSuccess();
+            logger.info("Preflight check passed");
+        }
+    }
+
+    /**
+     * Skips the calling test or test class if the circuit breaker is open. If the breaker is half-open,
+     * the first caller probes the targets and closes or re-opens the breaker.
+     *
+     * @throws SkipException If the breaker is open.
+     */
+    public static void checkBeforeTest() {
+        CircuitBreaker.State state = breaker.getState();
+        if (state == CircuitBreaker.State.CLOSED) {
+            return;
+        }
+        if (breaker.tryStartTrial()) {
+            // The trial must end either way, or the breaker stays half-open and skips every test
+            Optional<String> problem;
+            try {
+                problem = probe();
+            } catch (RuntimeException e) {
+                problem = Optional.of("probe threw " + e);
+            }
+            if (problem.isEmpty()) {
+                breaker.recordSuccess();
+                logger.info("Targets are healthy again, circuit breaker closed");
+                return;
+            }
+            breaker.trip("Probe failed: " + problem.get());
+            logger.warn("Targets are still unhealthy, circuit breaker stays open: {}", problem.get());
+        }
+        throw new SkipException("Skipping: test targets are unhealthy (circuit breaker open). " + breaker.getReason());
+    }
+
+    /**
+     * Records a failed test or test setup. The failure counts against the circuit breaker if it is an
+     * infrastructure failure; otherwise it shows the targets are up and resets the count.
+     *
+     * @param failure The failure.
+     */
+    public static void recordFailure(Throwable failure) {
+        String infrastructureFailure = findInfrastructureFailure(failure)
+                .or(TargetHealth::probe)
+                .orElse(null);
+        if (infrastructureFailure == null) {
+            recordSuccess();
+            return;
+        }
+        logger.warn("Infrastructure failure: {}", infrastructureFailure);
+        if (breaker.recordFailure(infrastructureFailure)) {
+            logger.error("Circuit breaker opened, remaining tests will be skipped: {}", breaker.getReason());
+        }
+    }
+
+    public static void recordSuccess() {
+        if (breaker.recordSuccess()) {
+            logger.info("Circuit breaker closed");
+        }
+    }
+
+    /**
+     * Checks that the storefront home page answers without a server error and, for remote execution,
+     * that the Grid reports itself ready.
+     *
+     * @return A description of the first problem found, or empty if the targets are healthy.
+     */
+    public static Optional<String> probe() {
+        String homePageURL = ConfigFileReader.getHomePageURL();
+        try {
+            HttpResponse<Void> response = send(homePageURL, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 500) {
+                return Optional.of("Storefront " + homePageURL + " returned HTTP " + response.statusCode());
+            }
+        } catch (IOException e) {
+            return Optional.of("Storefront " + homePageURL + " is unreachable: " + e);
+        }
+
+        if (!ConfigFileReader.getExecutionEnvironment().equalsIgnoreCase("remote")) {
+            return Optional.empty();
+        }
+        String statusURL = ConfigFileReader.getGridHubUrl().replaceAll("/+$", "") + "/status";
+        try {
+            HttpResponse<String> response = send(statusURL, HttpResponse.BodyHandlers.ofString());
+            Map<String, Object> status = new Json().toType(response.body(), Json.MAP_TYPE);
+            Object value = status.get("value");
+            if (response.statusCode() != 200 || !(value instanceof Map<?, ?> grid)
+                    || !Boolean.TRUE.equals(grid.get("ready"))) {
+                return Optional.of("Selenium Grid " + statusURL + " is not ready (HTTP " + response.statusCode() + ")");
+            }
+        } catch (IOException | RuntimeException e) {
+            return Optional.of("Selenium Grid " + statusURL + " is unreachable: " + e);
+        }
+        return Optional.empty();
+    }
+
+    private static <T> HttpResponse<T> send(String url, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(ConfigFileReader.getTargetProbeTimeout())
+                .GET()
+                .build();
+        try {
+            return client.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Returns a description of the failure if it, or one of its causes, is an infrastructure failure.
+     */
+    private static Optional<String> findInfrastructureFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            boolean infrastructure = cause instanceof SessionNotCreatedException
+                    || cause instanceof UnreachableBrowserException
+                    || cause instanceof NoSuchSessionException
+                    || cause instanceof ConnectionFailedException
+                    || cause instanceof ConnectException
+                    || (cause instanceof WebDriverException && cause.getMessage() != null
+                    && NAVIGATION_FAILURE.matcher(cause.getMessage()).find());
+            if (infrastructure) {
+                String message = cause.getMessage() == null ? "" : cause.getMessage().lines().findFirst().orElse("");
+                return Optional.of(cause.getClass().getSimpleName() + ": " + message);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,403 @@
+package utils;
+
+import com.opencsv.CSVWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates large data files for the data providers from a column spec, e.g. to run the search
+ * tests against hundreds of thousands of terms.
+ *
+ * <p>Rows are generated in blocks on a pool of worker threads and written in order, with at most
+ * two blocks per worker in flight, so memory use does not grow with the row count. {@code .xlsx}
+ * files are written with POI's streaming SXSSF writer, which keeps only a window of rows in memory
+ * and flushes the rest to a compressed temporary file; {@code .csv} files with a buffered writer.
+ * Both have a header row and load with {@link ExcelUtils} and {@link CsvUtils}.</p>
+ *
+ * <p>Each row's {@link Randomizer} generator is seeded from the run seed, the data set name and the
+ * row index, so a file can be regenerated with {@code -Drandom_seed=<seed>}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     new TestDataGenerator("search")
+ *             .column("Search Term", TestDataGenerator.dictionary("search-terms"))
+ *             .column("Expected Title", TestDataGenerator.template("Search - {Search Term}"))
+ *             .write(Path.of("testData/generated/search.csv"), 500_000);
+ * </pre>
+ */
+public class TestDataGenerator {
+
+    private static final Logger logger = LogManager.getLogger(TestDataGenerator.class);
+    private static final int BLOCK_ROWS = 4096;
+    private static final int XLSX_WINDOW_ROWS = 100;
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([^{}]+)}");
+    private static final Map<String, List<String>> dictionaries = new HashMap<>();
+
+    /**
+     * Generates the value of a column for one row.
+     */
+    @FunctionalInterface
+    public interface Column {
+
+        /**
+         * @param row The row being generated, with the values of the columns defined before this one.
+         * @return The value.
+         */
+        String value(Row row);
+    }
+
+    /**
+     * A row being generated.
+     */
+    public static final class Row {
+        private final Map<String, Integer> columnIndexes;
+        private final String[] values;
+        private long index;
+        private int column;
+
+        private Row(Map<String, Integer> columnIndexes, int columnCount) {
+            this.columnIndexes = columnIndexes;
+            this.values = new String[columnCount];
+        }
+
+        /**
+         * Returns the index of the row in the file, counting from 0 after the header.
+         */
+        public long index() {
+            return index;
+        }
+
+        /**
+         * Returns the value of a column defined before the current one.
+         *
+         * @param header The header of the column.
+         * @return The value in this row.
+         * @throws IllegalArgumentException If no such column is defined before the current one.
+         */
+        public String get(String header) {
+            Integer columnIndex = columnIndexes.get(header);
+            if (columnIndex == null || columnIndex >= column) {
+                throw new IllegalArgumentException("Column '" + header + "' is not defined before column "
+                        + (column + 1));
+            }
+            return values[columnIndex];
+        }
+    }
+
+    private final String dataset;
+    private final List<String> headers = new ArrayList<>();
+    private final List<Column> columns = new ArrayList<>();
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param dataset The name of the data set, part of the seed of its rows.
+     */
+    public TestDataGenerator(String dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * Adds a column. Columns are generated from left to right, so a column can use the values of
+     * the columns before it.
+     *
+     * @param header The header of the column.
+     * @param column Generates the values.
+     * @return This generator.
+     */
+    public TestDataGenerator column(String header, Column column) {
+        if (columnIndexes.putIfAbsent(header, headers.size()) != null) {
+            throw new IllegalArgumentException("Duplicate column: " + header);
+        }
+        headers.add(header);
+        columns.add(column);
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads, the number of processors by default.
+     *
+     * @param parallelism The number of worker threads.
+     * @return This generator.
+     */
+    public TestDataGenerator parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Generates the rows and writes them, after a header row, to an {@code .xlsx} file (sheet
+     * "Sheet1") or a {@code .csv} file, depending on the file extension.
+     *
+     * @param file The file to write, replaced if it exists.
+     * @param rows The number of rows.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the file type is not supported or the rows do not fit into it.
+     */
+    public void write(Path file, long rows) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase();
+        boolean xlsx = fileName.endsWith(".xlsx");
+        if (!xlsx && !fileName.endsWith(".csv")) {
+            throw new IllegalArgumentException("Unsupported data file type, expected .xlsx or .csv: " + file);
+        }
+        int maxXlsxRows = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+        if (xlsx && rows > maxXlsxRows) {
+            throw new IllegalArgumentException("An .xlsx sheet holds at most " + maxXlsxRows + " rows: " + rows);
+        }
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+
+        long start = System.nanoTime();
+        long datasetSeed = Randomizer.seedFor(dataset);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        Deque<Future<String[][]>> blocks = new ArrayDeque<>();
+        try (RowWriter writer = xlsx ? new XlsxWriter(file) : new CsvRowWriter(file)) {
+            writer.write(headers.toArray(new String[0]));
+            long nextRow = 0;
+            while (nextRow < rows || !blocks.isEmpty()) {
+                while (nextRow < rows && blocks.size() < 2 * parallelism) {
+                    long firstRow = nextRow;
+                    int blockRows = (int) Math.min(BLOCK_ROWS, rows - nextRow);
+                    blocks.addLast(workers.submit(() -> generateBlock(datasetSeed, firstRow, blockRows)));
+                    nextRow += blockRows;
+                }
+                for (String[] row : await(blocks.removeFirst())) {
+                    writer.write(row);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        logger.info("Generated {} rows of '{}' in {} ms: {}", rows, dataset,
+                (System.nanoTime() - start) / 1_000_000, file);
+    }
+
+    private String[][] generateBlock(long datasetSeed, long firstRow, int blockRows) {
+        String[][] block = new String[blockRows][];
+        Row row = new Row(columnIndexes, columns.size());
+        for (int i = 0; i < blockRows; i++) {
+            row.index = firstRow + i;
+            Randomizer.reseedRow(datasetSeed, row.index);
+            for (row.column = 0; row.column < columns.size(); row.column++) {
+                row.values[row.column] = columns.get(row.column).value(row);
+            }
+            block[i] = row.values.clone();
+        }
+        return block;
+    }
+
+    private static String[][] await(Future<String[][]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Row generation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns a column with the same value in every row.
+     */
+    public static Column constant(String value) {
+        return row -> value;
+    }
+
+    /**
+     * Returns a column that picks one of the values at random.
+     *
+     * @param values The values, at least one.
+     * @return The column.
+     */
+    public static Column oneOf(List<String> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values to pick from");
+        }
+        List<String> copy = List.copyOf(values);
+        return row -> copy.get(Randomizer.nextInt(copy.size()));
+    }
+
+    public static Column oneOf(String... values) {
+        return oneOf(List.of(values));
+    }
+
+    /**
+     * Returns a column that picks a random entry of a dictionary, a classpath resource
+     * {@code dictionaries/<name>.txt} with one entry per line. Blank lines and lines starting with
+     * {@code #} are ignored.
+     *
+     * @param name The name of the dictionary.
+     * @return The column.
+     * @throws UncheckedIOException If the dictionary cannot be read.
+     */
+    public static Column dictionary(String name) {
+        return oneOf(loadDictionary(name));
+    }
+
+    /**
+     * Returns a column built from a template, in which {@code {Header}} is replaced with the value
+     * of that column and {@code {row}} with the row index.
+     * Example: {@code template("Search - {Search Term}")}
+     *
+     * @param template The template.
+     * @return The column.
+     */
+    public static Column template(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int end = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(end, matcher.start()));
+            placeholders.add(matcher.group(1));
+            end = matcher.end();
+        }
+        literals.add(template.substring(end));
+
+        return row -> {
+            StringBuilder value = new StringBuilder(literals.getFirst());
+            for (int i = 0; i < placeholders.size(); i++) {
+                String placeholder = placeholders.get(i);
+                value.append(placeholder.equals("row") ? String.valueOf(row.index()) : row.get(placeholder))
+                        .append(literals.get(i + 1));
+            }
+            return value.toString();
+        };
+    }
+
+    /**
+     * Returns a column that takes its value from {@code first} in the given share of rows, chosen
+     * at random, and from {@code second} in the others.
+     *
+     * @param percent The share of rows, in percent, that use {@code first}.
+     * @param first   The column used in {@code percent} of the rows.
+     * @param second  The column used in the other rows.
+     * @return The column.
+     */
+    public static Column either(int percent, Column first, Column second) {
+        return row -> Randomizer.nextInt(100) < percent ? first.value(row) : second.value(row);
+    }
+
+    /**
+     * Returns a column of values from a {@link Randomizer} method, e.g.
+     * {@code random(Randomizer::generateRandomEmail)}.
+     */
+    public static Column random(Supplier<String> generator) {
+        return row -> generator.get();
+    }
+
+    private static List<String> loadDictionary(String name) {
+        synchronized (dictionaries) {
+            List<String> entries = dictionaries.get(name);
+            if (entries != null) {
+                return entries;
+            }
+            String resource = "dictionaries/" + name + ".txt";
+            try (InputStream input = TestDataGenerator.class.getClassLoader().getResourceAsStream(resource)) {
+                if (input == null) {
+                    throw new IllegalArgumentException("Dictionary not found on the classpath: " + resource);
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                entries = reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read dictionary " + resource, e);
+            }
+            dictionaries.put(name, entries);
+            return entries;
+        }
+    }
+
+    private interface RowWriter extends Closeable {
+        void write(String[] values) throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final CSVWriter writer;
+
+        private CsvRowWriter(Path file) throws IOException {
+            this.writer = new CSVWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(String[] values) {
+            // Quote only the values that need it, like the hand-made files
+            writer.writeNext(values, false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static class XlsxWriter implements RowWriter {
+        private final Path file;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_ROWS);
+        private final SXSSFSheet sheet;
+        private int rowIndex;
+
+        private XlsxWriter(Path file) {
+            this.file = file;
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet("Sheet1");
+        }
+
+        @Override
+        public void write(String[] values) {
+            SXSSFRow row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                row.createCell(i).setCellValue(values[i]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                workbook.write(output);
+            } finally {
+                // Also deletes the temporary sheet file
+                workbook.close();
+            }
+        }
+    }
+}
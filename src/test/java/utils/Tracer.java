@@ -0,0 +1,417 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records a timeline of the run as spans per thread and writes it in the Chrome trace-event format,
+ * for Perfetto ({@code ui.perfetto.dev}) or {@code chrome://tracing}.
+ *
+ * <p>Spans come from the TestNG lifecycle (suite, class, configuration and test methods, see
+ * {@code listeners.TraceListener}), from driver startup and shutdown in {@link DriverFactory}, from
+ * explicit waits in {@link WaitUtils} and from every WebDriver command of the sessions
+ * {@link DriverFactory} creates. Commands are grouped into page-object actions: consecutive commands
+ * issued from within the same page-object method, e.g. {@code SearchResultsPage.clickAddToCart}, form
+ * one span. Only the locator or URL of a command is recorded, never typed text or cookies.</p>
+ *
+ * <p>Each thread appends its events to its own buffer without locking. Suite and class spans, which
+ * can start and end on different threads, get tracks of their own. The buffers are written at the
+ * end of the suite, when the test threads are idle, and cleared by {@link #reset} when the next suite
+ * starts.</p>
+ *
+ * <p>Tracing is off unless {@code trace_timeline=true}; sessions are then not decorated at all, and
+ * every other call returns after checking a constant.</p>
+ */
+public class Tracer {
+
+    private static final Logger logger = LogManager.getLogger(Tracer.class);
+    private static final boolean ENABLED = ConfigFileReader.isTraceTimelineEnabled();
+    private static final long ORIGIN = System.nanoTime();
+    private static final int CHUNK_SIZE = 1024;
+    private static final int MAX_ARG_LENGTH = 160;
+    private static final int PID = 1;
+    private static final String PAGES_PACKAGE = "pages.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final Set<String> URL_COMMANDS = Set.of("get", "to");
+
+    private static final Queue<ThreadBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<ThreadBuffer> buffer = ThreadLocal.withInitial(ThreadBuffer::new);
+    private static final Map<Long, String> trackNames = new ConcurrentHashMap<>();
+    private static final AtomicLong trackIds = new AtomicLong(1_000_000);
+    private static final Span NO_SPAN = new Span(null, null, 0, 0);
+    // Incremented by reset; each thread clears its own buffer when it sees a new generation
+    private static volatile int generation;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Starts a span on the current thread. Ends the current page-object action first if the span is
+     * not started from within it.
+     *
+     * @param name     The span name.
+     * @param category The span category, e.g. {@code wait}.
+     * @return The span, to be ended on the same thread.
+     */
+    public static Span begin(String name, String category) {
+        if (!ENABLED) {
+            return NO_SPAN;
+        }
+        ThreadBuffer threadBuffer = buffer.get();
+        long now = System.nanoTime();
+        threadBuffer.updatePageAction(findPageAction(), now);
+        return new Span(name, category, threadBuffer.tid, now);
+    }
+
+    /**
+     * Starts a span on a track of its own, for spans that may end on another thread or overlap
+     * with other spans of the same thread, such as a test class in a parallel run.
+     *
+     * @param name     The span and track name.
+     * @param category The span category, e.g. {@code class}.
+     * @return The span.
+     */
+    public static Span beginTrack(String name, String category) {
+        if (!ENABLED) {
+            return NO_SPAN;
+        }
+        long track = trackIds.incrementAndGet();
+        trackNames.put(track, name);
+        return new Span(name, category, track, System.nanoTime());
+    }
+
+    /**
+     * Ends the page-object action the current thread is in, e.g. when a test method returns.
+     */
+    public static void endPageAction() {
+        if (ENABLED) {
+            buffer.get().updatePageAction(null, System.nanoTime());
+        }
+    }
+
+    /**
+     * Decorates a session so that each WebDriver command is recorded as a span.
+     *
+     * @param driver The session.
+     * @return The decorated session, or the session itself if tracing is off.
+     */
+    public static WebDriver decorate(WebDriver driver) {
+        if (!ENABLED) {
+            return driver;
+        }
+        return new EventFiringDecorator<>(new CommandListener()).decorate(driver);
+    }
+
+    /**
+     * Writes all spans recorded so far to {@code <report_dir>/<timestamp>_<name>_trace.json}.
+     *
+     * @param name The name of the run, e.g. the suite name.
+     * @return The trace file, or {@code null} if tracing is off or the file could not be written.
+     */
+    public static Path write(String name) {
+        if (!ENABLED) {
+            return null;
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HHmmss"));
+        Path traceFile = ConfigFileReader.getReportDir().resolve(timestamp + "_" + name.replaceAll("\\W+", "_") + "_trace.json");
+        try {
+            Files.createDirectories(traceFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(traceFile, StandardCharsets.UTF_8)) {
+                writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+                boolean first = true;
+                for (ThreadBuffer threadBuffer : buffers) {
+                    first = writeThreadName(writer, threadBuffer.tid, threadBuffer.threadName, first);
+                }
+                for (Map.Entry<Long, String> track : trackNames.entrySet()) {
+                    first = writeThreadName(writer, track.getKey(), track.getValue(), first);
+                }
+                long events = 0;
+                for (ThreadBuffer threadBuffer : buffers) {
+                    for (Event event : threadBuffer.snapshot()) {
+                        writer.write(first ? "" : ",\n");
+                        writeEvent(writer, event);
+                        first = false;
+                        events++;
+                    }
+                }
+                writer.write("\n]}\n");
+                logger.info("Trace timeline with {} spans written to {}", events, traceFile);
+            }
+            return traceFile;
+        } catch (IOException e) {
+            logger.error("Could not write the trace timeline to {}: {}", traceFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Discards all spans recorded so far, e.g. when a new suite starts in the same JVM. Call it while
+     * the test threads are idle; spans recorded during the call may be lost.
+     */
+    public static void reset() {
+        if (ENABLED) {
+            buffers.clear();
+            trackNames.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * Returns the outermost page-object method on the current stack, i.e. the action the test called.
+     */
+    private static String findPageAction() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PAGES_PACKAGE))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> {
+                    String page = frame.getClassName().substring(PAGES_PACKAGE.length());
+                    return frame.getMethodName().equals("<init>") ? "new " + page : page + "." + frame.getMethodName();
+                })
+                .orElse(null));
+    }
+
+    private static boolean writeThreadName(BufferedWriter writer, long tid, String name, boolean first) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        }
+        writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PID + ",\"tid\":" + tid
+                + ",\"args\":{\"name\":" + quote(name) + "}}");
+        return false;
+    }
+
+    private static void writeEvent(BufferedWriter writer, Event event) throws IOException {
+        writer.write("{\"name\":" + quote(event.name) + ",\"cat\":" + quote(event.category) + ",\"ph\":\"X\""
+                + ",\"ts\":" + micros(event.start - ORIGIN) + ",\"dur\":" + micros(event.duration)
+                + ",\"pid\":" + PID + ",\"tid\":" + event.tid);
+        if (event.args != null && !event.args.isEmpty()) {
+            writer.write(",\"args\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> arg : event.args.entrySet()) {
+                writer.write((first ? "" : ",") + quote(arg.getKey()) + ":" + quote(arg.getValue()));
+                first = false;
+            }
+            writer.write("}");
+        }
+        writer.write("}");
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String abbreviate(Object value) {
+        String text = String.valueOf(value).strip().lines().findFirst().orElse("");
+        return text.length() <= MAX_ARG_LENGTH ? text : text.substring(0, MAX_ARG_LENGTH) + "...";
+    }
+
+    /**
+     * A span in progress. Ending it records it; spans that are never ended are not recorded.
+     */
+    public static final class Span {
+
+        private final String name;
+        private final String category;
+        private final long tid;
+        private final long start;
+        private Map<String, String> args;
+
+        private Span(String name, String category, long tid, long start) {
+            this.name = name;
+            this.category = category;
+            this.tid = tid;
+            this.start = start;
+        }
+
+        /**
+         * Adds an argument, shown with the span in the trace viewer.
+         */
+        public Span arg(String key, Object value) {
+            if (name != null) {
+                if (args == null) {
+                    args = new LinkedHashMap<>();
+                }
+                args.put(key, abbreviate(value));
+            }
+            return this;
+        }
+
+        public void end() {
+            if (name == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            ThreadBuffer threadBuffer = buffer.get();
+            if (tid == threadBuffer.tid) {
+                threadBuffer.extendPageAction(now);
+            }
+            threadBuffer.add(new Event(name, category, tid, start, now - start, args));
+        }
+    }
+
+    private record Event(String name, String category, long tid, long start, long duration, Map<String, String> args) {
+    }
+
+    /**
+     * The events of one thread. Only the owning thread appends; {@link #snapshot} may be called from any
+     * thread and sees every event appended before the last write of {@code size}.
+     */
+    private static final class ThreadBuffer {
+
+        private final long tid;
+        private final String threadName;
+        private final List<Event[]> chunks = new CopyOnWriteArrayList<>();
+        private volatile int size;
+        private int bufferGeneration = generation;
+
+        // Owner-thread state for grouping commands into page-object actions
+        private final ArrayDeque<Long> commandStarts = new ArrayDeque<>();
+        private String pageAction;
+        private long pageActionStart;
+        private long pageActionEnd;
+
+        ThreadBuffer() {
+            Thread thread = Thread.currentThread();
+            tid = thread.threadId();
+            threadName = thread.getName().isEmpty() ? "thread " + tid : thread.getName();
+            buffers.add(this);
+        }
+
+        void add(Event event) {
+            if (bufferGeneration != generation) {
+                chunks.clear();
+                size = 0;
+                bufferGeneration = generation;
+                buffers.add(this);
+            }
+            int index = size;
+            if (index % CHUNK_SIZE == 0) {
+                chunks.add(new Event[CHUNK_SIZE]);
+            }
+            chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE] = event;
+            size = index + 1;
+        }
+
+        List<Event> snapshot() {
+            int count = size;
+            Event[] events = new Event[count];
+            for (int i = 0; i < count; i += CHUNK_SIZE) {
+                System.arraycopy(chunks.get(i / CHUNK_SIZE), 0, events, i, Math.min(CHUNK_SIZE, count - i));
+            }
+            return List.of(events);
+        }
+
+        void updatePageAction(String action, long now) {
+            if (Objects.equals(action, pageAction)) {
+                return;
+            }
+            if (pageAction != null) {
+                add(new Event(pageAction, "page", tid, pageActionStart, pageActionEnd - pageActionStart, null));
+            }
+            pageAction = action;
+            pageActionStart = now;
+            pageActionEnd = now;
+        }
+
+        void extendPageAction(long now) {
+            if (pageAction != null) {
+                pageActionEnd = Math.max(pageActionEnd, now);
+            }
+        }
+    }
+
+    /**
+     * Records each WebDriver command of a decorated session, e.g. {@code WebElement.click}, on the
+     * calling thread. A failed command is recorded with its error.
+     */
+    private static final class CommandListener implements WebDriverListener {
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            ThreadBuffer threadBuffer = buffer.get();
+            long now = System.nanoTime();
+            if (threadBuffer.commandStarts.isEmpty()) {
+                threadBuffer.updatePageAction(findPageAction(), now);
+            }
+            threadBuffer.commandStarts.push(now);
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            record(method, args, null);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            record(method, args, e.getTargetException());
+        }
+
+        private void record(Method method, Object[] args, Throwable error) {
+            ThreadBuffer threadBuffer = buffer.get();
+            Long start = threadBuffer.commandStarts.poll();
+            if (start == null) {
+                return;
+            }
+            Span span = new Span(method.getDeclaringClass().getSimpleName() + "." + method.getName(), "command",
+                    threadBuffer.tid, start);
+            // Only locators and URLs: typed text may be a password, and cookies may hold a session
+            Object target = args == null || args.length == 0 ? null : args[0];
+            if (target instanceof By || target instanceof URL
+                    || target instanceof String && URL_COMMANDS.contains(method.getName())) {
+                span.arg("target", target);
+            }
+            if (error != null) {
+                span.arg("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+            }
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores visual baselines by content: {@code index.properties} maps each checkpoint key to the SHA-256
+ * of the baseline's pixels, and the pixels are stored once per hash as an RGB PNG under
+ * {@code blobs/<first two hex digits>/<hash>.png}. Checkpoints that render identically share one file,
+ * and re-recording an unchanged baseline does not touch the files.
+ *
+ * <p>Decoded baselines are cached in memory, so repeated checks of the same baseline only decode it once.</p>
+ */
+public class VisualBaselineStore {
+
+    private static final Logger logger = LogManager.getLogger(VisualBaselineStore.class);
+    private static final String INDEX_FILE = "index.properties";
+
+    private final Path directory;
+    private final Map<String, String> index = new TreeMap<>();
+    private final Map<String, SoftReference<BufferedImage>> decoded = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store in the given directory, which is created on the first write.
+     *
+     * @param directory The baseline directory.
+     * @throws RuntimeException If an existing index cannot be read.
+     */
+    public VisualBaselineStore(Path directory) {
+        this.directory = directory;
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(indexFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read visual baseline index " + indexFile, e);
+            }
+            properties.stringPropertyNames().forEach(key -> index.put(key, properties.getProperty(key)));
+        }
+    }
+
+    /**
+     * Returns the baseline of a checkpoint.
+     *
+     * @param key The checkpoint key.
+     * @return The baseline image, or {@code null} if the checkpoint has no baseline yet.
+     * @throws IOException If the baseline file cannot be read.
+     */
+    public BufferedImage load(String key) throws IOException {
+        String hash;
+        synchronized (this) {
+            hash = index.get(key);
+        }
+        if (hash == null) {
+            return null;
+        }
+
+        SoftReference<BufferedImage> cached = decoded.get(hash);
+        BufferedImage image = cached == null ? null : cached.get();
+        if (image == null) {
+            image = ImageIO.read(blobPath(hash).toFile());
+            if (image == null) {
+                throw new IOException("Visual baseline " + blobPath(hash) + " is missing or not an image");
+            }
+            decoded.put(hash, new SoftReference<>(image));
+        }
+        return image;
+    }
+
+    /**
+     * Stores an image as the baseline of a checkpoint. The image is only written if no baseline
+     * has the same pixels yet; blobs no longer referenced by any checkpoint are deleted.
+     *
+     * @param key   The checkpoint key.
+     * @param image The new baseline.
+     * @throws IOException If the baseline or the index cannot be written.
+     */
+    public synchronized void save(String key, BufferedImage image) throws IOException {
+        int[] pixels = ImageDiff.toRgbPixels(image);
+        String hash = hash(image.getWidth(), image.getHeight(), pixels);
+        Path blob = blobPath(hash);
+        if (!Files.exists(blob)) {
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
+            Files.createDirectories(blob.getParent());
+            ImageIO.write(rgb, "png", blob.toFile());
+        }
+
+        String previousHash = index.put(key, hash);
+        writeIndex();
+        if (previousHash != null && !previousHash.equals(hash) && !index.containsValue(previousHash)) {
+            Files.deleteIfExists(blobPath(previousHash));
+            decoded.remove(previousHash);
+        }
+        logger.info("Visual baseline for {} stored as {}", key, hash);
+    }
+
+    private void writeIndex() throws IOException {
+        Files.createDirectories(directory);
+        // Written sorted and without a timestamp, so the index diffs cleanly in version control
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            content.append(entry.getKey().replace(" ", "\\ ")).append('=').append(entry.getValue()).append('\n');
+        }
+        try (OutputStream out = Files.newOutputStream(directory.resolve(INDEX_FILE))) {
+            out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return directory.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash + ".png");
+    }
+
+    private static String hash(int width, int height, int[] pixels) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(8 + pixels.length * 4);
+            buffer.putInt(width).putInt(height);
+            buffer.asIntBuffer().put(pixels);
+            digest.update(buffer.array());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
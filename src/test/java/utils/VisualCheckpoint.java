@@ -0,0 +1,243 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A visual checkpoint: compares a screenshot of the viewport, or of one element, with a stored baseline.
+ *
+ * <p>Checkpoints are declared with chainable calls and checked against a driver:</p>
+ * <pre>
+ *     VisualCheckpoint.Result result = new VisualCheckpoint("ProductPage")
+ *             .ignore(By.id("cart-total"))
+ *             .pixelTolerance(0.001)
+ *             .check(driver);
+ * </pre>
+ *
+ * <p>The {@code visual_checkpoints} setting selects the mode: {@code off} (the default) skips all
+ * checks, {@code compare} compares with the baseline and records one if there is none yet, and
+ * {@code update} re-records every baseline. Baselines are kept per checkpoint and browser in a
+ * {@link VisualBaselineStore}. A diff image is only written for mismatches, to
+ * {@code <report dir>/visual}.</p>
+ */
+public class VisualCheckpoint {
+
+    private static final Logger logger = LogManager.getLogger(VisualCheckpoint.class);
+    private static final String VIEWPORT_SCRIPT =
+            "return [window.scrollX, window.scrollY, document.documentElement.clientWidth];";
+
+    private static VisualBaselineStore baselineStore;
+
+    private final String name;
+    private By element;
+    private final List<By> ignoredElements = new ArrayList<>();
+    private final List<Rectangle> ignoredRegions = new ArrayList<>();
+    private double pixelTolerance = ConfigFileReader.getVisualPixelTolerance();
+    private int channelTolerance = ConfigFileReader.getVisualChannelTolerance();
+    private int perceptualTolerance = -1;
+
+    /**
+     * @param name The checkpoint name, unique within the suite (e.g. the page class name).
+     */
+    public VisualCheckpoint(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Captures only the given element instead of the viewport.
+     */
+    public VisualCheckpoint element(By locator) {
+        element = locator;
+        return this;
+    }
+
+    /**
+     * Excludes every element matching the locator from the comparison, e.g. prices or cart totals.
+     */
+    public VisualCheckpoint ignore(By locator) {
+        ignoredElements.add(locator);
+        return this;
+    }
+
+    /**
+     * Excludes a region of the capture, in image pixels, from the comparison.
+     */
+    public VisualCheckpoint ignore(Rectangle region) {
+        ignoredRegions.add(region);
+        return this;
+    }
+
+    /**
+     * Sets the share of pixels (0 to 1) that may change before the checkpoint fails.
+     */
+    public VisualCheckpoint pixelTolerance(double ratio) {
+        pixelTolerance = ratio;
+        return this;
+    }
+
+    /**
+     * Sets the largest per-channel color difference (0 to 255) that still counts as the same pixel.
+     */
+    public VisualCheckpoint channelTolerance(int tolerance) {
+        channelTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Treats changed tiles whose perceptual hashes differ by at most this many bits (0 to 64) as
+     * rendering noise. Off by default, because small real changes such as a different digit in a
+     * price may not change the hash either.
+     */
+    public VisualCheckpoint perceptualTolerance(int bits) {
+        perceptualTolerance = bits;
+        return this;
+    }
+
+    /**
+     * Captures the page or element and compares it with the baseline.
+     *
+     * @param driver The {@link WebDriver} instance used to control the browser.
+     * @return The result of the checkpoint.
+     * @throws RuntimeException If the capture cannot be decoded or the baseline cannot be read or written.
+     */
+    public Result check(WebDriver driver) {
+        String mode = ConfigFileReader.getVisualCheckpointMode();
+        String key = name + "." + getBrowserName(driver);
+        if (mode.equals("off")) {
+            return new Result(key, Status.DISABLED, 0, 0, null);
+        }
+
+        try {
+            WebElement captured = element == null ? null : driver.findElement(element);
+            byte[] png = captured == null
+                    ? ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)
+                    : captured.getScreenshotAs(OutputType.BYTES);
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+            if (actual == null) {
+                throw new IOException("Screenshot could not be decoded");
+            }
+            List<Rectangle> ignore = resolveIgnoredRegions(driver, captured, actual.getWidth());
+
+            VisualBaselineStore store = getBaselineStore();
+            BufferedImage baseline = mode.equals("update") ? null : store.load(key);
+            if (baseline == null) {
+                store.save(key, actual);
+                logger.info("Visual checkpoint {}: baseline recorded", key);
+                return new Result(key, Status.BASELINE_RECORDED, 0, 0, null);
+            }
+
+            long started = System.nanoTime();
+            ImageDiff.Result diff = ImageDiff.compare(baseline, actual, ignore, channelTolerance, perceptualTolerance);
+            logger.debug("Visual checkpoint {} compared in {} ms", key, (System.nanoTime() - started) / 1_000_000);
+            if (!diff.sizeMismatch() && diff.mismatchRatio() <= pixelTolerance) {
+                return new Result(key, Status.MATCH, diff.mismatchRatio(), diff.changedTiles(), null);
+            }
+
+            Path diffImage = ConfigFileReader.getReportDir().resolve("visual")
+                    .resolve(String.format("%s_diff_%s.png", key, System.currentTimeMillis()));
+            Files.createDirectories(diffImage.getParent());
+            ImageIO.write(ImageDiff.renderDiff(baseline, actual, diff, ignore, channelTolerance), "png", diffImage.toFile());
+            Status status = diff.sizeMismatch() ? Status.SIZE_MISMATCH : Status.MISMATCH;
+            logger.warn("Visual checkpoint {}: {} ({} of pixels changed in {} tiles), diff: {}",
+                    key, status, String.format("%.4f%%", diff.mismatchRatio() * 100), diff.changedTiles(), diffImage);
+            return new Result(key, status, diff.mismatchRatio(), diff.changedTiles(), diffImage);
+        } catch (IOException e) {
+            throw new RuntimeException("Visual checkpoint " + key + " failed", e);
+        }
+    }
+
+    /**
+     * Converts the ignored elements' document coordinates to pixels of the captured image,
+     * taking the scroll position, the element capture's origin and the device pixel ratio into account.
+     */
+    private List<Rectangle> resolveIgnoredRegions(WebDriver driver, WebElement captured, int imageWidth) {
+        List<Rectangle> regions = new ArrayList<>(ignoredRegions);
+        if (ignoredElements.isEmpty()) {
+            return regions;
+        }
+
+        double originX;
+        double originY;
+        double cssWidth;
+        if (captured == null) {
+            List<?> viewport = (List<?>) ((JavascriptExecutor) driver).executeScript(VIEWPORT_SCRIPT);
+            originX = ((Number) viewport.get(0)).doubleValue();
+            originY = ((Number) viewport.get(1)).doubleValue();
+            cssWidth = ((Number) viewport.get(2)).doubleValue();
+        } else {
+            org.openqa.selenium.Rectangle bounds = captured.getRect();
+            originX = bounds.getX();
+            originY = bounds.getY();
+            cssWidth = bounds.getWidth();
+        }
+        double scale = cssWidth > 0 ? imageWidth / cssWidth : 1;
+
+        for (By locator : ignoredElements) {
+            for (WebElement ignored : driver.findElements(locator)) {
+                org.openqa.selenium.Rectangle bounds = ignored.getRect();
+                regions.add(new Rectangle(
+                        (int) Math.floor((bounds.getX() - originX) * scale),
+                        (int) Math.floor((bounds.getY() - originY) * scale),
+                        (int) Math.ceil(bounds.getWidth() * scale) + 1,
+                        (int) Math.ceil(bounds.getHeight() * scale) + 1));
+            }
+        }
+        return regions;
+    }
+
+    private static String getBrowserName(WebDriver driver) {
+        if (driver instanceof HasCapabilities hasCapabilities) {
+            return hasCapabilities.getCapabilities().getBrowserName().toLowerCase();
+        }
+        return "unknown";
+    }
+
+    private static synchronized VisualBaselineStore getBaselineStore() {
+        if (baselineStore == null) {
+            baselineStore = new VisualBaselineStore(ConfigFileReader.getVisualBaselineDir());
+        }
+        return baselineStore;
+    }
+
+    public enum Status {
+        DISABLED, BASELINE_RECORDED, MATCH, MISMATCH, SIZE_MISMATCH
+    }
+
+    /**
+     * The result of a checkpoint.
+     *
+     * @param key           The baseline key: checkpoint name and browser.
+     * @param status        The outcome.
+     * @param mismatchRatio The share of compared pixels that changed.
+     * @param changedTiles  The number of {@link ImageDiff#TILE_SIZE}-pixel tiles with changes.
+     * @param diffImage     The diff image of a mismatch, or {@code null}.
+     */
+    public record Result(String key, Status status, double mismatchRatio, int changedTiles, Path diffImage) {
+
+        /**
+         * Returns whether the checkpoint passed. Disabled checkpoints and newly recorded baselines pass.
+         *
+         * @return {@code false} only for mismatches.
+         */
+        public boolean isMatch() {
+            return status != Status.MISMATCH && status != Status.SIZE_MISMATCH;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+/**
+ * Shared explicit-wait helpers used by the page objects.
+ *
+ * <p>All waits use the {@code page_ready_timeout_seconds} timeout from the configuration file,
+ * so page objects do not create their own ad hoc {@link WebDriverWait} instances.</p>
+ */
+public class WaitUtils {
+
+    private static final Logger logger = LogManager.getLogger(WaitUtils.class);
+
+    /**
+     * Waits until the given condition is truthy.
+     *
+     * @param driver    The {@link WebDriver} instance used to control the browser.
+     * @param condition The condition to wait for.
+     * @param <T>       The type of the condition's value.
+     * @return The condition's truthy value.
+     * @throws TimeoutException If the condition is not met within the configured timeout.
+     */
+    public static <T> T waitFor(WebDriver driver, ExpectedCondition<T> condition) {
+        Tracer.Span span = Tracer.begin("wait", "wait");
+        try {
+            return new WebDriverWait(driver, ConfigFileReader.getPageReadyTimeout()).until(condition);
+        } finally {
+            span.arg("condition", condition).end();
+        }
+    }
+
+    /**
+     * Clicks an element that navigates to another page and waits until the current document has been
+     * replaced. The readiness contract of the next page object then decides when that page is usable.
+     *
+     * <p>Before clicking, the remaining metrics of the current page are handed to {@link PageTimings}, so pages
+     * reached with the {@code eager} page-load strategy still get their load time and web vitals recorded.</p>
+     *
+     * @param driver  The {@link WebDriver} instance used to control the browser.
+     * @param element The element to click.
+     */
+    public static void clickAndAwaitPageChange(WebDriver driver, WebElement element) {
+        WebElement currentDocument = driver.findElement(By.tagName("html"));
+        PageTimings.recordLeavingPage(driver);
+        element.click();
+        try {
+            waitFor(driver, ExpectedConditions.stalenessOf(currentDocument));
+        } catch (TimeoutException e) {
+            logger.warn("Page did not change within {} after click", ConfigFileReader.getPageReadyTimeout());
+        }
+    }
+
+    /**
+     * Clicks an element that starts an XHR or fetch request and waits until the first request whose URL
+     * contains {@code urlPart} has completed and the page has settled. The browser signals completion
+     * through {@link NetworkSync}, so the wait ends as soon as the request's effects are on the page.
+     *
+     * @param driver  The {@link WebDriver} instance used to control the browser.
+     * @param element The element to click.
+     * @param urlPart A part of the request URL, e.g. {@code route=checkout/cart/add}.
+     * @return The completed request.
+     * @throws TimeoutException If the request does not complete within the configured timeout.
+     */
+    public static NetworkSync.CompletedRequest clickAndAwaitRequest(WebDriver driver, WebElement element,
+                                                                    String urlPart) {
+        long mark = NetworkSync.mark(driver);
+        element.click();
+        NetworkSync.CompletedRequest request = NetworkSync.awaitRequest(driver, mark, urlPart);
+        logger.debug("{} {} returned HTTP {} in {} ms", request.method(), request.url(), request.status(),
+                request.durationMillis());
+        return request;
+    }
+}